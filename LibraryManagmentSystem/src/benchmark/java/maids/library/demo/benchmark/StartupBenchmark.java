@@ -0,0 +1,104 @@
+package maids.library.demo.benchmark;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Launches the application several times and records how long each launch takes until the
+ * first request is answered without a server error.
+ * <p>
+ * Usage: {@code StartupBenchmark --runs N --url URL --report FILE -- <launch command...>}
+ */
+public class StartupBenchmark {
+    private static final Duration POLL_INTERVAL = Duration.ofMillis(10);
+    private static final Duration RUN_TIMEOUT = Duration.ofMinutes(2);
+
+    public static void main(String[] args) throws Exception {
+        int runs = 5;
+        URI url = URI.create("http://localhost:8080/api/books");
+        Path report = null;
+        List<String> command = new ArrayList<>();
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--runs" -> runs = Integer.parseInt(args[++i]);
+                case "--url" -> url = URI.create(args[++i]);
+                case "--report" -> report = Path.of(args[++i]);
+                case "--" -> {
+                    command.addAll(Arrays.asList(args).subList(i + 1, args.length));
+                    i = args.length;
+                }
+                default -> throw new IllegalArgumentException("Unknown argument: " + args[i]);
+            }
+        }
+        if (command.isEmpty()) {
+            throw new IllegalArgumentException("Missing launch command after --");
+        }
+
+        HttpClient client = HttpClient.newBuilder()
+                .connectTimeout(Duration.ofMillis(200))
+                .build();
+        long[] millis = new long[runs];
+        for (int run = 0; run < runs; run++) {
+            millis[run] = measure(command, client, url);
+            System.out.printf("run %d: %d ms to first successful request%n", run + 1, millis[run]);
+        }
+
+        long[] sorted = millis.clone();
+        Arrays.sort(sorted);
+        String json = String.format(Locale.ROOT,
+                "{\"command\":\"%s\",\"url\":\"%s\",\"runs\":%d,\"minMs\":%d,\"medianMs\":%d,\"maxMs\":%d,\"samplesMs\":%s}%n",
+                String.join(" ", command).replace("\\", "\\\\").replace("\"", "\\\""),
+                url, runs, sorted[0], sorted[runs / 2], sorted[runs - 1], Arrays.toString(millis));
+        System.out.print(json);
+        if (report != null) {
+            Files.createDirectories(report.toAbsolutePath().getParent());
+            Files.writeString(report, json);
+        }
+    }
+
+    private static long measure(List<String> command, HttpClient client, URI url) throws Exception {
+        HttpRequest request = HttpRequest.newBuilder(url)
+                .timeout(Duration.ofSeconds(5))
+                .GET()
+                .build();
+        long startedAt = System.nanoTime();
+        Process process = new ProcessBuilder(command)
+                .redirectErrorStream(true)
+                .redirectOutput(ProcessBuilder.Redirect.DISCARD)
+                .start();
+        try {
+            long deadline = startedAt + RUN_TIMEOUT.toNanos();
+            while (System.nanoTime() < deadline) {
+                if (!process.isAlive()) {
+                    throw new IllegalStateException("Application exited with code " + process.exitValue());
+                }
+                try {
+                    HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+                    if (response.statusCode() < 500) {
+                        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedAt);
+                    }
+                } catch (IOException e) {
+                    // Not listening yet, or the connection was reset while the server starts.
+                }
+                Thread.sleep(POLL_INTERVAL.toMillis());
+            }
+            throw new IllegalStateException("No successful request within " + RUN_TIMEOUT);
+        } finally {
+            process.destroy();
+            if (!process.waitFor(30, TimeUnit.SECONDS)) {
+                process.destroyForcibly().waitFor();
+            }
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package maids.library.demo.branch;
+
+import com.zaxxer.hikari.HikariDataSource;
+import jakarta.persistence.EntityManagerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.Ordered;
+import org.springframework.core.env.Environment;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.regex.Pattern;
+
+/**
+ * Every branch keeps its data in its own database. {@code spring.datasource.*} is the default
+ * branch, {@value BranchContext#DEFAULT_BRANCH}; further branches are declared as
+ * {@code library.branches.shards.<name>.url}, {@code .username} and {@code .password}. The
+ * application's data source routes each connection to the current branch's database.
+ */
+@Configuration(proxyBeanMethods = false)
+public class BranchConfiguration {
+    private static final Pattern BRANCH_NAME = Pattern.compile("[a-z0-9][a-z0-9-]{0,63}");
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource mainDataSource(DataSourceProperties properties) {
+        HikariDataSource dataSource = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        dataSource.setPoolName("branch-" + BranchContext.DEFAULT_BRANCH);
+        return dataSource;
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(HikariDataSource mainDataSource, Environment environment) {
+        Map<Object, Object> targets = new LinkedHashMap<>();
+        targets.put(BranchContext.DEFAULT_BRANCH, mainDataSource);
+        shardProperties(environment).forEach((branch, properties) -> {
+            HikariDataSource dataSource = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+            dataSource.setPoolName("branch-" + branch);
+            targets.put(branch, dataSource);
+        });
+        BranchRoutingDataSource routing = new BranchRoutingDataSource();
+        routing.setTargetDataSources(targets);
+        routing.setDefaultTargetDataSource(mainDataSource);
+        routing.setLenientFallback(false);
+        return routing;
+    }
+
+    @Bean
+    public Branches branches(Environment environment) {
+        List<String> names = new ArrayList<>();
+        names.add(BranchContext.DEFAULT_BRANCH);
+        names.addAll(shardProperties(environment).keySet());
+        return new Branches(names);
+    }
+
+    @Bean
+    public FilterRegistrationBean<BranchFilter> branchFilter(Branches branches) {
+        FilterRegistrationBean<BranchFilter> registration = new FilterRegistrationBean<>(new BranchFilter(branches));
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE);
+        return registration;
+    }
+
+    @Bean
+    public ShardSchemaInitializer shardSchemaInitializer(EntityManagerFactory entityManagerFactory, Branches branches,
+                                                         @Value("${spring.jpa.hibernate.ddl-auto:none}") String ddlAuto) {
+        return new ShardSchemaInitializer(entityManagerFactory, branches, ddlAuto);
+    }
+
+    private static Map<String, DataSourceProperties> shardProperties(Environment environment) {
+        Map<String, DataSourceProperties> shards = new TreeMap<>(Binder.get(environment)
+                .bind("library.branches.shards", Bindable.mapOf(String.class, DataSourceProperties.class))
+                .orElse(Map.of()));
+        shards.forEach((branch, properties) -> {
+            if (!BRANCH_NAME.matcher(branch).matches() || branch.equals(BranchContext.DEFAULT_BRANCH)) {
+                throw new IllegalStateException("Invalid branch name: " + branch);
+            }
+            if (properties.getUrl() == null) {
+                throw new IllegalStateException("library.branches.shards." + branch + ".url is required");
+            }
+        });
+        return shards;
+    }
+}
@@ -0,0 +1,65 @@
+package maids.library.demo.branch;
+
+import java.util.function.Supplier;
+
+/**
+ * The branch whose data the current thread works on. Bound per request by {@link BranchFilter};
+ * work handed to other threads has to carry it over with {@link #wrap(Runnable)} or
+ * {@link #run(String, Runnable)}. Threads without a branch work on {@link #DEFAULT_BRANCH}.
+ */
+public final class BranchContext {
+    public static final String DEFAULT_BRANCH = "main";
+    private static final ThreadLocal<String> CURRENT = new ThreadLocal<>();
+
+    private BranchContext() {
+    }
+
+    public static String current() {
+        String branch = CURRENT.get();
+        return branch != null ? branch : DEFAULT_BRANCH;
+    }
+
+    public static void run(String branch, Runnable task) {
+        String previous = CURRENT.get();
+        CURRENT.set(branch);
+        try {
+            task.run();
+        } finally {
+            restore(previous);
+        }
+    }
+
+    public static <T> T call(String branch, Supplier<T> task) {
+        String previous = CURRENT.get();
+        CURRENT.set(branch);
+        try {
+            return task.get();
+        } finally {
+            restore(previous);
+        }
+    }
+
+    /**
+     * Binds {@code task} to the calling thread's branch, for running it on another thread.
+     */
+    public static Runnable wrap(Runnable task) {
+        String branch = current();
+        return () -> run(branch, task);
+    }
+
+    static void set(String branch) {
+        CURRENT.set(branch);
+    }
+
+    static void clear() {
+        CURRENT.remove();
+    }
+
+    private static void restore(String previous) {
+        if (previous != null) {
+            CURRENT.set(previous);
+        } else {
+            CURRENT.remove();
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package maids.library.demo.branch;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+/**
+ * Binds the branch named in the {@code X-Library-Branch} header to the request; requests
+ * without the header work on the default branch and unknown branches are rejected.
+ */
+public class BranchFilter extends OncePerRequestFilter {
+    public static final String BRANCH_HEADER = "X-Library-Branch";
+
+    private final Branches branches;
+
+    public BranchFilter(Branches branches) {
+        this.branches = branches;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        String branch = request.getHeader(BRANCH_HEADER);
+        if (branch == null || branch.isBlank()) {
+            branch = BranchContext.DEFAULT_BRANCH;
+        } else if (!branches.contains(branch.trim())) {
+            response.sendError(HttpStatus.BAD_REQUEST.value(), "Unknown branch: " + branch);
+            return;
+        }
+        BranchContext.set(branch.trim());
+        response.setHeader(BRANCH_HEADER, branch.trim());
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            BranchContext.clear();
+        }
+    }
+}
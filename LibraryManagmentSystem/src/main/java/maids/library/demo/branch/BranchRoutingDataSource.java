@@ -0,0 +1,15 @@
+package maids.library.demo.branch;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+
+/**
+ * Hands out connections of the current branch's database. A connection is bound when a
+ * transaction starts, so the branch has to be set before that.
+ */
+public class BranchRoutingDataSource extends AbstractRoutingDataSource {
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        return BranchContext.current();
+    }
+}
@@ -0,0 +1,41 @@
+package maids.library.demo.branch;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.List;
+
+/**
+ * The configured branches, the default one first.
+ */
+public class Branches {
+    private static final Logger log = LoggerFactory.getLogger(Branches.class);
+
+    private final List<String> names;
+
+    public Branches(List<String> names) {
+        this.names = List.copyOf(names);
+    }
+
+    public List<String> names() {
+        return names;
+    }
+
+    public boolean contains(String branch) {
+        return names.contains(branch);
+    }
+
+    /**
+     * Runs {@code task} once per branch with that branch bound. A failure is logged and does not
+     * keep the task from running on the remaining branches.
+     */
+    public void forEach(String description, Runnable task) {
+        for (String branch : names) {
+            try {
+                BranchContext.run(branch, task);
+            } catch (RuntimeException ex) {
+                log.error("Failed to {} for branch {}", description, branch, ex);
+            }
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package maids.library.demo.branch;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.relational.SchemaManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.InitializingBean;
+
+/**
+ * Hibernate creates the schema of the default branch only, since it sees a single data source.
+ * When {@code spring.jpa.hibernate.ddl-auto} recreates the schema, this does the same for every
+ * other branch; otherwise their schemas are managed like the default one, outside the application.
+ */
+public class ShardSchemaInitializer implements InitializingBean {
+    private static final Logger log = LoggerFactory.getLogger(ShardSchemaInitializer.class);
+
+    private final EntityManagerFactory entityManagerFactory;
+    private final Branches branches;
+    private final String ddlAuto;
+
+    public ShardSchemaInitializer(EntityManagerFactory entityManagerFactory, Branches branches, String ddlAuto) {
+        this.entityManagerFactory = entityManagerFactory;
+        this.branches = branches;
+        this.ddlAuto = ddlAuto;
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        if (!"create".equals(ddlAuto) && !"create-drop".equals(ddlAuto)) {
+            return;
+        }
+        SchemaManager schemaManager = entityManagerFactory.unwrap(SessionFactory.class).getSchemaManager();
+        for (String branch : branches.names()) {
+            if (!branch.equals(BranchContext.DEFAULT_BRANCH)) {
+                BranchContext.run(branch, () -> {
+                    schemaManager.dropMappedObjects(false);
+                    schemaManager.exportMappedObjects(false);
+                });
+                log.info("Created the schema of branch {}", branch);
+            }
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package maids.library.demo.config;
+
+import maids.library.demo.controller.LibraryController;
+import maids.library.demo.service.LibraryService;
+import org.springframework.boot.LazyInitializationExcludeFilter;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+
+/**
+ * The fast-start profile initializes beans lazily. The core request path listed here stays eager,
+ * so the first request does not pay for it. Beans with scheduled methods stay eager as well,
+ * through Spring Boot's own {@code ScheduledBeanLazyInitializationExcludeFilter}, since their jobs
+ * are only registered with the scheduler once the bean exists.
+ */
+@Configuration(proxyBeanMethods = false)
+@Profile("fast-start")
+public class FastStartConfiguration {
+
+    @Bean
+    static LazyInitializationExcludeFilter eagerBeans() {
+        return LazyInitializationExcludeFilter.forBeanTypes(
+                LibraryController.class,
+                LibraryService.class);
+    }
+}
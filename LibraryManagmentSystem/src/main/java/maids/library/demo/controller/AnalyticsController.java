@@ -0,0 +1,110 @@
+package maids.library.demo.controller;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import maids.library.demo.model.dto.LoanDurationStats;
+import maids.library.demo.model.dto.RollupBackfillResult;
+import maids.library.demo.model.projection.AuthorLoanCount;
+import maids.library.demo.model.projection.CohortLoanCount;
+import maids.library.demo.model.projection.DailyLoanCount;
+import maids.library.demo.service.AnalyticsService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.function.BiFunction;
+
+/**
+ * Date ranges are inclusive on both ends and default to the last 30 days up to today.
+ */
+@RestController
+@RequestMapping("/api/analytics")
+public class AnalyticsController {
+    private static final int DEFAULT_RANGE_DAYS = 30;
+    private static final int MAX_AUTHORS = 100;
+
+    @Autowired
+    private final AnalyticsService analyticsService;
+
+    public AnalyticsController(AnalyticsService analyticsService) {
+        this.analyticsService = analyticsService;
+    }
+
+    @Operation(summary = "Count loans and returns per day")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Counts retrieved successfully"),
+            @ApiResponse(responseCode = "400", description = "Bad request")
+    })
+    @GetMapping("/loans-per-day")
+    public ResponseEntity<List<DailyLoanCount>> getLoansPerDay(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        return inRange(from, to, analyticsService::getLoansPerDay);
+    }
+
+    @Operation(summary = "Rank authors by the number of loans of their books")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Counts retrieved successfully"),
+            @ApiResponse(responseCode = "400", description = "Bad request")
+    })
+    @GetMapping("/loans-per-author")
+    public ResponseEntity<List<AuthorLoanCount>> getLoansPerAuthor(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(defaultValue = "10") int limit) {
+        if (limit < 1 || limit > MAX_AUTHORS) {
+            return ResponseEntity.badRequest().build();
+        }
+        return inRange(from, to, (start, end) -> analyticsService.getLoansPerAuthor(start, end, limit));
+    }
+
+    @Operation(summary = "Count loans per patron cohort, the month a patron registered")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Counts retrieved successfully"),
+            @ApiResponse(responseCode = "400", description = "Bad request")
+    })
+    @GetMapping("/loans-per-cohort")
+    public ResponseEntity<List<CohortLoanCount>> getLoansPerCohort(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        return inRange(from, to, analyticsService::getLoansPerCohort);
+    }
+
+    @Operation(summary = "Average loan duration in days of the books returned in a range")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Average retrieved successfully"),
+            @ApiResponse(responseCode = "400", description = "Bad request")
+    })
+    @GetMapping("/loan-duration")
+    public ResponseEntity<LoanDurationStats> getLoanDuration(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        return inRange(from, to, analyticsService::getLoanDuration);
+    }
+
+    @Operation(summary = "Rebuild the rollups of all days before today from the loan history")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Rollups rebuilt successfully")
+    })
+    @PostMapping("/backfill")
+    public ResponseEntity<RollupBackfillResult> backfill() {
+        return ResponseEntity.ok(analyticsService.backfill());
+    }
+
+    private static <T> ResponseEntity<T> inRange(LocalDate from, LocalDate to, BiFunction<LocalDate, LocalDate, T> report) {
+        LocalDate end = to != null ? to : LocalDate.now();
+        LocalDate start = from != null ? from : end.minusDays(DEFAULT_RANGE_DAYS - 1);
+        if (start.isAfter(end)) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(report.apply(start, end));
+    }
+}
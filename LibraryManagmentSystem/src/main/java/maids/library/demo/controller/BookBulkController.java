@@ -0,0 +1,54 @@
+package maids.library.demo.controller;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import jakarta.validation.Valid;
+import maids.library.demo.model.dto.BookFilter;
+import maids.library.demo.model.dto.BulkBookUpdateRequest;
+import maids.library.demo.model.dto.BulkOperationResult;
+import maids.library.demo.service.BookBulkService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping("/api")
+public class BookBulkController {
+    @Autowired
+    private final BookBulkService bookBulkService;
+
+    public BookBulkController(BookBulkService bookBulkService) {
+        this.bookBulkService = bookBulkService;
+    }
+
+    @Operation(summary = "Remove every book matching a list of IDs and/or an author and publication year")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Matching books without loans or holds deleted"),
+            @ApiResponse(responseCode = "400", description = "Bad request")
+    })
+    @PostMapping("/books/bulk-delete")
+    public ResponseEntity<BulkOperationResult> deleteBooks(@RequestBody BookFilter filter) {
+        if (!filter.hasCriteria()) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(bookBulkService.deleteBooks(filter));
+    }
+
+    @Operation(summary = "Set the author and/or publication year of every book matching a filter")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Matching books updated"),
+            @ApiResponse(responseCode = "400", description = "Bad request")
+    })
+    @PostMapping("/books/bulk-update")
+    public ResponseEntity<BulkOperationResult> updateBooks(@Valid @RequestBody BulkBookUpdateRequest request) {
+        if (!request.getFilter().hasCriteria()
+                || (request.getAuthor() == null && request.getPublicationYear() == null)) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(bookBulkService.updateBooks(request));
+    }
+}
@@ -0,0 +1,60 @@
+package maids.library.demo.controller;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import maids.library.demo.model.dto.CatalogSearchResult;
+import maids.library.demo.service.CatalogService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+/**
+ * Endpoints spanning all branches; every other endpoint works on the branch named in the
+ * {@code X-Library-Branch} header.
+ */
+@RestController
+@RequestMapping("/api")
+public class CatalogController {
+    private static final int MAX_LIMIT = 200;
+
+    @Autowired
+    private final CatalogService catalogService;
+
+    public CatalogController(CatalogService catalogService) {
+        this.catalogService = catalogService;
+    }
+
+    @Operation(summary = "List the branches")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Branches retrieved successfully")
+    })
+    @GetMapping("/branches")
+    public ResponseEntity<List<String>> getBranches() {
+        return ResponseEntity.ok(catalogService.getBranches());
+    }
+
+    @Operation(summary = "Search the books of all branches by title and author")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Books retrieved successfully"),
+            @ApiResponse(responseCode = "400", description = "Bad request")
+    })
+    @GetMapping("/catalog/books")
+    public ResponseEntity<CatalogSearchResult> searchBooks(@RequestParam(required = false) String title,
+                                                           @RequestParam(required = false) String author,
+                                                           @RequestParam(defaultValue = "50") int limit) {
+        if (limit < 1 || limit > MAX_LIMIT) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(catalogService.searchBooks(blankToNull(title), blankToNull(author), limit));
+    }
+
+    private static String blankToNull(String value) {
+        return value == null || value.isBlank() ? null : value.trim();
+    }
+}
@@ -0,0 +1,52 @@
+package maids.library.demo.controller;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import maids.library.demo.exception.PatronNotFoundException;
+import maids.library.demo.model.dto.FineRunResult;
+import maids.library.demo.model.dto.FineSummary;
+import maids.library.demo.service.FineService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping("/api")
+public class FineController {
+    @Autowired
+    private final FineService fineService;
+
+    public FineController(FineService fineService) {
+        this.fineService = fineService;
+    }
+
+    @Operation(summary = "Bring a patron's fines up to date and retrieve them")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Fines retrieved successfully"),
+            @ApiResponse(responseCode = "404", description = "Patron not found")
+    })
+    @GetMapping("/patrons/{id}/fines")
+    public ResponseEntity<FineSummary> getFines(@PathVariable Long id) {
+        return ResponseEntity.ok(fineService.assessPatron(id));
+    }
+
+    @Operation(summary = "Assess the fines of all open loans now instead of waiting for the nightly run")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Fines assessed")
+    })
+    @PostMapping("/fines/assess")
+    public ResponseEntity<FineRunResult> assessAll() {
+        return ResponseEntity.ok(fineService.assessAll());
+    }
+
+    @ExceptionHandler(PatronNotFoundException.class)
+    public ResponseEntity<Object> handlePatronNotFoundException(PatronNotFoundException ex) {
+        return ResponseEntity.notFound().build();
+    }
+}
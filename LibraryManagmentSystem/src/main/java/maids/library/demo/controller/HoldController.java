@@ -0,0 +1,68 @@
+package maids.library.demo.controller;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import maids.library.demo.exception.BookNotFoundException;
+import maids.library.demo.exception.HoldAlreadyExistsException;
+import maids.library.demo.exception.PatronNotFoundException;
+import maids.library.demo.model.dto.HoldResponse;
+import maids.library.demo.service.HoldService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api")
+public class HoldController {
+    @Autowired
+    private final HoldService holdService;
+
+    public HoldController(HoldService holdService) {
+        this.holdService = holdService;
+    }
+
+    @Operation(summary = "Place a hold on a book for a patron")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "201", description = "Hold placed successfully"),
+            @ApiResponse(responseCode = "404", description = "Book or patron not found"),
+            @ApiResponse(responseCode = "409", description = "Patron already has a waiting hold on the book")
+    })
+    @PostMapping("/books/{bookId}/holds")
+    public ResponseEntity<HoldResponse> placeHold(@PathVariable Long bookId, @RequestParam Long patronId) {
+        return new ResponseEntity<>(holdService.placeHold(bookId, patronId), HttpStatus.CREATED);
+    }
+
+    @Operation(summary = "Retrieve the waiting holds of a book in queue order")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Holds retrieved successfully")
+    })
+    @GetMapping("/books/{bookId}/holds")
+    public ResponseEntity<List<HoldResponse>> getWaitingHolds(@PathVariable Long bookId) {
+        return ResponseEntity.ok(holdService.getWaitingHolds(bookId));
+    }
+
+    @ExceptionHandler(BookNotFoundException.class)
+    public ResponseEntity<Object> handleBookNotFoundException(BookNotFoundException ex) {
+        return ResponseEntity.notFound().build();
+    }
+
+    @ExceptionHandler(PatronNotFoundException.class)
+    public ResponseEntity<Object> handlePatronNotFoundException(PatronNotFoundException ex) {
+        return ResponseEntity.notFound().build();
+    }
+
+    @ExceptionHandler(HoldAlreadyExistsException.class)
+    public ResponseEntity<Object> handleHoldAlreadyExistsException(HoldAlreadyExistsException ex) {
+        return ResponseEntity.status(HttpStatus.CONFLICT).body(ex.getMessage());
+    }
+}
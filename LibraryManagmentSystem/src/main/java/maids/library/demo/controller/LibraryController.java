@@ -2,9 +2,16 @@ package maids.library.demo.controller;
 
 import jakarta.validation.Valid;
 import maids.library.demo.exception.BookNotFoundException;
+import maids.library.demo.exception.InvalidFieldsException;
+import maids.library.demo.exception.LoanLimitExceededException;
 import maids.library.demo.exception.PatronNotFoundException;
+import maids.library.demo.model.dto.BookPage;
+import maids.library.demo.model.dto.LoanHistoryEntry;
+import maids.library.demo.model.dto.MultiGetResponse;
 import maids.library.demo.model.entity.Book;
 import maids.library.demo.model.entity.Patron;
+import maids.library.demo.service.FieldSelection;
+import maids.library.demo.service.IdempotencyService;
 import maids.library.demo.service.LibraryService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpHeaders;
@@ -12,29 +19,66 @@ import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 @RestController
 @RequestMapping("/api")
 public class LibraryController {
+    private static final int MAX_MULTI_GET_IDS = 1000;
+    private static final int DEFAULT_PAGE_SIZE = 50;
+    private static final int MAX_PAGE_SIZE = 200;
+    private static final Set<String> BROWSE_PARAMETERS = Set.of("author", "yearFrom", "yearTo", "afterYear", "afterId", "limit");
+
     @Autowired
     private final LibraryService libraryService;
 
-    public LibraryController(LibraryService libraryService) {
+    @Autowired
+    private final IdempotencyService idempotencyService;
+
+    public LibraryController(LibraryService libraryService, IdempotencyService idempotencyService) {
         this.libraryService = libraryService;
+        this.idempotencyService = idempotencyService;
     }
 
-    @Operation(summary = "Retrieve a list of all books")
+    @Operation(summary = "Retrieve a list of all books, or with yearFrom, yearTo, author or limit one page of "
+            + "matching books in year order; the next page is linked in the Link header")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "List of books retrieved successfully"),
+            @ApiResponse(responseCode = "400", description = "Bad request"),
             @ApiResponse(responseCode = "404", description = "No books found")
     })
     @GetMapping("/books")
-    public ResponseEntity<List<Book>> getAllBooks() {
+    public ResponseEntity<List<Book>> getAllBooks(@RequestParam(required = false) String author,
+                                                  @RequestParam(required = false) Integer yearFrom,
+                                                  @RequestParam(required = false) Integer yearTo,
+                                                  @RequestParam(required = false) Integer afterYear,
+                                                  @RequestParam(required = false) Long afterId,
+                                                  @RequestParam(required = false) Integer limit) {
+        if (author != null || yearFrom != null || yearTo != null || afterYear != null || afterId != null || limit != null) {
+            int pageSize = limit != null ? limit : DEFAULT_PAGE_SIZE;
+            if (pageSize < 1 || pageSize > MAX_PAGE_SIZE || (afterYear == null) != (afterId == null)) {
+                return ResponseEntity.badRequest().build();
+            }
+            BookPage page = libraryService.browseBooks(author, yearFrom, yearTo, afterYear, afterId, pageSize);
+            HttpHeaders headers = new HttpHeaders();
+            if (page.getNextAfterId() != null) {
+                headers.add(HttpHeaders.LINK, "<" + ServletUriComponentsBuilder.fromCurrentRequest()
+                        .replaceQueryParam("afterYear", page.getNextAfterYear())
+                        .replaceQueryParam("afterId", page.getNextAfterId())
+                        .build()
+                        .toUriString() + ">; rel=\"next\"");
+            }
+            return ResponseEntity.ok().headers(headers).body(page.getBooks());
+        }
         List<Book> books = libraryService.getAllBooks();
         if (books.isEmpty()) {
             return ResponseEntity.notFound().build();
@@ -42,6 +86,64 @@ public class LibraryController {
         return ResponseEntity.ok(books);
     }
 
+    @Operation(summary = "Retrieve selected fields of all books, e.g. fields=title,author; id is always included")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "List of books retrieved successfully"),
+            @ApiResponse(responseCode = "400", description = "Unknown field requested, or combined with browse parameters"),
+            @ApiResponse(responseCode = "404", description = "No books found")
+    })
+    @GetMapping(value = "/books", params = "fields")
+    public ResponseEntity<List<Map<String, Object>>> getAllBooks(@RequestParam String fields,
+                                                                 @Parameter(hidden = true) @RequestParam Map<String, String> parameters) {
+        rejectBrowseParameters(parameters);
+        List<Map<String, Object>> books = libraryService.getAllBooks(FieldSelection.parse(fields, FieldSelection.BOOK_FIELDS));
+        if (books.isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok(books);
+    }
+
+    @Operation(summary = "Retrieve several books by ID in a single request")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Books retrieved; unknown IDs are listed in missingIds"),
+            @ApiResponse(responseCode = "400", description = "Bad request")
+    })
+    @GetMapping(value = "/books", params = "ids")
+    public ResponseEntity<MultiGetResponse<Book>> getBooksByIds(@RequestParam List<Long> ids,
+                                                                @Parameter(hidden = true) @RequestParam Map<String, String> parameters) {
+        if (ids.isEmpty() || ids.size() > MAX_MULTI_GET_IDS || !Collections.disjoint(parameters.keySet(), BROWSE_PARAMETERS)) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(libraryService.getBooksByIds(ids));
+    }
+
+    @Operation(summary = "Retrieve selected fields of several books by ID in a single request")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Books retrieved; unknown IDs are listed in missingIds"),
+            @ApiResponse(responseCode = "400", description = "Bad request or unknown field requested")
+    })
+    @GetMapping(value = "/books", params = {"ids", "fields"})
+    public ResponseEntity<MultiGetResponse<Map<String, Object>>> getBooksByIds(@RequestParam List<Long> ids,
+                                                                              @RequestParam String fields,
+                                                                              @Parameter(hidden = true) @RequestParam Map<String, String> parameters) {
+        rejectBrowseParameters(parameters);
+        List<String> selection = FieldSelection.parse(fields, FieldSelection.BOOK_FIELDS);
+        if (ids.isEmpty() || ids.size() > MAX_MULTI_GET_IDS) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(libraryService.getBooksByIds(ids, selection));
+    }
+
+    @Operation(summary = "Retrieve several books by a list of IDs sent in the request body")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Books retrieved; unknown IDs are listed in missingIds"),
+            @ApiResponse(responseCode = "400", description = "Bad request")
+    })
+    @PostMapping("/books/multi-get")
+    public ResponseEntity<MultiGetResponse<Book>> getBooksByIdList(@RequestBody List<Long> ids) {
+        return getBooksByIds(ids, Map.of());
+    }
+
     @Operation(summary = "Retrieve details of a specific book by ID")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Book details retrieved successfully"),
@@ -55,6 +157,17 @@ public class LibraryController {
         return ResponseEntity.ok().headers(headers).body(existingBook);
     }
 
+    @Operation(summary = "Retrieve selected fields of a specific book by ID")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Book details retrieved successfully"),
+            @ApiResponse(responseCode = "400", description = "Unknown field requested"),
+            @ApiResponse(responseCode = "404", description = "Book not found")
+    })
+    @GetMapping(value = "/books/{id}", params = "fields", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<Map<String, Object>> getBookById(@PathVariable Long id, @RequestParam String fields) {
+        return ResponseEntity.ok(libraryService.getBookById(id, FieldSelection.parse(fields, FieldSelection.BOOK_FIELDS)));
+    }
+
     @Operation(summary = "Add a new book to the library")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "201", description = "Book added successfully"),
@@ -103,6 +216,59 @@ public class LibraryController {
         return ResponseEntity.ok(patrons);
     }
 
+    @Operation(summary = "Retrieve selected fields of all patrons, e.g. fields=name; id is always included")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "List of patrons retrieved successfully"),
+            @ApiResponse(responseCode = "400", description = "Unknown field requested"),
+            @ApiResponse(responseCode = "404", description = "No patrons found")
+    })
+    @GetMapping(value = "/patrons", params = "fields")
+    public ResponseEntity<List<Map<String, Object>>> getAllPatrons(@RequestParam String fields) {
+        List<Map<String, Object>> patrons = libraryService.getAllPatrons(FieldSelection.parse(fields, FieldSelection.PATRON_FIELDS));
+        if (patrons.isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok(patrons);
+    }
+
+    @Operation(summary = "Retrieve several patrons by ID in a single request")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Patrons retrieved; unknown IDs are listed in missingIds"),
+            @ApiResponse(responseCode = "400", description = "Bad request")
+    })
+    @GetMapping(value = "/patrons", params = "ids")
+    public ResponseEntity<MultiGetResponse<Patron>> getPatronsByIds(@RequestParam List<Long> ids) {
+        if (ids.isEmpty() || ids.size() > MAX_MULTI_GET_IDS) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(libraryService.getPatronsByIds(ids));
+    }
+
+    @Operation(summary = "Retrieve selected fields of several patrons by ID in a single request")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Patrons retrieved; unknown IDs are listed in missingIds"),
+            @ApiResponse(responseCode = "400", description = "Bad request or unknown field requested")
+    })
+    @GetMapping(value = "/patrons", params = {"ids", "fields"})
+    public ResponseEntity<MultiGetResponse<Map<String, Object>>> getPatronsByIds(@RequestParam List<Long> ids,
+                                                                                @RequestParam String fields) {
+        List<String> selection = FieldSelection.parse(fields, FieldSelection.PATRON_FIELDS);
+        if (ids.isEmpty() || ids.size() > MAX_MULTI_GET_IDS) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(libraryService.getPatronsByIds(ids, selection));
+    }
+
+    @Operation(summary = "Retrieve several patrons by a list of IDs sent in the request body")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Patrons retrieved; unknown IDs are listed in missingIds"),
+            @ApiResponse(responseCode = "400", description = "Bad request")
+    })
+    @PostMapping("/patrons/multi-get")
+    public ResponseEntity<MultiGetResponse<Patron>> getPatronsByIdList(@RequestBody List<Long> ids) {
+        return getPatronsByIds(ids);
+    }
+
     @Operation(summary = "Retrieve details of a specific patron by ID")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Patron details retrieved successfully"),
@@ -114,6 +280,17 @@ public class LibraryController {
         return ResponseEntity.ok(patron);
     }
 
+    @Operation(summary = "Retrieve selected fields of a specific patron by ID")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Patron details retrieved successfully"),
+            @ApiResponse(responseCode = "400", description = "Unknown field requested"),
+            @ApiResponse(responseCode = "404", description = "Patron not found")
+    })
+    @GetMapping(value = "/patrons/{id}", params = "fields")
+    public ResponseEntity<Map<String, Object>> getPatronById(@PathVariable Long id, @RequestParam String fields) {
+        return ResponseEntity.ok(libraryService.getPatronById(id, FieldSelection.parse(fields, FieldSelection.PATRON_FIELDS)));
+    }
+
     @Operation(summary = "Add a new patron to the system")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "201", description = "Patron added successfully"),
@@ -148,28 +325,70 @@ public class LibraryController {
         return ResponseEntity.noContent().build();
     }
 
+    @Operation(summary = "Retrieve the borrowing history of a patron, including archived loans")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Borrowing history retrieved successfully"),
+            @ApiResponse(responseCode = "404", description = "Patron not found")
+    })
+    @GetMapping("/patrons/{id}/borrowing-records")
+    public ResponseEntity<List<LoanHistoryEntry>> getPatronBorrowingHistory(@PathVariable Long id) {
+        return ResponseEntity.ok(libraryService.getBorrowingHistoryForPatron(id));
+    }
+
+    @Operation(summary = "Retrieve the borrowing history of a book, including archived loans")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Borrowing history retrieved successfully"),
+            @ApiResponse(responseCode = "404", description = "Book not found")
+    })
+    @GetMapping("/books/{id}/borrowing-records")
+    public ResponseEntity<List<LoanHistoryEntry>> getBookBorrowingHistory(@PathVariable Long id) {
+        return ResponseEntity.ok(libraryService.getBorrowingHistoryForBook(id));
+    }
+
     @Operation(summary = "Allow a patron to borrow a book")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "201", description = "Book borrowed successfully"),
             @ApiResponse(responseCode = "400", description = "Bad request"),
-            @ApiResponse(responseCode = "404", description = "Book or patron not found")
+            @ApiResponse(responseCode = "404", description = "Book or patron not found"),
+            @ApiResponse(responseCode = "409", description = "Patron reached the loan limit, or a request with the same Idempotency-Key is still running"),
+            @ApiResponse(responseCode = "422", description = "The Idempotency-Key was used for a different request")
     })
     @PostMapping("/borrow/{bookId}/patron/{patronId}")
-    public ResponseEntity<Void> borrowBook(@PathVariable Long bookId, @PathVariable Long patronId) {
-        libraryService.borrowBook(bookId, patronId);
-        return ResponseEntity.status(HttpStatus.CREATED).build();
+    public ResponseEntity<?> borrowBook(@PathVariable Long bookId, @PathVariable Long patronId,
+                                        @RequestHeader(value = IdempotencyService.IDEMPOTENCY_KEY_HEADER, required = false) String idempotencyKey) {
+        return idempotencyService.execute(idempotencyKey, "POST /api/borrow/" + bookId + "/patron/" + patronId, () -> {
+            libraryService.borrowBook(bookId, patronId);
+            return ResponseEntity.status(HttpStatus.CREATED).build();
+        });
     }
 
     @Operation(summary = "Record the return of a borrowed book by a patron")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Book returned successfully"),
             @ApiResponse(responseCode = "400", description = "Bad request"),
-            @ApiResponse(responseCode = "404", description = "Book or patron not found")
+            @ApiResponse(responseCode = "404", description = "Book or patron not found"),
+            @ApiResponse(responseCode = "409", description = "A request with the same Idempotency-Key is still running"),
+            @ApiResponse(responseCode = "422", description = "The Idempotency-Key was used for a different request")
     })
     @PutMapping("/return/{bookId}/patron/{patronId}")
-    public ResponseEntity<Void> returnBook(@PathVariable Long bookId, @PathVariable Long patronId) {
-        libraryService.returnBook(bookId, patronId);
-        return ResponseEntity.ok().build();
+    public ResponseEntity<?> returnBook(@PathVariable Long bookId, @PathVariable Long patronId,
+                                        @RequestHeader(value = IdempotencyService.IDEMPOTENCY_KEY_HEADER, required = false) String idempotencyKey) {
+        return idempotencyService.execute(idempotencyKey, "PUT /api/return/" + bookId + "/patron/" + patronId, () -> {
+            libraryService.returnBook(bookId, patronId);
+            return ResponseEntity.ok().build();
+        });
+    }
+
+    /**
+     * Sparse fieldsets and multi-get are not combined with catalog browsing; the request is
+     * rejected rather than answered without its filters.
+     */
+    private static void rejectBrowseParameters(Map<String, String> parameters) {
+        if (!Collections.disjoint(parameters.keySet(), BROWSE_PARAMETERS)) {
+            throw InvalidFieldsException.builder()
+                    .message("fields and ids cannot be combined with " + String.join(", ", BROWSE_PARAMETERS.stream().sorted().toList()))
+                    .build();
+        }
     }
 
     @ExceptionHandler(BookNotFoundException.class)
@@ -181,4 +400,14 @@ public class LibraryController {
     public ResponseEntity<Object> handlePatronNotFoundException(PatronNotFoundException ex) {
         return ResponseEntity.notFound().build();
     }
+
+    @ExceptionHandler(InvalidFieldsException.class)
+    public ResponseEntity<Object> handleInvalidFieldsException(InvalidFieldsException ex) {
+        return ResponseEntity.badRequest().body(ex.getMessage());
+    }
+
+    @ExceptionHandler(LoanLimitExceededException.class)
+    public ResponseEntity<Object> handleLoanLimitExceededException(LoanLimitExceededException ex) {
+        return ResponseEntity.status(HttpStatus.CONFLICT).body(ex.getMessage());
+    }
 }
@@ -0,0 +1,32 @@
+package maids.library.demo.controller;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import maids.library.demo.model.dto.NotificationDispatchResult;
+import maids.library.demo.service.NotificationDispatcher;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping("/api/notifications")
+public class NotificationController {
+    @Autowired
+    private final NotificationDispatcher notificationDispatcher;
+
+    public NotificationController(NotificationDispatcher notificationDispatcher) {
+        this.notificationDispatcher = notificationDispatcher;
+    }
+
+    @Operation(summary = "Send the due notifications now instead of waiting for the next dispatcher run")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Due notifications dispatched")
+    })
+    @PostMapping("/dispatch")
+    public ResponseEntity<NotificationDispatchResult> dispatch() {
+        return ResponseEntity.ok(notificationDispatcher.dispatch());
+    }
+}
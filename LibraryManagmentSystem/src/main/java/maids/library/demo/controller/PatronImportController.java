@@ -0,0 +1,82 @@
+package maids.library.demo.controller;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import maids.library.demo.exception.ImportJobNotFoundException;
+import maids.library.demo.model.dto.PatronImportStatus;
+import maids.library.demo.service.PatronImportJob;
+import maids.library.demo.service.PatronImportService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.io.InputStream;
+import java.net.URI;
+
+@RestController
+@RequestMapping("/api")
+public class PatronImportController {
+    private static final String TEXT_CSV_VALUE = "text/csv";
+
+    @Autowired
+    private final PatronImportService patronImportService;
+
+    public PatronImportController(PatronImportService patronImportService) {
+        this.patronImportService = patronImportService;
+    }
+
+    @Operation(summary = "Import patrons from a CSV request body with the columns name and contactInformation",
+            description = "The body is parsed while it is uploaded; rows are saved in the background. "
+                    + "Follow the Location header to track the job.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "202", description = "Upload read; the import job is running or finished")
+    })
+    @PostMapping(value = "/patrons/import", consumes = TEXT_CSV_VALUE)
+    public ResponseEntity<PatronImportStatus> importPatrons(InputStream body) {
+        PatronImportJob job = patronImportService.importCsv(body);
+        return ResponseEntity.accepted()
+                .location(URI.create(statusPath(job.getId())))
+                .body(job.toStatus(statusPath(job.getId()) + "/errors"));
+    }
+
+    @Operation(summary = "Retrieve the progress of a patron import")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Import job retrieved successfully"),
+            @ApiResponse(responseCode = "404", description = "Import job not found")
+    })
+    @GetMapping("/patrons/import/{jobId}")
+    public ResponseEntity<PatronImportStatus> getImportStatus(@PathVariable String jobId) {
+        PatronImportJob job = patronImportService.getJob(jobId);
+        return ResponseEntity.ok(job.toStatus(statusPath(jobId) + "/errors"));
+    }
+
+    @Operation(summary = "Download the rejected rows of a patron import as CSV")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Error report retrieved successfully"),
+            @ApiResponse(responseCode = "404", description = "Import job not found")
+    })
+    @GetMapping(value = "/patrons/import/{jobId}/errors", produces = TEXT_CSV_VALUE)
+    public ResponseEntity<String> getImportErrors(@PathVariable String jobId) {
+        return ResponseEntity.ok()
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"import-" + jobId + "-errors.csv\"")
+                .contentType(MediaType.parseMediaType(TEXT_CSV_VALUE))
+                .body(patronImportService.getErrorReport(jobId));
+    }
+
+    @ExceptionHandler(ImportJobNotFoundException.class)
+    public ResponseEntity<Object> handleImportJobNotFoundException(ImportJobNotFoundException ex) {
+        return ResponseEntity.notFound().build();
+    }
+
+    private static String statusPath(String jobId) {
+        return "/api/patrons/import/" + jobId;
+    }
+}
@@ -0,0 +1,78 @@
+package maids.library.demo.controller;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import maids.library.demo.exception.CorruptSnapshotException;
+import maids.library.demo.exception.SnapshotNotFoundException;
+import maids.library.demo.exception.SnapshotRestoreException;
+import maids.library.demo.model.dto.SnapshotFile;
+import maids.library.demo.model.dto.SnapshotStats;
+import maids.library.demo.service.SnapshotService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/admin/snapshots")
+public class SnapshotController {
+    @Autowired
+    private final SnapshotService snapshotService;
+
+    public SnapshotController(SnapshotService snapshotService) {
+        this.snapshotService = snapshotService;
+    }
+
+    @Operation(summary = "List the snapshot files in the snapshot directory, newest first")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Snapshots listed successfully")
+    })
+    @GetMapping
+    public ResponseEntity<List<SnapshotFile>> listSnapshots() {
+        return ResponseEntity.ok(snapshotService.listSnapshots());
+    }
+
+    @Operation(summary = "Write a consistent snapshot of books, patrons and borrowing records")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "201", description = "Snapshot written; the body reports sizes and throughput")
+    })
+    @PostMapping
+    public ResponseEntity<SnapshotStats> exportSnapshot() {
+        return ResponseEntity.status(HttpStatus.CREATED).body(snapshotService.export());
+    }
+
+    @Operation(summary = "Load a snapshot into empty tables")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Snapshot restored; the body reports sizes and throughput"),
+            @ApiResponse(responseCode = "404", description = "Snapshot not found"),
+            @ApiResponse(responseCode = "409", description = "The tables are not empty"),
+            @ApiResponse(responseCode = "422", description = "The snapshot is damaged")
+    })
+    @PostMapping("/{name}/restore")
+    public ResponseEntity<SnapshotStats> restoreSnapshot(@PathVariable String name) {
+        return ResponseEntity.ok(snapshotService.restore(name));
+    }
+
+    @ExceptionHandler(SnapshotNotFoundException.class)
+    public ResponseEntity<Object> handleSnapshotNotFoundException(SnapshotNotFoundException ex) {
+        return ResponseEntity.notFound().build();
+    }
+
+    @ExceptionHandler(SnapshotRestoreException.class)
+    public ResponseEntity<Object> handleSnapshotRestoreException(SnapshotRestoreException ex) {
+        return ResponseEntity.status(HttpStatus.CONFLICT).body(ex.getMessage());
+    }
+
+    @ExceptionHandler(CorruptSnapshotException.class)
+    public ResponseEntity<Object> handleCorruptSnapshotException(CorruptSnapshotException ex) {
+        return ResponseEntity.status(HttpStatus.UNPROCESSABLE_ENTITY).body(ex.getMessage());
+    }
+}
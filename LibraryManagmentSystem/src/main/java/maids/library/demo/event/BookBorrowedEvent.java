@@ -0,0 +1,7 @@
+package maids.library.demo.event;
+
+import java.time.LocalDate;
+
+public record BookBorrowedEvent(Long borrowingRecordId, Long bookId, Long patronId,
+                                LocalDate borrowingDate, String author, LocalDate patronMemberSince) {
+}
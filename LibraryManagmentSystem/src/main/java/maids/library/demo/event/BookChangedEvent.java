@@ -0,0 +1,4 @@
+package maids.library.demo.event;
+
+public record BookChangedEvent(ChangeType type, Long bookId, String title, String author) {
+}
@@ -0,0 +1,8 @@
+package maids.library.demo.event;
+
+import java.time.LocalDate;
+
+public record BookReturnedEvent(Long borrowingRecordId, Long bookId, Long patronId,
+                                LocalDate borrowingDate, LocalDate returnDate, String author,
+                                LocalDate patronMemberSince) {
+}
@@ -0,0 +1,7 @@
+package maids.library.demo.event;
+
+public enum ChangeType {
+    CREATED,
+    UPDATED,
+    DELETED
+}
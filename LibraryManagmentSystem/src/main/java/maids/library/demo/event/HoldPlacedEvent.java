@@ -0,0 +1,4 @@
+package maids.library.demo.event;
+
+public record HoldPlacedEvent(Long holdId, Long bookId, Long patronId) {
+}
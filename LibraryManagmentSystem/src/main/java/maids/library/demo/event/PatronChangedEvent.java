@@ -0,0 +1,4 @@
+package maids.library.demo.event;
+
+public record PatronChangedEvent(ChangeType type, Long patronId) {
+}
@@ -0,0 +1,8 @@
+package maids.library.demo.event;
+
+/**
+ * Published after a snapshot was loaded with plain JDBC inserts, which bypass the entity
+ * listeners and change events; in-memory indexes have to be rebuilt from the tables.
+ */
+public record SnapshotRestoredEvent(String snapshotName) {
+}
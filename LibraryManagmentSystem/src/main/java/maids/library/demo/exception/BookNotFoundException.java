@@ -8,7 +8,8 @@ public class BookNotFoundException extends RuntimeException {
 
     @Builder
     public BookNotFoundException(String message) {
-        super(message);
+        // Thrown for every lookup of an unknown id, so skip the stack trace nobody reads.
+        super(message, null, false, false);
         this.message = message;
     }
 
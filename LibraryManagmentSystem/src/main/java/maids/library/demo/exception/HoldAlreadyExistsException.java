@@ -0,0 +1,18 @@
+package maids.library.demo.exception;
+
+import lombok.Builder;
+
+public class HoldAlreadyExistsException extends RuntimeException {
+    private final String message;
+
+    @Builder
+    public HoldAlreadyExistsException(String message) {
+        super(message);
+        this.message = message;
+    }
+
+    @Override
+    public String getMessage() {
+        return message;
+    }
+}
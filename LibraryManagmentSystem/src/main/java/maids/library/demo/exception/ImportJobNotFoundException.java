@@ -0,0 +1,18 @@
+package maids.library.demo.exception;
+
+import lombok.Builder;
+
+public class ImportJobNotFoundException extends RuntimeException {
+    private final String message;
+
+    @Builder
+    public ImportJobNotFoundException(String message) {
+        super(message);
+        this.message = message;
+    }
+
+    @Override
+    public String getMessage() {
+        return message;
+    }
+}
@@ -0,0 +1,18 @@
+package maids.library.demo.exception;
+
+import lombok.Builder;
+
+public class InvalidFieldsException extends RuntimeException {
+    private final String message;
+
+    @Builder
+    public InvalidFieldsException(String message) {
+        super(message);
+        this.message = message;
+    }
+
+    @Override
+    public String getMessage() {
+        return message;
+    }
+}
@@ -8,7 +8,8 @@ public class PatronNotFoundException extends RuntimeException {
 
     @Builder
     public PatronNotFoundException(String message) {
-        super(message);
+        // Thrown for every lookup of an unknown id, so skip the stack trace nobody reads.
+        super(message, null, false, false);
         this.message = message;
     }
 
@@ -0,0 +1,26 @@
+package maids.library.demo.model.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Selects books for a bulk operation. All given criteria must match; a filter without any
+ * criterion is rejected so a bulk operation never touches the whole catalog by accident.
+ */
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+@Data
+public class BookFilter {
+    private List<Long> ids;
+    private String author;
+    private Integer publicationYear;
+
+    public boolean hasCriteria() {
+        return (ids != null && !ids.isEmpty()) || author != null || publicationYear != null;
+    }
+}
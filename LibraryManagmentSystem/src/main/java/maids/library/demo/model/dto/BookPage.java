@@ -0,0 +1,23 @@
+package maids.library.demo.model.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import maids.library.demo.model.entity.Book;
+
+import java.util.List;
+
+/**
+ * One keyset page of books; the next page starts after the given year and id, which are null
+ * on the last page.
+ */
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+@Data
+public class BookPage {
+    private List<Book> books;
+    private Integer nextAfterYear;
+    private Long nextAfterId;
+}
@@ -0,0 +1,32 @@
+package maids.library.demo.model.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Pattern;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Sets the author and/or the publication year of every book the filter selects. Fields left
+ * null are not changed.
+ */
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+@Data
+public class BulkBookUpdateRequest {
+    @NotNull
+    @Valid
+    private BookFilter filter;
+
+    @Pattern(regexp = ".*\\S.*", message = "Author must not be blank")
+    private String author;
+
+    @Min(-9999)
+    @Max(9999)
+    private Integer publicationYear;
+}
@@ -0,0 +1,21 @@
+package maids.library.demo.model.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+@Data
+public class BulkOperationResult {
+    private long matched;
+    private long affected;
+    /**
+     * Books left untouched because loans or holds still refer to them.
+     */
+    private List<Long> skippedIds;
+}
@@ -0,0 +1,21 @@
+package maids.library.demo.model.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import maids.library.demo.model.entity.Book;
+
+import java.util.List;
+
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+@Data
+public class CatalogSearchResult {
+    private List<Book> books;
+    /**
+     * Branches that failed or did not answer in time; their books are missing from the result.
+     */
+    private List<String> unavailableBranches;
+}
@@ -0,0 +1,36 @@
+package maids.library.demo.model.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+@Data
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class ChangeNotification {
+    public enum Entity {
+        BOOK,
+        PATRON,
+        LOAN
+    }
+
+    public enum Type {
+        CREATED,
+        UPDATED,
+        DELETED,
+        BORROWED,
+        RETURNED
+    }
+
+    private long sequence;
+    private String branch;
+    private Entity entity;
+    private Type type;
+    private Long id;
+    private Long bookId;
+    private Long patronId;
+}
@@ -0,0 +1,20 @@
+package maids.library.demo.model.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+@Data
+public class FineRunResult {
+    private LocalDate asOf;
+    private long openLoans;
+    private long fined;
+    private int batches;
+    private long millis;
+}
@@ -0,0 +1,19 @@
+package maids.library.demo.model.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import maids.library.demo.model.entity.Fine;
+
+import java.util.List;
+
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+@Data
+public class FineSummary {
+    private Long patronId;
+    private long totalCents;
+    private List<Fine> fines;
+}
@@ -0,0 +1,22 @@
+package maids.library.demo.model.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import maids.library.demo.model.entity.HoldStatus;
+
+import java.time.LocalDateTime;
+
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+@Data
+public class HoldResponse {
+    private Long holdId;
+    private Long bookId;
+    private Long patronId;
+    private HoldStatus status;
+    private LocalDateTime createdAt;
+    private int position;
+}
@@ -0,0 +1,19 @@
+package maids.library.demo.model.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+@Data
+public class LoanDurationStats {
+    private LocalDate from;
+    private LocalDate to;
+    private long returns;
+    private Double averageLoanDays;
+}
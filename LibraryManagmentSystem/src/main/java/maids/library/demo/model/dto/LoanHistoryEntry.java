@@ -0,0 +1,21 @@
+package maids.library.demo.model.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+@Data
+public class LoanHistoryEntry {
+    private Long borrowingRecordId;
+    private Long bookId;
+    private Long patronId;
+    private LocalDate borrowingDate;
+    private LocalDate returnDate;
+    private boolean archived;
+}
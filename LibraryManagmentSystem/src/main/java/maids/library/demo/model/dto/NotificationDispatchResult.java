@@ -0,0 +1,19 @@
+package maids.library.demo.model.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+@Data
+public class NotificationDispatchResult {
+    private int claimed;
+    private int sent;
+    private int retried;
+    private int failed;
+    private int batches;
+    private long millis;
+}
@@ -0,0 +1,20 @@
+package maids.library.demo.model.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+@Data
+public class RollupBackfillResult {
+    private LocalDate from;
+    private LocalDate to;
+    private int partitions;
+    private int rows;
+    private long millis;
+}
@@ -0,0 +1,18 @@
+package maids.library.demo.model.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+@Data
+public class SnapshotFile {
+    private String name;
+    private long bytes;
+    private Instant lastModified;
+}
@@ -0,0 +1,23 @@
+package maids.library.demo.model.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Map;
+
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+@Data
+public class SnapshotStats {
+    private String name;
+    private Map<String, Long> rows;
+    private int chunks;
+    private long rawBytes;
+    private long compressedBytes;
+    private long millis;
+    private double rowsPerSecond;
+    private double megabytesPerSecond;
+}
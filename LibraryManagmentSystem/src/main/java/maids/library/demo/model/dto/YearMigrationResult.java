@@ -0,0 +1,18 @@
+package maids.library.demo.model.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+@Data
+public class YearMigrationResult {
+    private long scanned;
+    private long converted;
+    private long unparseable;
+    private int batches;
+    private long millis;
+}
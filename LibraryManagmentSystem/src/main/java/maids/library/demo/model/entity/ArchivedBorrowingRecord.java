@@ -0,0 +1,50 @@
+package maids.library.demo.model.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import java.time.LocalDate;
+
+/**
+ * A returned loan moved out of the borrowing record table by the archiver. Book and patron are
+ * kept as plain ids so archived history survives catalog changes and costs no joins.
+ */
+@Entity
+@Table(name = "borrowing_record_archive", indexes = {
+        @Index(name = "idx_archive_patron", columnList = "patronId"),
+        @Index(name = "idx_archive_book", columnList = "bookId"),
+        @Index(name = "idx_archive_borrowing_date", columnList = "borrowingDate"),
+        @Index(name = "idx_archive_return_date", columnList = "returnDate")
+})
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+@Data
+public class ArchivedBorrowingRecord {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false, unique = true)
+    private Long originalRecordId;
+
+    @Column(nullable = false)
+    private Long bookId;
+
+    @Column(nullable = false)
+    private Long patronId;
+
+    private LocalDate borrowingDate;
+    private LocalDate returnDate;
+    private LocalDate archivedOn;
+
+}
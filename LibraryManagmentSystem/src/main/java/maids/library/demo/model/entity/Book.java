@@ -1,16 +1,38 @@
 package maids.library.demo.model.entity;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
 import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import maids.library.demo.branch.BranchContext;
+import maids.library.demo.service.KnownIdListener;
 
-import javax.persistence.Entity;
-import javax.persistence.GeneratedValue;
-import javax.persistence.GenerationType;
-import javax.persistence.Id;
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EntityListeners;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.PrePersist;
+import jakarta.persistence.PreUpdate;
+import jakarta.persistence.Table;
 
+/**
+ * The year ranges of catalog browsing are served by the year indexes, which end in the id so
+ * keyset pages continue in index order.
+ */
 @Entity
+@Table(indexes = {
+        @Index(name = "idx_book_author_year", columnList = "author, published_year, id"),
+        @Index(name = "idx_book_year", columnList = "published_year, id")
+})
+@EntityListeners(KnownIdListener.class)
 @Builder
 @AllArgsConstructor
 @NoArgsConstructor
@@ -26,10 +48,42 @@ public class Book {
         @NotBlank
         private String author;
 
-        @NotBlank
-        private String publicationYear;
+        @NotNull
+        @Min(-9999)
+        @Max(9999)
+        @Column(name = "published_year")
+        private Integer publicationYear;
 
         @NotBlank
         private String isbn;
 
+        /**
+         * Branch whose database holds the row; set from the current branch when it is inserted.
+         */
+        @Column(nullable = false, updatable = false, length = 64)
+        @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+        private String branch;
+
+        /**
+         * The former text column of the year. It is still written so instances running the
+         * previous version keep working, and {@code PublicationYearMigration} reads it to fill in
+         * rows written before the year was numeric.
+         */
+        @Column(name = "publication_year")
+        @JsonIgnore
+        private String legacyPublicationYear;
+
+        @PrePersist
+        void assignBranch() {
+                if (branch == null) {
+                        branch = BranchContext.current();
+                }
+                copyPublicationYear();
+        }
+
+        @PreUpdate
+        void copyPublicationYear() {
+                legacyPublicationYear = publicationYear != null ? publicationYear.toString() : null;
+        }
+
 }
\ No newline at end of file
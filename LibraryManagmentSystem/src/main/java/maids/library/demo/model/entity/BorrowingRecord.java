@@ -1,19 +1,34 @@
 package maids.library.demo.model.entity;
 
+import com.fasterxml.jackson.annotation.JsonProperty;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import maids.library.demo.branch.BranchContext;
 
-import javax.persistence.Entity;
-import javax.persistence.GeneratedValue;
-import javax.persistence.GenerationType;
-import javax.persistence.Id;
-import javax.persistence.JoinColumn;
-import javax.persistence.ManyToOne;
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.FetchType;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.PrePersist;
+import jakarta.persistence.JoinColumn;
+import jakarta.persistence.ManyToOne;
+import jakarta.persistence.Table;
 import java.time.LocalDate;
 
+/**
+ * The return date index lets the archiver find returned loans without walking the open ones;
+ * both date indexes let the rollup backfill read one date range at a time.
+ */
 @Entity
+@Table(indexes = {
+        @Index(name = "idx_record_return_date", columnList = "return_date"),
+        @Index(name = "idx_record_borrowing_date", columnList = "borrowing_date")
+})
 @Builder
 @AllArgsConstructor
 @NoArgsConstructor
@@ -23,16 +38,30 @@ public class BorrowingRecord {
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
 
-    @ManyToOne
-    @JoinColumn(name = "id", referencedColumnName = "id", nullable = false)
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "book_id", referencedColumnName = "id", nullable = false)
     private Book book;
 
-    @ManyToOne
-    @JoinColumn(name = "id", referencedColumnName = "id", nullable = false)
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "patron_id", referencedColumnName = "id", nullable = false)
     private Patron patron;
 
     private LocalDate borrowingDate;
     private LocalDate returnDate;
 
+    /**
+     * Branch whose database holds the row; set from the current branch when it is inserted.
+     */
+    @Column(nullable = false, updatable = false, length = 64)
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    private String branch;
+
+    @PrePersist
+    void assignBranch() {
+        if (branch == null) {
+            branch = BranchContext.current();
+        }
+    }
+
 }
 
@@ -0,0 +1,50 @@
+package maids.library.demo.model.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import java.time.LocalDate;
+
+/**
+ * The fine of one late loan. Rows are written in batches by the fines engine, so it refers to the
+ * loan, book and patron by id only; the loan may since have been archived.
+ */
+@Entity
+@Table(indexes = @Index(name = "idx_fine_patron", columnList = "patron_id"))
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+@Data
+public class Fine {
+    @Id
+    private Long borrowingRecordId;
+
+    @Column(nullable = false)
+    private Long patronId;
+
+    @Column(nullable = false)
+    private Long bookId;
+
+    @Column(nullable = false)
+    private LocalDate dueDate;
+
+    private int daysOverdue;
+    private long amountCents;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 16)
+    private FineStatus status;
+
+    @Column(nullable = false)
+    private LocalDate assessedOn;
+
+}
@@ -0,0 +1,12 @@
+package maids.library.demo.model.entity;
+
+public enum FineStatus {
+    /**
+     * The loan is still open and the fine grows with every assessment.
+     */
+    ACCRUING,
+    /**
+     * The book was returned; the amount is final.
+     */
+    SETTLED
+}
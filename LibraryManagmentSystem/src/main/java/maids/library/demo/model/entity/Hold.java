@@ -0,0 +1,49 @@
+package maids.library.demo.model.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.FetchType;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.JoinColumn;
+import jakarta.persistence.ManyToOne;
+import jakarta.persistence.Table;
+import java.time.LocalDateTime;
+
+/**
+ * A patron waiting for a book. Holds on the same book are served in id order.
+ */
+@Entity
+@Table(name = "book_hold", indexes = @Index(name = "idx_hold_book_status", columnList = "book_id, status"))
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+@Data
+public class Hold {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "book_id", nullable = false)
+    private Book book;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "patron_id", nullable = false)
+    private Patron patron;
+
+    @Enumerated(EnumType.STRING)
+    private HoldStatus status;
+
+    private LocalDateTime createdAt;
+    private LocalDateTime fulfilledAt;
+
+}
@@ -0,0 +1,7 @@
+package maids.library.demo.model.entity;
+
+public enum HoldStatus {
+    WAITING,
+    FULFILLED,
+    CANCELLED
+}
@@ -0,0 +1,40 @@
+package maids.library.demo.model.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Lob;
+import jakarta.persistence.Table;
+import java.time.Instant;
+
+@Entity
+@Table(name = "idempotency_record", indexes = @Index(name = "idx_idempotency_expires_at", columnList = "expiresAt"))
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+@Data
+public class IdempotencyRecord {
+    @Id
+    @Column(name = "idempotency_key", length = 255)
+    private String key;
+
+    @Column(nullable = false)
+    private String fingerprint;
+
+    private boolean completed;
+
+    private int responseStatus;
+
+    @Lob
+    private String responseBody;
+
+    @Column(nullable = false)
+    private Instant expiresAt;
+
+}
@@ -0,0 +1,29 @@
+package maids.library.demo.model.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import jakarta.persistence.EmbeddedId;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Table;
+
+/**
+ * Loans started and ended on one day for one author and one patron cohort. Loans are counted on
+ * their borrowing day, returns and their loan days on the return day.
+ */
+@Entity
+@Table(name = "loan_daily_rollup")
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+@Data
+public class LoanDailyRollup {
+    @EmbeddedId
+    private LoanRollupKey key;
+
+    private long loanCount;
+    private long returnCount;
+    private long loanDays;
+}
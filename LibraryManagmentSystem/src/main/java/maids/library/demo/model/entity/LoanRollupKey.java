@@ -0,0 +1,25 @@
+package maids.library.demo.model.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Embeddable;
+import java.io.Serializable;
+import java.time.LocalDate;
+
+@Embeddable
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+@Data
+public class LoanRollupKey implements Serializable {
+    @Column(name = "rollup_day")
+    private LocalDate day;
+
+    private String author;
+
+    private String cohort;
+}
@@ -0,0 +1,14 @@
+package maids.library.demo.model.entity;
+
+public enum NotificationStatus {
+    PENDING,
+    SENT,
+    /**
+     * Given up on after the last attempt, or undeliverable.
+     */
+    FAILED,
+    /**
+     * No longer relevant, such as a due-date reminder of a loan that was returned.
+     */
+    CANCELLED
+}
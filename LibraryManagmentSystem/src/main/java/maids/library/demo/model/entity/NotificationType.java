@@ -0,0 +1,16 @@
+package maids.library.demo.model.entity;
+
+public enum NotificationType {
+    /**
+     * The loan is due in a few days.
+     */
+    DUE_SOON,
+    /**
+     * The loan is past its due date.
+     */
+    OVERDUE,
+    /**
+     * A returned copy was checked out to the patron's hold.
+     */
+    HOLD_READY
+}
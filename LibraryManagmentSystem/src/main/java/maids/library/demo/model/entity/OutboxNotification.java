@@ -0,0 +1,77 @@
+package maids.library.demo.model.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * A patron notification waiting in the outbox. Rows are written in the transaction of the loan
+ * change that causes them and delivered later by the dispatcher, which leases them while it sends.
+ */
+@Entity
+@Table(name = "notification_outbox", indexes = {
+        @Index(name = "idx_outbox_status_not_before", columnList = "status, not_before"),
+        @Index(name = "idx_outbox_loan", columnList = "borrowing_record_id")
+})
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+@Data
+public class OutboxNotification {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 16)
+    private NotificationType type;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 16)
+    private NotificationStatus status;
+
+    private Long borrowingRecordId;
+
+    @Column(nullable = false)
+    private Long patronId;
+
+    @Column(nullable = false)
+    private Long bookId;
+
+    private LocalDate dueDate;
+
+    /**
+     * Not sent before this time; pushed back after every failed attempt.
+     */
+    @Column(nullable = false)
+    private LocalDateTime notBefore;
+
+    private int attempts;
+
+    @Column(length = 36)
+    private String leaseOwner;
+
+    private LocalDateTime leasedUntil;
+
+    @Column(length = 512)
+    private String lastError;
+
+    @Column(nullable = false)
+    private LocalDateTime createdAt;
+
+    private LocalDateTime sentAt;
+
+}
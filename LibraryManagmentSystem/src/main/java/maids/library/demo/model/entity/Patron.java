@@ -1,17 +1,26 @@
 package maids.library.demo.model.entity;
 
+import com.fasterxml.jackson.annotation.JsonProperty;
 import jakarta.validation.constraints.NotBlank;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import maids.library.demo.branch.BranchContext;
+import maids.library.demo.service.KnownIdListener;
+import org.hibernate.annotations.CreationTimestamp;
 
-import javax.persistence.Entity;
-import javax.persistence.GeneratedValue;
-import javax.persistence.GenerationType;
-import javax.persistence.Id;
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EntityListeners;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.PrePersist;
+import java.time.LocalDate;
 
 @Entity
+@EntityListeners(KnownIdListener.class)
 @Builder
 @AllArgsConstructor
 @NoArgsConstructor
@@ -27,4 +36,35 @@ public class Patron {
     @NotBlank(message = "Name is required")
     private String contactInformation;
 
+    /**
+     * Loans not yet returned. Maintained by conditional updates on borrow and return, and
+     * repaired by the nightly reconciliation; never written back from the entity, so saving a
+     * patron cannot overwrite a concurrent change.
+     */
+    @Column(nullable = false, updatable = false)
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    private int activeLoans;
+
+    /**
+     * Day the patron was registered; patrons are grouped into monthly cohorts by it.
+     */
+    @CreationTimestamp
+    @Column(updatable = false)
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    private LocalDate memberSince;
+
+    /**
+     * Branch whose database holds the row; set from the current branch when it is inserted.
+     */
+    @Column(nullable = false, updatable = false, length = 64)
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    private String branch;
+
+    @PrePersist
+    void assignBranch() {
+        if (branch == null) {
+            branch = BranchContext.current();
+        }
+    }
+
 }
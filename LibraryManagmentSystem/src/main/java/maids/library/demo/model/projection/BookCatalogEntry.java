@@ -0,0 +1,9 @@
+package maids.library.demo.model.projection;
+
+public interface BookCatalogEntry {
+    Long getId();
+
+    String getTitle();
+
+    String getAuthor();
+}
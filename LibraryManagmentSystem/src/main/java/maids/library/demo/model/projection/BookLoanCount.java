@@ -0,0 +1,7 @@
+package maids.library.demo.model.projection;
+
+public interface BookLoanCount {
+    Long getBookId();
+
+    Long getLoans();
+}
@@ -0,0 +1,11 @@
+package maids.library.demo.model.projection;
+
+import java.time.LocalDate;
+
+public interface DailyLoanCount {
+    LocalDate getDay();
+
+    Long getLoans();
+
+    Long getReturns();
+}
@@ -0,0 +1,7 @@
+package maids.library.demo.model.projection;
+
+public interface LoanDurationTotals {
+    Long getReturns();
+
+    Long getLoanDays();
+}
@@ -0,0 +1,13 @@
+package maids.library.demo.model.projection;
+
+import java.time.LocalDate;
+
+public interface LoanFact {
+    LocalDate getBorrowingDate();
+
+    LocalDate getReturnDate();
+
+    String getAuthor();
+
+    LocalDate getMemberSince();
+}
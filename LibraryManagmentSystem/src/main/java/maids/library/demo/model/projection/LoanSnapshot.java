@@ -0,0 +1,15 @@
+package maids.library.demo.model.projection;
+
+import java.time.LocalDate;
+
+public interface LoanSnapshot {
+    Long getId();
+
+    Long getBookId();
+
+    Long getPatronId();
+
+    LocalDate getBorrowingDate();
+
+    LocalDate getReturnDate();
+}
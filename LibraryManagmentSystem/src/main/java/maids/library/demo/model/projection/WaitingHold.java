@@ -0,0 +1,9 @@
+package maids.library.demo.model.projection;
+
+public interface WaitingHold {
+    Long getId();
+
+    Long getBookId();
+
+    Long getPatronId();
+}
@@ -0,0 +1,57 @@
+package maids.library.demo.repository;
+
+import maids.library.demo.model.entity.ArchivedBorrowingRecord;
+import maids.library.demo.model.projection.BookLoanCount;
+import maids.library.demo.model.projection.LoanFact;
+import maids.library.demo.model.projection.LoanPair;
+import maids.library.demo.model.projection.LoanSnapshot;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface ArchivedBorrowingRecordCrudRepository extends JpaRepository<ArchivedBorrowingRecord, Long> {
+
+    @Query("select a.originalRecordId as id, a.bookId as bookId, a.patronId as patronId, " +
+            "a.borrowingDate as borrowingDate, a.returnDate as returnDate " +
+            "from ArchivedBorrowingRecord a where a.patronId = :patronId")
+    List<LoanSnapshot> findHistoryByPatronId(@Param("patronId") Long patronId);
+
+    @Query("select a.originalRecordId as id, a.bookId as bookId, a.patronId as patronId, " +
+            "a.borrowingDate as borrowingDate, a.returnDate as returnDate " +
+            "from ArchivedBorrowingRecord a where a.bookId = :bookId")
+    List<LoanSnapshot> findHistoryByBookId(@Param("bookId") Long bookId);
+
+    @Query("select a.originalRecordId as id, a.bookId as bookId, a.patronId as patronId " +
+            "from ArchivedBorrowingRecord a " +
+            "where mod(a.patronId, :partitions) = :partition and a.originalRecordId > :afterId " +
+            "order by a.originalRecordId")
+    List<LoanPair> findLoanPairs(@Param("partitions") int partitions,
+                                 @Param("partition") int partition,
+                                 @Param("afterId") long afterId,
+                                 Pageable pageable);
+
+    @Query("select a.bookId as bookId, count(a) as loans from ArchivedBorrowingRecord a group by a.bookId")
+    List<BookLoanCount> countLoansByBook();
+
+    @Query("select min(a.borrowingDate) from ArchivedBorrowingRecord a")
+    Optional<LocalDate> findFirstBorrowingDate();
+
+    @Query("select a.borrowingDate as borrowingDate, a.returnDate as returnDate, b.author as author, " +
+            "p.memberSince as memberSince from ArchivedBorrowingRecord a " +
+            "left join Book b on b.id = a.bookId left join Patron p on p.id = a.patronId " +
+            "where a.borrowingDate >= :from and a.borrowingDate < :to")
+    List<LoanFact> findBorrowedBetween(@Param("from") LocalDate from, @Param("to") LocalDate to);
+
+    @Query("select a.borrowingDate as borrowingDate, a.returnDate as returnDate, b.author as author, " +
+            "p.memberSince as memberSince from ArchivedBorrowingRecord a " +
+            "left join Book b on b.id = a.bookId left join Patron p on p.id = a.patronId " +
+            "where a.returnDate >= :from and a.returnDate < :to")
+    List<LoanFact> findReturnedBetween(@Param("from") LocalDate from, @Param("to") LocalDate to);
+}
@@ -1,9 +1,17 @@
 package maids.library.demo.repository;
 
+import jakarta.persistence.LockModeType;
 import maids.library.demo.model.entity.Book;
+import maids.library.demo.model.projection.BookCatalogEntry;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -12,4 +20,85 @@ public interface BookCrudRepository extends JpaRepository<Book, Long> {
     Optional<Book> findByTitle(String title);
     long countByAuthor(String author);
     List<Book> findByAuthor(String author);
+
+    @Query("select b.id from Book b where b.id > :afterId order by b.id")
+    List<Long> findIdsAfter(@Param("afterId") long afterId, Pageable pageable);
+
+    @Query("select b.id as id, b.title as title, b.author as author from Book b where b.id > :afterId order by b.id")
+    List<BookCatalogEntry> findCatalogEntries(@Param("afterId") long afterId, Pageable pageable);
+
+    /**
+     * Books whose title and author contain the given text, ignoring case; a null filter matches every book.
+     */
+    @Query("select b from Book b " +
+            "where (:title is null or lower(b.title) like lower(concat('%', :title, '%'))) " +
+            "and (:author is null or lower(b.author) like lower(concat('%', :author, '%'))) order by b.title, b.id")
+    List<Book> search(@Param("title") String title, @Param("author") String author, Pageable pageable);
+
+    @Query("select b.id as id, b.title as title, b.author as author from Book b " +
+            "where b.id > :afterId and (:author is null or b.author = :author) " +
+            "and (:publicationYear is null or b.publicationYear = :publicationYear) order by b.id")
+    List<BookCatalogEntry> findCatalogEntriesMatching(@Param("author") String author,
+                                                      @Param("publicationYear") Integer publicationYear,
+                                                      @Param("afterId") long afterId,
+                                                      Pageable pageable);
+
+    @Query("select b.id as id, b.title as title, b.author as author from Book b " +
+            "where b.id in :ids and (:author is null or b.author = :author) " +
+            "and (:publicationYear is null or b.publicationYear = :publicationYear) order by b.id")
+    List<BookCatalogEntry> findCatalogEntriesMatching(@Param("ids") Collection<Long> ids,
+                                                      @Param("author") String author,
+                                                      @Param("publicationYear") Integer publicationYear);
+
+    /**
+     * Sets the author and publication year of the given books; a null value leaves the column as it is.
+     * The legacy text column of the year is kept in step, as entity updates do.
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("update Book b set b.author = coalesce(:author, b.author), " +
+            "b.publicationYear = coalesce(:publicationYear, b.publicationYear), " +
+            "b.legacyPublicationYear = coalesce(cast(:publicationYear as String), b.legacyPublicationYear) " +
+            "where b.id in :ids")
+    int updateByIdIn(@Param("ids") Collection<Long> ids,
+                     @Param("author") String author,
+                     @Param("publicationYear") Integer publicationYear);
+
+    /**
+     * The next keyset page of books published between two years, in year and id order, after the
+     * book ({@code afterYear}, {@code afterId}); with {@code afterYear} below {@code yearFrom} it
+     * is the first page. Served by a range scan of {@code idx_book_year}.
+     */
+    @Query("select b from Book b where b.publicationYear between :yearFrom and :yearTo " +
+            "and (b.publicationYear > :afterYear or (b.publicationYear = :afterYear and b.id > :afterId)) " +
+            "order by b.publicationYear, b.id")
+    List<Book> findByYearRange(@Param("yearFrom") int yearFrom,
+                               @Param("yearTo") int yearTo,
+                               @Param("afterYear") int afterYear,
+                               @Param("afterId") long afterId,
+                               Pageable pageable);
+
+    /**
+     * As {@link #findByYearRange}, restricted to one author and served by {@code idx_book_author_year}.
+     */
+    @Query("select b from Book b where b.author = :author and b.publicationYear between :yearFrom and :yearTo " +
+            "and (b.publicationYear > :afterYear or (b.publicationYear = :afterYear and b.id > :afterId)) " +
+            "order by b.publicationYear, b.id")
+    List<Book> findByAuthorAndYearRange(@Param("author") String author,
+                                        @Param("yearFrom") int yearFrom,
+                                        @Param("yearTo") int yearTo,
+                                        @Param("afterYear") int afterYear,
+                                        @Param("afterId") long afterId,
+                                        Pageable pageable);
+
+    /**
+     * Locks the given book rows until the end of the transaction, which holds off new loans and
+     * holds of these books, since inserting those has to lock the referenced book row as well.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select b.id from Book b where b.id in :ids")
+    List<Long> lockByIdIn(@Param("ids") Collection<Long> ids);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("delete from Book b where b.id in :ids")
+    int deleteByIdIn(@Param("ids") Collection<Long> ids);
 }
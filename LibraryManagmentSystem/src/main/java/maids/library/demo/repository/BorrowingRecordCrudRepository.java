@@ -2,8 +2,18 @@ package maids.library.demo.repository;
 import maids.library.demo.model.entity.Book;
 import maids.library.demo.model.entity.BorrowingRecord;
 import maids.library.demo.model.entity.Patron;
+import maids.library.demo.model.projection.BookLoanCount;
+import maids.library.demo.model.projection.LoanFact;
+import maids.library.demo.model.projection.LoanPair;
+import maids.library.demo.model.projection.LoanSnapshot;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -11,4 +21,57 @@ import java.util.Optional;
 public interface BorrowingRecordCrudRepository extends JpaRepository<BorrowingRecord, Long> {
     List<BorrowingRecord> findByPatron(Patron patron);
     Optional<BorrowingRecord> findByBookAndPatronAndReturnDateIsNull(Book book, Patron patron);
+
+    @Query("select max(r.id) from BorrowingRecord r")
+    Optional<Long> findMaxId();
+
+    @Query("select r.id as id, r.book.id as bookId, r.patron.id as patronId from BorrowingRecord r " +
+            "where mod(r.patron.id, :partitions) = :partition and r.id > :afterId and r.id <= :maxId " +
+            "order by r.id")
+    List<LoanPair> findLoanPairs(@Param("partitions") int partitions,
+                                 @Param("partition") int partition,
+                                 @Param("afterId") long afterId,
+                                 @Param("maxId") long maxId,
+                                 Pageable pageable);
+
+    @Query("select r.id as id, r.book.id as bookId, r.patron.id as patronId, " +
+            "r.borrowingDate as borrowingDate, r.returnDate as returnDate " +
+            "from BorrowingRecord r where r.patron.id = :patronId")
+    List<LoanSnapshot> findHistoryByPatronId(@Param("patronId") Long patronId);
+
+    @Query("select r.id as id, r.book.id as bookId, r.patron.id as patronId, " +
+            "r.borrowingDate as borrowingDate, r.returnDate as returnDate " +
+            "from BorrowingRecord r where r.book.id = :bookId")
+    List<LoanSnapshot> findHistoryByBookId(@Param("bookId") Long bookId);
+
+    @Query("select r.id as id, r.book.id as bookId, r.patron.id as patronId, " +
+            "r.borrowingDate as borrowingDate, r.returnDate as returnDate " +
+            "from BorrowingRecord r where r.returnDate < :cutoff order by r.id")
+    List<LoanSnapshot> findReturnedBefore(@Param("cutoff") LocalDate cutoff, Pageable pageable);
+
+    @Modifying
+    @Query("delete from BorrowingRecord r where r.id in :ids")
+    int deleteByIdIn(@Param("ids") Collection<Long> ids);
+
+    @Query("select distinct r.book.id from BorrowingRecord r where r.book.id in :bookIds")
+    List<Long> findReferencedBookIds(@Param("bookIds") Collection<Long> bookIds);
+
+    /**
+     * Loans per book up to a loan id, so a count can be combined with loans replayed above it.
+     */
+    @Query("select r.book.id as bookId, count(r) as loans from BorrowingRecord r where r.id <= :maxId group by r.book.id")
+    List<BookLoanCount> countLoansByBook(@Param("maxId") long maxId);
+
+    @Query("select min(r.borrowingDate) from BorrowingRecord r")
+    Optional<LocalDate> findFirstBorrowingDate();
+
+    @Query("select r.borrowingDate as borrowingDate, r.returnDate as returnDate, b.author as author, " +
+            "p.memberSince as memberSince from BorrowingRecord r join r.book b join r.patron p " +
+            "where r.borrowingDate >= :from and r.borrowingDate < :to")
+    List<LoanFact> findBorrowedBetween(@Param("from") LocalDate from, @Param("to") LocalDate to);
+
+    @Query("select r.borrowingDate as borrowingDate, r.returnDate as returnDate, b.author as author, " +
+            "p.memberSince as memberSince from BorrowingRecord r join r.book b join r.patron p " +
+            "where r.returnDate >= :from and r.returnDate < :to")
+    List<LoanFact> findReturnedBetween(@Param("from") LocalDate from, @Param("to") LocalDate to);
 }
@@ -0,0 +1,12 @@
+package maids.library.demo.repository;
+
+import maids.library.demo.model.entity.Fine;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface FineCrudRepository extends JpaRepository<Fine, Long> {
+    List<Fine> findByPatronIdOrderByBorrowingRecordId(Long patronId);
+}
@@ -0,0 +1,45 @@
+package maids.library.demo.repository;
+
+import maids.library.demo.model.entity.Hold;
+import maids.library.demo.model.entity.HoldStatus;
+import maids.library.demo.model.projection.WaitingHold;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface HoldCrudRepository extends JpaRepository<Hold, Long> {
+
+    boolean existsByBookIdAndPatronIdAndStatus(Long bookId, Long patronId, HoldStatus status);
+
+    @Query("select h.id as id, h.book.id as bookId, h.patron.id as patronId from Hold h " +
+            "where h.status = maids.library.demo.model.entity.HoldStatus.WAITING order by h.id")
+    List<WaitingHold> findAllWaiting();
+
+    @Query("select h.id as id, h.book.id as bookId, h.patron.id as patronId from Hold h " +
+            "where h.book.id = :bookId and h.status = maids.library.demo.model.entity.HoldStatus.WAITING order by h.id")
+    List<WaitingHold> findWaitingByBookId(@Param("bookId") Long bookId);
+
+    @Query("select distinct h.book.id from Hold h where h.book.id in :bookIds")
+    List<Long> findReferencedBookIds(@Param("bookIds") Collection<Long> bookIds);
+
+    /**
+     * Moves a hold from waiting to fulfilled; returns 0 when it is no longer waiting.
+     */
+    @Modifying
+    @Query("update Hold h set h.status = maids.library.demo.model.entity.HoldStatus.FULFILLED, h.fulfilledAt = :now " +
+            "where h.id = :id and h.status = maids.library.demo.model.entity.HoldStatus.WAITING")
+    int markFulfilled(@Param("id") Long id, @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Query("update Hold h set h.status = maids.library.demo.model.entity.HoldStatus.WAITING, h.fulfilledAt = null " +
+            "where h.id = :id and h.status = maids.library.demo.model.entity.HoldStatus.FULFILLED")
+    int markWaiting(@Param("id") Long id);
+}
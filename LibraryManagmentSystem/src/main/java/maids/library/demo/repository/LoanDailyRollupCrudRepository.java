@@ -0,0 +1,58 @@
+package maids.library.demo.repository;
+
+import maids.library.demo.model.entity.LoanDailyRollup;
+import maids.library.demo.model.entity.LoanRollupKey;
+import maids.library.demo.model.projection.AuthorLoanCount;
+import maids.library.demo.model.projection.CohortLoanCount;
+import maids.library.demo.model.projection.DailyLoanCount;
+import maids.library.demo.model.projection.LoanDurationTotals;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Repository
+public interface LoanDailyRollupCrudRepository extends JpaRepository<LoanDailyRollup, LoanRollupKey> {
+
+    /**
+     * Adds to the counters of a rollup row, creating it if needed, in one statement.
+     */
+    @Modifying
+    @Query(value = "insert into loan_daily_rollup (rollup_day, author, cohort, loan_count, return_count, loan_days) " +
+            "values (:day, :author, :cohort, :loans, :returns, :loanDays) " +
+            "on duplicate key update loan_count = loan_count + :loans, return_count = return_count + :returns, " +
+            "loan_days = loan_days + :loanDays", nativeQuery = true)
+    int increment(@Param("day") LocalDate day,
+                  @Param("author") String author,
+                  @Param("cohort") String cohort,
+                  @Param("loans") long loans,
+                  @Param("returns") long returns,
+                  @Param("loanDays") long loanDays);
+
+    @Modifying
+    @Query("delete from LoanDailyRollup r where r.key.day < :cutoff")
+    int deleteBefore(@Param("cutoff") LocalDate cutoff);
+
+    @Query("select r.key.day as day, sum(r.loanCount) as loans, sum(r.returnCount) as returns " +
+            "from LoanDailyRollup r where r.key.day between :from and :to group by r.key.day order by r.key.day")
+    List<DailyLoanCount> sumByDay(@Param("from") LocalDate from, @Param("to") LocalDate to);
+
+    @Query("select r.key.author as author, sum(r.loanCount) as loans " +
+            "from LoanDailyRollup r where r.key.day between :from and :to " +
+            "group by r.key.author having sum(r.loanCount) > 0 order by sum(r.loanCount) desc, r.key.author")
+    List<AuthorLoanCount> sumByAuthor(@Param("from") LocalDate from, @Param("to") LocalDate to, Pageable pageable);
+
+    @Query("select r.key.cohort as cohort, sum(r.loanCount) as loans " +
+            "from LoanDailyRollup r where r.key.day between :from and :to " +
+            "group by r.key.cohort having sum(r.loanCount) > 0 order by r.key.cohort")
+    List<CohortLoanCount> sumByCohort(@Param("from") LocalDate from, @Param("to") LocalDate to);
+
+    @Query("select coalesce(sum(r.returnCount), 0) as returns, coalesce(sum(r.loanDays), 0) as loanDays " +
+            "from LoanDailyRollup r where r.key.day between :from and :to")
+    LoanDurationTotals sumDurations(@Param("from") LocalDate from, @Param("to") LocalDate to);
+}
@@ -0,0 +1,12 @@
+package maids.library.demo.repository;
+
+import maids.library.demo.model.entity.OutboxNotification;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface OutboxNotificationCrudRepository extends JpaRepository<OutboxNotification, Long> {
+    List<OutboxNotification> findByPatronIdOrderById(Long patronId);
+}
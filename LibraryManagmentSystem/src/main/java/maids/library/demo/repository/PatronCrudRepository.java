@@ -1,11 +1,56 @@
 package maids.library.demo.repository;
 
+import jakarta.persistence.LockModeType;
 import maids.library.demo.model.entity.Patron;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
+import java.util.Optional;
+
 
 @Repository
 public interface PatronCrudRepository extends JpaRepository<Patron, Long> {
+
+    @Query("select max(p.id) from Patron p")
+    Optional<Long> findMaxId();
+
+    @Query("select p.id from Patron p where p.id > :afterId order by p.id")
+    List<Long> findIdsAfter(@Param("afterId") long afterId, Pageable pageable);
+
+    /**
+     * Loads a patron and locks its row until the end of the transaction, which serialises that
+     * patron's own requests without holding up anyone else's.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select p from Patron p where p.id = :id")
+    Optional<Patron> findByIdForUpdate(@Param("id") Long id);
+
+    /**
+     * Takes one loan slot if the patron is below {@code limit}; returns 0 otherwise.
+     */
+    @Modifying
+    @Query("update Patron p set p.activeLoans = p.activeLoans + 1 where p.id = :id and p.activeLoans < :limit")
+    int tryIncrementActiveLoans(@Param("id") Long id, @Param("limit") int limit);
+
+    @Modifying
+    @Query("update Patron p set p.activeLoans = p.activeLoans - 1 where p.id = :id and p.activeLoans > 0")
+    int decrementActiveLoans(@Param("id") Long id);
+
+    /**
+     * Resets the counter of every patron in the id range whose counter differs from the number of
+     * open borrowing records; returns the number of patrons repaired.
+     */
+    @Modifying
+    @Query("update Patron p set p.activeLoans = " +
+            "(select count(r) from BorrowingRecord r where r.patron.id = p.id and r.returnDate is null) " +
+            "where p.id > :afterId and p.id <= :toId and p.activeLoans <> " +
+            "(select count(r) from BorrowingRecord r where r.patron.id = p.id and r.returnDate is null)")
+    int reconcileActiveLoans(@Param("afterId") long afterId, @Param("toId") long toId);
 }
@@ -0,0 +1,60 @@
+package maids.library.demo.repository;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Tuple;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Root;
+import jakarta.persistence.criteria.Selection;
+import org.springframework.stereotype.Repository;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Reads selected attributes of an entity as rows of name to value, so the query only fetches the
+ * columns a caller asked for. Attribute names have to be checked before they get here.
+ */
+@Repository
+public class SparseFieldRepository {
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    public List<Map<String, Object>> findAll(Class<?> entityType, List<String> fields) {
+        return find(entityType, fields, null);
+    }
+
+    public List<Map<String, Object>> findAllById(Class<?> entityType, List<String> fields, Collection<Long> ids) {
+        return find(entityType, fields, ids);
+    }
+
+    private List<Map<String, Object>> find(Class<?> entityType, List<String> fields, Collection<Long> ids) {
+        CriteriaBuilder builder = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Tuple> query = builder.createTupleQuery();
+        Root<?> root = query.from(entityType);
+        List<Selection<?>> selections = new ArrayList<>(fields.size());
+        for (String field : fields) {
+            selections.add(root.get(field).alias(field));
+        }
+        query.multiselect(selections);
+        if (ids != null) {
+            query.where(root.get("id").in(ids));
+        }
+        query.orderBy(builder.asc(root.get("id")));
+
+        List<Tuple> tuples = entityManager.createQuery(query).getResultList();
+        List<Map<String, Object>> rows = new ArrayList<>(tuples.size());
+        for (Tuple tuple : tuples) {
+            Map<String, Object> row = new LinkedHashMap<>();
+            for (String field : fields) {
+                row.put(field, tuple.get(field));
+            }
+            rows.add(row);
+        }
+        return rows;
+    }
+}
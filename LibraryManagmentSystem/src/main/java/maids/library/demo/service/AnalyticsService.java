@@ -0,0 +1,64 @@
+package maids.library.demo.service;
+
+import maids.library.demo.model.dto.LoanDurationStats;
+import maids.library.demo.model.dto.RollupBackfillResult;
+import maids.library.demo.model.projection.AuthorLoanCount;
+import maids.library.demo.model.projection.CohortLoanCount;
+import maids.library.demo.model.projection.DailyLoanCount;
+import maids.library.demo.model.projection.LoanDurationTotals;
+import maids.library.demo.repository.LoanDailyRollupCrudRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Circulation reports. Every report reads the daily rollups only, never the loan tables, so its
+ * cost depends on the number of days, authors and cohorts in the range rather than on the number
+ * of loans.
+ */
+@Service
+@Transactional(readOnly = true)
+public class AnalyticsService {
+    @Autowired
+    private final LoanDailyRollupCrudRepository rollupRepository;
+    @Autowired
+    private final LoanRollupBackfill rollupBackfill;
+
+    public AnalyticsService(LoanDailyRollupCrudRepository rollupRepository, LoanRollupBackfill rollupBackfill) {
+        this.rollupRepository = rollupRepository;
+        this.rollupBackfill = rollupBackfill;
+    }
+
+    public List<DailyLoanCount> getLoansPerDay(LocalDate from, LocalDate to) {
+        return rollupRepository.sumByDay(from, to);
+    }
+
+    public List<AuthorLoanCount> getLoansPerAuthor(LocalDate from, LocalDate to, int limit) {
+        return rollupRepository.sumByAuthor(from, to, PageRequest.of(0, limit));
+    }
+
+    public List<CohortLoanCount> getLoansPerCohort(LocalDate from, LocalDate to) {
+        return rollupRepository.sumByCohort(from, to);
+    }
+
+    public LoanDurationStats getLoanDuration(LocalDate from, LocalDate to) {
+        LoanDurationTotals totals = rollupRepository.sumDurations(from, to);
+        long returns = totals.getReturns();
+        return LoanDurationStats.builder()
+                .from(from)
+                .to(to)
+                .returns(returns)
+                .averageLoanDays(returns == 0 ? null : (double) totals.getLoanDays() / returns)
+                .build();
+    }
+
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public RollupBackfillResult backfill() {
+        return rollupBackfill.backfill();
+    }
+}
@@ -0,0 +1,348 @@
+package maids.library.demo.service;
+
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import maids.library.demo.model.dto.AutocompleteSuggestion;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * Radix tree over normalized book titles and author names. Every node caches the
+ * {@code maxSuggestions} heaviest terms below it, so a lookup is a walk down the prefix plus a
+ * copy of that cache. A term's weight is the number of loans of the books carrying it.
+ * <p>
+ * Writes refresh the caches on the path from the changed node to the root only. Not thread-safe.
+ */
+public class AutocompleteIndex {
+    private static final Pattern COMBINING_MARKS = Pattern.compile("\\p{M}+");
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+    private static final Comparator<Term> BY_WEIGHT = Comparator.comparingLong((Term term) -> term.weight).reversed()
+            .thenComparing(term -> term.key)
+            .thenComparing(term -> term.type);
+
+    private final int maxSuggestions;
+    private final Node root = new Node(new char[0]);
+    private final Map<String, Term> terms = new HashMap<>();
+    private final Long2ObjectOpenHashMap<IndexedBook> books = new Long2ObjectOpenHashMap<>();
+
+    public AutocompleteIndex(int maxSuggestions) {
+        this.maxSuggestions = maxSuggestions;
+    }
+
+    /**
+     * Adds a book or replaces the title and author indexed for it; its loan count carries over.
+     */
+    public void putBook(long bookId, String title, String author) {
+        IndexedBook previous = books.remove(bookId);
+        long loans = 0;
+        if (previous != null) {
+            loans = previous.loans;
+            release(previous.title, loans);
+            release(previous.author, loans);
+        }
+        Term titleTerm = acquire(title, AutocompleteSuggestion.Type.TITLE, loans);
+        Term authorTerm = acquire(author, AutocompleteSuggestion.Type.AUTHOR, loans);
+        books.put(bookId, new IndexedBook(titleTerm, authorTerm, loans));
+    }
+
+    public void removeBook(long bookId) {
+        IndexedBook previous = books.remove(bookId);
+        if (previous != null) {
+            release(previous.title, previous.loans);
+            release(previous.author, previous.loans);
+        }
+    }
+
+    public void addLoans(long bookId, long loans) {
+        IndexedBook book = books.get(bookId);
+        if (book == null || loans == 0) {
+            return;
+        }
+        book.loans += loans;
+        reweigh(book.title, loans);
+        reweigh(book.author, loans);
+    }
+
+    public List<AutocompleteSuggestion> suggest(String prefix, int limit) {
+        Node node = find(normalize(prefix));
+        if (node == null) {
+            return List.of();
+        }
+        int size = Math.min(limit, node.top.length);
+        List<AutocompleteSuggestion> suggestions = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            Term term = node.top[i];
+            suggestions.add(AutocompleteSuggestion.builder()
+                    .text(term.text)
+                    .type(term.type)
+                    .weight(term.weight)
+                    .build());
+        }
+        return suggestions;
+    }
+
+    public int size() {
+        return books.size();
+    }
+
+    static String normalize(String text) {
+        String decomposed = Normalizer.normalize(text, Normalizer.Form.NFD);
+        String stripped = COMBINING_MARKS.matcher(decomposed).replaceAll("");
+        return WHITESPACE.matcher(stripped.toLowerCase(Locale.ROOT)).replaceAll(" ").trim();
+    }
+
+    private Term acquire(String text, AutocompleteSuggestion.Type type, long loans) {
+        if (text == null) {
+            return null;
+        }
+        String key = normalize(text);
+        if (key.isEmpty()) {
+            return null;
+        }
+        Term term = terms.get(type + ":" + key);
+        if (term == null) {
+            term = new Term(text.trim(), key, type);
+            terms.put(type + ":" + key, term);
+            List<Node> path = insertPath(key);
+            Node node = path.get(path.size() - 1);
+            node.terminals = append(node.terminals, term);
+            term.references = 1;
+            term.weight = loans;
+            refresh(path);
+            return term;
+        }
+        term.references++;
+        reweigh(term, loans);
+        return term;
+    }
+
+    private void release(Term term, long loans) {
+        if (term == null) {
+            return;
+        }
+        if (--term.references > 0) {
+            reweigh(term, -loans);
+            return;
+        }
+        terms.remove(term.type + ":" + term.key);
+        List<Node> path = lookupPath(term.key);
+        Node node = path.get(path.size() - 1);
+        node.terminals = without(node.terminals, term);
+        prune(path);
+        refresh(path);
+    }
+
+    private void reweigh(Term term, long delta) {
+        if (term == null || delta == 0) {
+            return;
+        }
+        term.weight += delta;
+        refresh(lookupPath(term.key));
+    }
+
+    private Node find(String prefix) {
+        Node node = root;
+        int position = 0;
+        while (position < prefix.length()) {
+            Node child = node.child(prefix.charAt(position));
+            if (child == null) {
+                return null;
+            }
+            int common = commonLength(child.label, prefix, position);
+            if (position + common == prefix.length()) {
+                return child;
+            }
+            if (common < child.label.length) {
+                return null;
+            }
+            position += common;
+            node = child;
+        }
+        return node;
+    }
+
+    private List<Node> lookupPath(String key) {
+        List<Node> path = new ArrayList<>();
+        Node node = root;
+        path.add(node);
+        int position = 0;
+        while (position < key.length()) {
+            node = node.child(key.charAt(position));
+            position += node.label.length;
+            path.add(node);
+        }
+        return path;
+    }
+
+    private List<Node> insertPath(String key) {
+        List<Node> path = new ArrayList<>();
+        Node node = root;
+        path.add(node);
+        int position = 0;
+        while (position < key.length()) {
+            Node child = node.child(key.charAt(position));
+            if (child == null) {
+                child = new Node(key.substring(position).toCharArray());
+                node.addChild(child);
+                path.add(child);
+                return path;
+            }
+            int common = commonLength(child.label, key, position);
+            if (common < child.label.length) {
+                Node split = new Node(Arrays.copyOf(child.label, common));
+                node.replaceChild(split);
+                child.label = Arrays.copyOfRange(child.label, common, child.label.length);
+                split.addChild(child);
+                split.top = child.top;
+                child = split;
+            }
+            position += common;
+            node = child;
+            path.add(node);
+        }
+        return path;
+    }
+
+    /**
+     * Drops nodes left without terms and folds a remaining single child into its parent so the
+     * tree stays compressed.
+     */
+    private void prune(List<Node> path) {
+        for (int i = path.size() - 1; i > 0; i--) {
+            Node node = path.get(i);
+            Node parent = path.get(i - 1);
+            if (node.terminals.length == 0 && node.children.length == 0) {
+                parent.removeChild(node);
+                path.remove(i);
+            } else if (node.terminals.length == 0 && node.children.length == 1) {
+                Node only = node.children[0];
+                char[] merged = Arrays.copyOf(node.label, node.label.length + only.label.length);
+                System.arraycopy(only.label, 0, merged, node.label.length, only.label.length);
+                node.label = merged;
+                node.children = only.children;
+                node.terminals = only.terminals;
+                node.top = only.top;
+            }
+        }
+    }
+
+    private void refresh(List<Node> path) {
+        for (int i = path.size() - 1; i >= 0; i--) {
+            Node node = path.get(i);
+            List<Term> candidates = new ArrayList<>(Arrays.asList(node.terminals));
+            for (Node child : node.children) {
+                candidates.addAll(Arrays.asList(child.top));
+            }
+            candidates.sort(BY_WEIGHT);
+            node.top = candidates.subList(0, Math.min(maxSuggestions, candidates.size())).toArray(new Term[0]);
+        }
+    }
+
+    private static int commonLength(char[] label, String key, int offset) {
+        int max = Math.min(label.length, key.length() - offset);
+        int i = 0;
+        while (i < max && label[i] == key.charAt(offset + i)) {
+            i++;
+        }
+        return i;
+    }
+
+    private static Term[] append(Term[] terms, Term term) {
+        Term[] grown = Arrays.copyOf(terms, terms.length + 1);
+        grown[terms.length] = term;
+        return grown;
+    }
+
+    private static Term[] without(Term[] terms, Term term) {
+        return Arrays.stream(terms).filter(candidate -> candidate != term).toArray(Term[]::new);
+    }
+
+    private static final class Term {
+        private final String text;
+        private final String key;
+        private final AutocompleteSuggestion.Type type;
+        private long weight;
+        private int references;
+
+        private Term(String text, String key, AutocompleteSuggestion.Type type) {
+            this.text = text;
+            this.key = key;
+            this.type = type;
+        }
+    }
+
+    private static final class IndexedBook {
+        private final Term title;
+        private final Term author;
+        private long loans;
+
+        private IndexedBook(Term title, Term author, long loans) {
+            this.title = title;
+            this.author = author;
+            this.loans = loans;
+        }
+    }
+
+    private static final class Node {
+        private static final Node[] NO_CHILDREN = new Node[0];
+        private static final Term[] NO_TERMS = new Term[0];
+
+        private char[] label;
+        private Node[] children = NO_CHILDREN;
+        private Term[] terminals = NO_TERMS;
+        private Term[] top = NO_TERMS;
+
+        private Node(char[] label) {
+            this.label = label;
+        }
+
+        private Node child(char first) {
+            int low = 0;
+            int high = children.length - 1;
+            while (low <= high) {
+                int mid = (low + high) >>> 1;
+                char candidate = children[mid].label[0];
+                if (candidate < first) {
+                    low = mid + 1;
+                } else if (candidate > first) {
+                    high = mid - 1;
+                } else {
+                    return children[mid];
+                }
+            }
+            return null;
+        }
+
+        private void addChild(Node child) {
+            int index = 0;
+            while (index < children.length && children[index].label[0] < child.label[0]) {
+                index++;
+            }
+            Node[] grown = new Node[children.length + 1];
+            System.arraycopy(children, 0, grown, 0, index);
+            grown[index] = child;
+            System.arraycopy(children, index, grown, index + 1, children.length - index);
+            children = grown;
+        }
+
+        private void replaceChild(Node replacement) {
+            for (int i = 0; i < children.length; i++) {
+                if (children[i].label[0] == replacement.label[0]) {
+                    children[i] = replacement;
+                    return;
+                }
+            }
+        }
+
+        private void removeChild(Node child) {
+            children = Arrays.stream(children).filter(candidate -> candidate != child).toArray(Node[]::new);
+        }
+    }
+}
@@ -0,0 +1,211 @@
+package maids.library.demo.service;
+
+import it.unimi.dsi.fastutil.longs.Long2LongOpenHashMap;
+import maids.library.demo.branch.BranchContext;
+import maids.library.demo.branch.Branches;
+import maids.library.demo.event.BookBorrowedEvent;
+import maids.library.demo.event.BookChangedEvent;
+import maids.library.demo.event.ChangeType;
+import maids.library.demo.event.SnapshotRestoredEvent;
+import maids.library.demo.model.dto.AutocompleteSuggestion;
+import maids.library.demo.model.projection.BookCatalogEntry;
+import maids.library.demo.model.projection.BookLoanCount;
+import maids.library.demo.repository.ArchivedBorrowingRecordCrudRepository;
+import maids.library.demo.repository.BookCrudRepository;
+import maids.library.demo.repository.BorrowingRecordCrudRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Owns the in-memory autocomplete index. It is built off-thread once the application is ready
+ * and then patched from committed catalog changes and loans. Changes arriving during the build
+ * are replayed onto the new index before it replaces the old one.
+ * <p>
+ * Every branch has its own index; all methods work on the current branch.
+ */
+@Service
+public class AutocompleteService {
+    private static final Logger log = LoggerFactory.getLogger(AutocompleteService.class);
+
+    private final BookCrudRepository bookRepository;
+    private final BorrowingRecordCrudRepository borrowingRecordRepository;
+    private final ArchivedBorrowingRecordCrudRepository archivedRecordRepository;
+    private final Branches branches;
+    private final int maxSuggestions;
+    private final int pageSize;
+    private final ConcurrentHashMap<String, BranchIndex> indexes = new ConcurrentHashMap<>();
+
+    public AutocompleteService(BookCrudRepository bookRepository,
+                               BorrowingRecordCrudRepository borrowingRecordRepository,
+                               ArchivedBorrowingRecordCrudRepository archivedRecordRepository,
+                               Branches branches,
+                               @Value("${library.autocomplete.max-suggestions:10}") int maxSuggestions,
+                               @Value("${library.autocomplete.rebuild-page-size:10000}") int pageSize) {
+        this.bookRepository = bookRepository;
+        this.borrowingRecordRepository = borrowingRecordRepository;
+        this.archivedRecordRepository = archivedRecordRepository;
+        this.branches = branches;
+        this.maxSuggestions = maxSuggestions;
+        this.pageSize = pageSize;
+    }
+
+    public int getMaxSuggestions() {
+        return maxSuggestions;
+    }
+
+    public List<AutocompleteSuggestion> suggest(String prefix, int limit) {
+        BranchIndex current = current();
+        current.lock.readLock().lock();
+        try {
+            return current.index.suggest(prefix, limit);
+        } finally {
+            current.lock.readLock().unlock();
+        }
+    }
+
+    @TransactionalEventListener
+    public void onBookChanged(BookChangedEvent event) {
+        BranchIndex current = current();
+        current.lock.writeLock().lock();
+        try {
+            apply(current.index, event);
+            if (current.rebuilding) {
+                current.pendingChanges.add(event);
+            }
+        } finally {
+            current.lock.writeLock().unlock();
+        }
+    }
+
+    @TransactionalEventListener
+    public void onBookBorrowed(BookBorrowedEvent event) {
+        BranchIndex current = current();
+        current.lock.writeLock().lock();
+        try {
+            current.index.addLoans(event.bookId(), 1);
+            if (current.rebuilding) {
+                current.pendingChanges.add(event);
+            }
+        } finally {
+            current.lock.writeLock().unlock();
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuildAllAsync() {
+        for (String branch : branches.names()) {
+            BranchContext.run(branch, this::rebuildAsync);
+        }
+    }
+
+    /**
+     * Rebuilds the index of the current branch.
+     */
+    @EventListener(SnapshotRestoredEvent.class)
+    public void rebuildAsync() {
+        String branch = BranchContext.current();
+        CompletableFuture.runAsync(BranchContext.wrap(this::rebuild))
+                .exceptionally(ex -> {
+                    log.error("Failed to build the autocomplete index of branch {}", branch, ex);
+                    return null;
+                });
+    }
+
+    public void rebuild() {
+        long startedAt = System.nanoTime();
+        BranchIndex current = current();
+        current.lock.writeLock().lock();
+        try {
+            current.rebuilding = true;
+            current.loanHorizon = borrowingRecordRepository.findMaxId().orElse(0L);
+        } finally {
+            current.lock.writeLock().unlock();
+        }
+
+        AutocompleteIndex rebuilt = new AutocompleteIndex(maxSuggestions);
+        try {
+            long afterId = 0;
+            List<BookCatalogEntry> page;
+            do {
+                page = bookRepository.findCatalogEntries(afterId, PageRequest.of(0, pageSize));
+                for (BookCatalogEntry book : page) {
+                    rebuilt.putBook(book.getId(), book.getTitle(), book.getAuthor());
+                    afterId = book.getId();
+                }
+            } while (page.size() == pageSize);
+
+            Long2LongOpenHashMap loans = new Long2LongOpenHashMap();
+            for (BookLoanCount count : archivedRecordRepository.countLoansByBook()) {
+                loans.addTo(count.getBookId(), count.getLoans());
+            }
+            for (BookLoanCount count : borrowingRecordRepository.countLoansByBook(current.loanHorizon)) {
+                loans.addTo(count.getBookId(), count.getLoans());
+            }
+            loans.long2LongEntrySet().forEach(entry -> rebuilt.addLoans(entry.getLongKey(), entry.getLongValue()));
+        } catch (RuntimeException ex) {
+            current.lock.writeLock().lock();
+            try {
+                current.rebuilding = false;
+                current.pendingChanges.clear();
+            } finally {
+                current.lock.writeLock().unlock();
+            }
+            throw ex;
+        }
+
+        current.lock.writeLock().lock();
+        try {
+            for (Object change : current.pendingChanges) {
+                if (change instanceof BookChangedEvent bookChanged) {
+                    apply(rebuilt, bookChanged);
+                } else if (change instanceof BookBorrowedEvent borrowed
+                        && borrowed.borrowingRecordId() != null && borrowed.borrowingRecordId() > current.loanHorizon) {
+                    rebuilt.addLoans(borrowed.bookId(), 1);
+                }
+            }
+            current.pendingChanges.clear();
+            current.index = rebuilt;
+            current.rebuilding = false;
+        } finally {
+            current.lock.writeLock().unlock();
+        }
+        log.info("Autocomplete index of branch {} built for {} books in {} ms",
+                BranchContext.current(), rebuilt.size(), (System.nanoTime() - startedAt) / 1_000_000);
+    }
+
+    private BranchIndex current() {
+        return indexes.computeIfAbsent(BranchContext.current(), branch -> new BranchIndex(maxSuggestions));
+    }
+
+    private static void apply(AutocompleteIndex target, BookChangedEvent event) {
+        if (event.type() == ChangeType.DELETED) {
+            target.removeBook(event.bookId());
+        } else {
+            target.putBook(event.bookId(), event.title(), event.author());
+        }
+    }
+
+    private static final class BranchIndex {
+        private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+        private final List<Object> pendingChanges = new ArrayList<>();
+        private AutocompleteIndex index;
+        private boolean rebuilding;
+        private long loanHorizon;
+
+        private BranchIndex(int maxSuggestions) {
+            this.index = new AutocompleteIndex(maxSuggestions);
+        }
+    }
+}
@@ -0,0 +1,148 @@
+package maids.library.demo.service;
+
+import maids.library.demo.event.BookChangedEvent;
+import maids.library.demo.event.ChangeType;
+import maids.library.demo.model.dto.BookFilter;
+import maids.library.demo.model.dto.BulkBookUpdateRequest;
+import maids.library.demo.model.dto.BulkOperationResult;
+import maids.library.demo.model.projection.BookCatalogEntry;
+import maids.library.demo.repository.BookCrudRepository;
+import maids.library.demo.repository.BorrowingRecordCrudRepository;
+import maids.library.demo.repository.HoldCrudRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.function.Function;
+
+/**
+ * Deletes and updates books matching a {@link BookFilter} with set-based statements instead of
+ * loading and saving one entity at a time.
+ * <p>
+ * Matching books are selected a chunk at a time, by id, and every chunk is changed by a single
+ * statement in its own transaction, so a large operation never holds locks on the whole catalog
+ * and a failure loses at most the current chunk. Change events are published per book and reach
+ * the autocomplete index and the change feed when the chunk commits.
+ */
+@Service
+public class BookBulkService {
+    private static final Logger log = LoggerFactory.getLogger(BookBulkService.class);
+
+    private final BookCrudRepository bookRepository;
+    private final BorrowingRecordCrudRepository borrowingRecordRepository;
+    private final HoldCrudRepository holdRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TransactionTemplate transactionTemplate;
+    private final int chunkSize;
+
+    public BookBulkService(BookCrudRepository bookRepository,
+                           BorrowingRecordCrudRepository borrowingRecordRepository,
+                           HoldCrudRepository holdRepository,
+                           ApplicationEventPublisher eventPublisher,
+                           PlatformTransactionManager transactionManager,
+                           @Value("${library.bulk.chunk-size:" + LibraryService.ID_CHUNK_SIZE + "}") int chunkSize) {
+        this.bookRepository = bookRepository;
+        this.borrowingRecordRepository = borrowingRecordRepository;
+        this.holdRepository = holdRepository;
+        this.eventPublisher = eventPublisher;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * Deletes the matching books. Books that borrowing records or holds still refer to are kept
+     * and reported as skipped; archived loans only keep the book id and do not block deletion.
+     * The chunk's book rows are locked before the references are checked, so a loan or hold
+     * cannot appear between the check and the delete.
+     */
+    public BulkOperationResult deleteBooks(BookFilter filter) {
+        BulkOperationResult result = forEachChunk(filter, chunk -> {
+            List<Long> ids = chunk.stream().map(BookCatalogEntry::getId).toList();
+            bookRepository.lockByIdIn(ids);
+            Set<Long> referenced = new HashSet<>(borrowingRecordRepository.findReferencedBookIds(ids));
+            referenced.addAll(holdRepository.findReferencedBookIds(ids));
+            List<Long> deletable = ids.stream().filter(id -> !referenced.contains(id)).toList();
+            if (!deletable.isEmpty()) {
+                bookRepository.deleteByIdIn(deletable);
+                for (BookCatalogEntry book : chunk) {
+                    if (!referenced.contains(book.getId())) {
+                        eventPublisher.publishEvent(new BookChangedEvent(ChangeType.DELETED, book.getId(),
+                                book.getTitle(), book.getAuthor()));
+                    }
+                }
+            }
+            return ids.stream().filter(referenced::contains).toList();
+        });
+        log.info("Bulk delete matched {} books, deleted {}, skipped {}",
+                result.getMatched(), result.getAffected(), result.getSkippedIds().size());
+        return result;
+    }
+
+    public BulkOperationResult updateBooks(BulkBookUpdateRequest request) {
+        String author = request.getAuthor() != null ? request.getAuthor().trim() : null;
+        Integer publicationYear = request.getPublicationYear();
+        BulkOperationResult result = forEachChunk(request.getFilter(), chunk -> {
+            bookRepository.updateByIdIn(chunk.stream().map(BookCatalogEntry::getId).toList(), author, publicationYear);
+            for (BookCatalogEntry book : chunk) {
+                eventPublisher.publishEvent(new BookChangedEvent(ChangeType.UPDATED, book.getId(),
+                        book.getTitle(), author != null ? author : book.getAuthor()));
+            }
+            return List.of();
+        });
+        log.info("Bulk update matched {} books, updated {}", result.getMatched(), result.getAffected());
+        return result;
+    }
+
+    /**
+     * Runs {@code operation} on every chunk of matching books in its own transaction. The
+     * operation returns the ids it skipped.
+     */
+    private BulkOperationResult forEachChunk(BookFilter filter, Function<List<BookCatalogEntry>, List<Long>> operation) {
+        long matched = 0;
+        List<Long> skipped = new ArrayList<>();
+        if (filter.getIds() != null && !filter.getIds().isEmpty()) {
+            List<Long> ids = new ArrayList<>(new TreeSet<>(filter.getIds()));
+            for (int from = 0; from < ids.size(); from += chunkSize) {
+                List<Long> idChunk = ids.subList(from, Math.min(from + chunkSize, ids.size()));
+                List<BookCatalogEntry> chunk = new ArrayList<>();
+                skipped.addAll(transactionTemplate.execute(status -> {
+                    chunk.addAll(bookRepository.findCatalogEntriesMatching(idChunk,
+                            filter.getAuthor(), filter.getPublicationYear()));
+                    return chunk.isEmpty() ? List.<Long>of() : operation.apply(chunk);
+                }));
+                matched += chunk.size();
+            }
+        } else {
+            long afterId = 0;
+            while (true) {
+                long lastId = afterId;
+                List<BookCatalogEntry> chunk = new ArrayList<>();
+                skipped.addAll(transactionTemplate.execute(status -> {
+                    chunk.addAll(bookRepository.findCatalogEntriesMatching(filter.getAuthor(),
+                            filter.getPublicationYear(), lastId, PageRequest.of(0, chunkSize)));
+                    return chunk.isEmpty() ? List.<Long>of() : operation.apply(chunk);
+                }));
+                matched += chunk.size();
+                if (chunk.size() < chunkSize) {
+                    break;
+                }
+                afterId = chunk.get(chunk.size() - 1).getId();
+            }
+        }
+        return BulkOperationResult.builder()
+                .matched(matched)
+                .affected(matched - skipped.size())
+                .skippedIds(skipped)
+                .build();
+    }
+}
@@ -0,0 +1,109 @@
+package maids.library.demo.service;
+
+import maids.library.demo.branch.BranchContext;
+import maids.library.demo.branch.Branches;
+import maids.library.demo.model.entity.ArchivedBorrowingRecord;
+import maids.library.demo.model.projection.LoanSnapshot;
+import maids.library.demo.repository.ArchivedBorrowingRecordCrudRepository;
+import maids.library.demo.repository.BorrowingRecordCrudRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Moves loans returned more than {@code library.archive.min-age-days} ago from the borrowing
+ * record table into the archive table. Every batch is copied and deleted in its own short
+ * transaction so the hot table is never locked for the length of a whole run.
+ */
+@Service
+public class BorrowingRecordArchiver {
+    private static final Logger log = LoggerFactory.getLogger(BorrowingRecordArchiver.class);
+
+    private final BorrowingRecordCrudRepository borrowingRecordRepository;
+    private final ArchivedBorrowingRecordCrudRepository archivedRecordRepository;
+    private final Branches branches;
+    private final TransactionTemplate transactionTemplate;
+    private final boolean enabled;
+    private final int minAgeDays;
+    private final int batchSize;
+    private final long pauseBetweenBatchesMillis;
+
+    public BorrowingRecordArchiver(BorrowingRecordCrudRepository borrowingRecordRepository,
+                                   ArchivedBorrowingRecordCrudRepository archivedRecordRepository,
+                                   Branches branches,
+                                   PlatformTransactionManager transactionManager,
+                                   @Value("${library.archive.enabled:true}") boolean enabled,
+                                   @Value("${library.archive.min-age-days:365}") int minAgeDays,
+                                   @Value("${library.archive.batch-size:500}") int batchSize,
+                                   @Value("${library.archive.pause-between-batches-ms:50}") long pauseBetweenBatchesMillis) {
+        this.borrowingRecordRepository = borrowingRecordRepository;
+        this.archivedRecordRepository = archivedRecordRepository;
+        this.branches = branches;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.enabled = enabled;
+        this.minAgeDays = minAgeDays;
+        this.batchSize = batchSize;
+        this.pauseBetweenBatchesMillis = pauseBetweenBatchesMillis;
+    }
+
+    @Scheduled(cron = "${library.archive.cron:0 30 2 * * *}")
+    public void archiveOnSchedule() {
+        if (enabled) {
+            branches.forEach("archive returned borrowing records", this::archiveReturnedRecords);
+        }
+    }
+
+    public long archiveReturnedRecords() {
+        LocalDate cutoff = LocalDate.now().minusDays(minAgeDays);
+        long archived = 0;
+        int moved;
+        do {
+            moved = transactionTemplate.execute(status -> archiveBatch(cutoff));
+            archived += moved;
+            if (moved == batchSize) {
+                pause();
+            }
+        } while (moved == batchSize);
+        log.info("Archived {} borrowing records of branch {} returned before {}", archived, BranchContext.current(), cutoff);
+        return archived;
+    }
+
+    private int archiveBatch(LocalDate cutoff) {
+        List<LoanSnapshot> batch = borrowingRecordRepository.findReturnedBefore(cutoff, PageRequest.of(0, batchSize));
+        if (batch.isEmpty()) {
+            return 0;
+        }
+        LocalDate today = LocalDate.now();
+        archivedRecordRepository.saveAll(batch.stream()
+                .map(loan -> ArchivedBorrowingRecord.builder()
+                        .originalRecordId(loan.getId())
+                        .bookId(loan.getBookId())
+                        .patronId(loan.getPatronId())
+                        .borrowingDate(loan.getBorrowingDate())
+                        .returnDate(loan.getReturnDate())
+                        .archivedOn(today)
+                        .build())
+                .toList());
+        borrowingRecordRepository.deleteByIdIn(batch.stream().map(LoanSnapshot::getId).toList());
+        return batch.size();
+    }
+
+    private void pause() {
+        if (pauseBetweenBatchesMillis <= 0) {
+            return;
+        }
+        try {
+            Thread.sleep(pauseBetweenBatchesMillis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package maids.library.demo.service;
+
+import jakarta.annotation.PreDestroy;
+import maids.library.demo.branch.BranchContext;
+import maids.library.demo.branch.Branches;
+import maids.library.demo.model.dto.CatalogSearchResult;
+import maids.library.demo.model.entity.Book;
+import maids.library.demo.repository.BookCrudRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Searches the catalogs of all branches at once. The query is sent to every branch's database in
+ * parallel and the per-branch results are merged by title. A branch that fails or does not answer
+ * within {@code library.branches.scatter-timeout-ms} is reported as unavailable instead of failing
+ * the whole search.
+ */
+@Service
+public class CatalogService {
+    private static final Logger log = LoggerFactory.getLogger(CatalogService.class);
+    private static final Comparator<Book> BY_TITLE = Comparator.comparing(Book::getTitle)
+            .thenComparing(Book::getBranch)
+            .thenComparing(Book::getId);
+
+    private final BookCrudRepository bookRepository;
+    private final Branches branches;
+    private final TransactionTemplate readOnlyTransaction;
+    private final long timeoutMillis;
+    private final ExecutorService executor;
+
+    public CatalogService(BookCrudRepository bookRepository,
+                          Branches branches,
+                          PlatformTransactionManager transactionManager,
+                          @Value("${library.branches.scatter-threads:8}") int threads,
+                          @Value("${library.branches.scatter-timeout-ms:2000}") long timeoutMillis) {
+        this.bookRepository = bookRepository;
+        this.branches = branches;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.timeoutMillis = timeoutMillis;
+        this.executor = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "catalog-search");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public List<String> getBranches() {
+        return branches.names();
+    }
+
+    /**
+     * The first {@code limit} books across all branches whose title and author contain the given
+     * text; each branch is asked for at most {@code limit} books.
+     */
+    public CatalogSearchResult searchBooks(String title, String author, int limit) {
+        Map<String, Future<List<Book>>> searches = new LinkedHashMap<>();
+        for (String branch : branches.names()) {
+            searches.put(branch, executor.submit(() -> BranchContext.call(branch, () -> readOnlyTransaction.execute(
+                    status -> bookRepository.search(title, author, PageRequest.of(0, limit))))));
+        }
+
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+        List<Book> books = new ArrayList<>();
+        List<String> unavailable = new ArrayList<>();
+        for (Map.Entry<String, Future<List<Book>>> search : searches.entrySet()) {
+            try {
+                books.addAll(search.getValue().get(Math.max(deadline - System.nanoTime(), 0), TimeUnit.NANOSECONDS));
+            } catch (TimeoutException e) {
+                search.getValue().cancel(true);
+                log.warn("Catalog search on branch {} timed out", search.getKey());
+                unavailable.add(search.getKey());
+            } catch (ExecutionException e) {
+                log.warn("Catalog search on branch {} failed", search.getKey(), e.getCause());
+                unavailable.add(search.getKey());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                searches.values().forEach(future -> future.cancel(true));
+                throw new IllegalStateException("Interrupted while searching the catalog", e);
+            }
+        }
+        books.sort(BY_TITLE);
+        return CatalogSearchResult.builder()
+                .books(books.size() > limit ? new ArrayList<>(books.subList(0, limit)) : books)
+                .unavailableBranches(unavailable)
+                .build();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,229 @@
+package maids.library.demo.service;
+
+import jakarta.annotation.PreDestroy;
+import maids.library.demo.branch.BranchContext;
+import maids.library.demo.event.BookBorrowedEvent;
+import maids.library.demo.event.BookChangedEvent;
+import maids.library.demo.event.BookReturnedEvent;
+import maids.library.demo.event.ChangeType;
+import maids.library.demo.event.PatronChangedEvent;
+import maids.library.demo.model.dto.ChangeNotification;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Fans committed catalog and circulation changes out to Server-Sent Events subscribers.
+ * <p>
+ * Every change gets the next sequence number and is kept in a bounded history, so a client that
+ * reconnects with {@code Last-Event-ID} receives what it missed. A client that is too far behind
+ * gets a {@code reset} event and has to reload. Each subscriber has a bounded queue drained by a
+ * shared sender pool; a subscriber whose queue overflows is disconnected instead of buffering
+ * without limit, and can resume from its last sequence number.
+ * <p>
+ * The feed covers all branches; every notification names the branch it happened on.
+ */
+@Service
+public class ChangeFeedService {
+    private static final Logger log = LoggerFactory.getLogger(ChangeFeedService.class);
+    static final String RESET_EVENT = "reset";
+
+    private final ChangeHistory history;
+    private final int bufferSize;
+    private final long emitterTimeoutMillis;
+    private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+    private final ExecutorService sender;
+
+    public ChangeFeedService(@Value("${library.changes.history-size:10000}") int historySize,
+                             @Value("${library.changes.subscriber-buffer-size:1000}") int bufferSize,
+                             @Value("${library.changes.emitter-timeout-ms:1800000}") long emitterTimeoutMillis,
+                             @Value("${library.changes.sender-threads:2}") int senderThreads) {
+        // Seeding with the start time keeps sequence numbers increasing across restarts, so a
+        // client resuming with an id from an earlier run is sent a reset instead of a wrong replay.
+        this.history = new ChangeHistory(historySize, System.currentTimeMillis() * 1000);
+        this.bufferSize = bufferSize;
+        this.emitterTimeoutMillis = emitterTimeoutMillis;
+        this.sender = Executors.newFixedThreadPool(senderThreads, runnable -> {
+            Thread thread = new Thread(runnable, "change-feed-sender");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Opens a stream. With {@code lastSequence} set, changes after it are replayed first.
+     */
+    public SseEmitter subscribe(Long lastSequence) {
+        SseEmitter emitter = new SseEmitter(emitterTimeoutMillis);
+        Subscriber subscriber = new Subscriber(emitter);
+        emitter.onCompletion(() -> subscribers.remove(subscriber));
+        emitter.onTimeout(() -> subscribers.remove(subscriber));
+        emitter.onError(ex -> subscribers.remove(subscriber));
+
+        synchronized (history) {
+            if (lastSequence != null) {
+                List<ChangeNotification> missed = history.since(lastSequence);
+                if (missed == null || missed.size() > bufferSize) {
+                    subscriber.reset = history.lastSequence();
+                } else {
+                    subscriber.queue.addAll(missed);
+                }
+            }
+            subscribers.add(subscriber);
+        }
+        subscriber.schedule();
+        return emitter;
+    }
+
+    public int subscriberCount() {
+        return subscribers.size();
+    }
+
+    @TransactionalEventListener
+    public void onBookChanged(BookChangedEvent event) {
+        publish(ChangeNotification.builder()
+                .entity(ChangeNotification.Entity.BOOK)
+                .type(toType(event.type()))
+                .id(event.bookId())
+                .build());
+    }
+
+    @TransactionalEventListener
+    public void onPatronChanged(PatronChangedEvent event) {
+        publish(ChangeNotification.builder()
+                .entity(ChangeNotification.Entity.PATRON)
+                .type(toType(event.type()))
+                .id(event.patronId())
+                .build());
+    }
+
+    @TransactionalEventListener
+    public void onBookBorrowed(BookBorrowedEvent event) {
+        publish(ChangeNotification.builder()
+                .entity(ChangeNotification.Entity.LOAN)
+                .type(ChangeNotification.Type.BORROWED)
+                .id(event.borrowingRecordId())
+                .bookId(event.bookId())
+                .patronId(event.patronId())
+                .build());
+    }
+
+    @TransactionalEventListener
+    public void onBookReturned(BookReturnedEvent event) {
+        publish(ChangeNotification.builder()
+                .entity(ChangeNotification.Entity.LOAN)
+                .type(ChangeNotification.Type.RETURNED)
+                .id(event.borrowingRecordId())
+                .bookId(event.bookId())
+                .patronId(event.patronId())
+                .build());
+    }
+
+    /**
+     * Comments keep idle connections from being closed by proxies and reveal dead clients.
+     */
+    @Scheduled(fixedDelayString = "${library.changes.heartbeat-ms:30000}")
+    public void heartbeat() {
+        for (Subscriber subscriber : subscribers) {
+            sender.execute(subscriber::sendHeartbeat);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        sender.shutdownNow();
+        subscribers.forEach(subscriber -> subscriber.emitter.complete());
+        subscribers.clear();
+    }
+
+    void publish(ChangeNotification notification) {
+        notification.setBranch(BranchContext.current());
+        synchronized (history) {
+            history.append(notification);
+            for (Subscriber subscriber : subscribers) {
+                subscriber.offer(notification);
+            }
+        }
+    }
+
+    private static ChangeNotification.Type toType(ChangeType type) {
+        return switch (type) {
+            case CREATED -> ChangeNotification.Type.CREATED;
+            case UPDATED -> ChangeNotification.Type.UPDATED;
+            case DELETED -> ChangeNotification.Type.DELETED;
+        };
+    }
+
+    private final class Subscriber {
+        private final SseEmitter emitter;
+        private final BlockingQueue<ChangeNotification> queue = new ArrayBlockingQueue<>(bufferSize);
+        private final AtomicBoolean draining = new AtomicBoolean();
+        private volatile Long reset;
+
+        private Subscriber(SseEmitter emitter) {
+            this.emitter = emitter;
+        }
+
+        private void offer(ChangeNotification notification) {
+            if (queue.offer(notification)) {
+                schedule();
+            } else if (subscribers.remove(this)) {
+                log.warn("Disconnecting change feed subscriber that fell {} events behind", bufferSize);
+                emitter.complete();
+            }
+        }
+
+        private void schedule() {
+            if (draining.compareAndSet(false, true)) {
+                sender.execute(this::drain);
+            }
+        }
+
+        private void drain() {
+            try {
+                do {
+                    if (reset != null) {
+                        emitter.send(SseEmitter.event().id(Long.toString(reset)).name(RESET_EVENT).data(""));
+                        reset = null;
+                    }
+                    ChangeNotification notification;
+                    while ((notification = queue.poll()) != null) {
+                        emitter.send(SseEmitter.event()
+                                .id(Long.toString(notification.getSequence()))
+                                .name(notification.getEntity().name().toLowerCase(Locale.ROOT))
+                                .data(notification, MediaType.APPLICATION_JSON));
+                    }
+                    draining.set(false);
+                } while (!queue.isEmpty() && draining.compareAndSet(false, true));
+            } catch (IOException | IllegalStateException ex) {
+                subscribers.remove(this);
+                emitter.completeWithError(ex);
+            }
+        }
+
+        private void sendHeartbeat() {
+            try {
+                emitter.send(SseEmitter.event().comment("heartbeat"));
+            } catch (IOException | IllegalStateException ex) {
+                subscribers.remove(this);
+                emitter.completeWithError(ex);
+            }
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package maids.library.demo.service;
+
+import maids.library.demo.model.dto.ChangeNotification;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Ring buffer of the most recent change notifications. Sequence numbers grow by one per appended
+ * notification, starting after {@code initialSequence}, so a slot is found by
+ * {@code sequence % capacity}. Not thread-safe.
+ */
+public class ChangeHistory {
+    private final ChangeNotification[] slots;
+    private final long firstSequence;
+    private long lastSequence;
+
+    public ChangeHistory(int capacity, long initialSequence) {
+        this.slots = new ChangeNotification[capacity];
+        this.firstSequence = initialSequence + 1;
+        this.lastSequence = initialSequence;
+    }
+
+    /**
+     * Stamps the notification with the next sequence number and stores it, overwriting the
+     * oldest one when the buffer is full.
+     */
+    public ChangeNotification append(ChangeNotification notification) {
+        notification.setSequence(++lastSequence);
+        slots[(int) (lastSequence % slots.length)] = notification;
+        return notification;
+    }
+
+    public long lastSequence() {
+        return lastSequence;
+    }
+
+    /**
+     * Notifications after {@code sequence}, oldest first, or {@code null} when the caller cannot
+     * resume without a gap: some of them were already overwritten, or the sequence was never
+     * issued by this buffer.
+     */
+    public List<ChangeNotification> since(long sequence) {
+        if (sequence > lastSequence) {
+            return null;
+        }
+        if (sequence == lastSequence) {
+            return List.of();
+        }
+        long from = sequence + 1;
+        if (from < firstSequence || lastSequence - from >= slots.length) {
+            return null;
+        }
+        List<ChangeNotification> notifications = new ArrayList<>((int) (lastSequence - from + 1));
+        for (long current = from; current <= lastSequence; current++) {
+            notifications.add(slots[(int) (current % slots.length)]);
+        }
+        return notifications;
+    }
+}
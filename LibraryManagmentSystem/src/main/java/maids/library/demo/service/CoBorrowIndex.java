@@ -0,0 +1,106 @@
+package maids.library.demo.service;
+
+import it.unimi.dsi.fastutil.longs.Long2IntMap;
+import it.unimi.dsi.fastutil.longs.Long2IntOpenHashMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.longs.LongArrays;
+import it.unimi.dsi.fastutil.longs.LongIterator;
+import it.unimi.dsi.fastutil.longs.LongOpenHashSet;
+
+/**
+ * "Patrons who borrowed this also borrowed" counts, keyed by primitive book and patron ids.
+ * <p>
+ * Each book keeps at most {@code 2 * maxNeighbours} co-borrowed books; when that is exceeded the
+ * weakest entries are dropped so memory stays bounded per book. Counts of dropped entries are
+ * lost, which makes the ranking approximate for very long tails. Not thread-safe.
+ */
+public class CoBorrowIndex {
+    private final int maxNeighbours;
+    private final Long2ObjectOpenHashMap<LongOpenHashSet> booksByPatron = new Long2ObjectOpenHashMap<>();
+    private final Long2ObjectOpenHashMap<Long2IntOpenHashMap> coBorrowCounts = new Long2ObjectOpenHashMap<>();
+
+    public CoBorrowIndex(int maxNeighbours) {
+        if (maxNeighbours < 1) {
+            throw new IllegalArgumentException("maxNeighbours must be positive");
+        }
+        this.maxNeighbours = maxNeighbours;
+    }
+
+    public void recordLoan(long patronId, long bookId) {
+        LongOpenHashSet books = booksByPatron.computeIfAbsent(patronId, id -> new LongOpenHashSet());
+        if (!books.add(bookId)) {
+            // Borrowing the same title again says nothing new about what it is read with.
+            return;
+        }
+        LongIterator iterator = books.iterator();
+        while (iterator.hasNext()) {
+            long otherBookId = iterator.nextLong();
+            if (otherBookId != bookId) {
+                increment(bookId, otherBookId, 1);
+                increment(otherBookId, bookId, 1);
+            }
+        }
+    }
+
+    /**
+     * Folds an index built over a disjoint set of patrons into this one.
+     */
+    public void merge(CoBorrowIndex other) {
+        for (Long2ObjectMap.Entry<LongOpenHashSet> entry : other.booksByPatron.long2ObjectEntrySet()) {
+            LongOpenHashSet books = booksByPatron.get(entry.getLongKey());
+            if (books == null) {
+                booksByPatron.put(entry.getLongKey(), entry.getValue());
+            } else {
+                books.addAll(entry.getValue());
+            }
+        }
+        for (Long2ObjectMap.Entry<Long2IntOpenHashMap> entry : other.coBorrowCounts.long2ObjectEntrySet()) {
+            long bookId = entry.getLongKey();
+            for (Long2IntMap.Entry count : entry.getValue().long2IntEntrySet()) {
+                increment(bookId, count.getLongKey(), count.getIntValue());
+            }
+        }
+    }
+
+    public long[] recommend(long bookId, int limit) {
+        Long2IntOpenHashMap counts = coBorrowCounts.get(bookId);
+        if (counts == null || limit <= 0) {
+            return new long[0];
+        }
+        long[] ranked = rank(counts);
+        if (ranked.length <= limit) {
+            return ranked;
+        }
+        long[] top = new long[limit];
+        System.arraycopy(ranked, 0, top, 0, limit);
+        return top;
+    }
+
+    public int bookCount() {
+        return coBorrowCounts.size();
+    }
+
+    private void increment(long bookId, long otherBookId, int delta) {
+        Long2IntOpenHashMap counts = coBorrowCounts.computeIfAbsent(bookId, id -> new Long2IntOpenHashMap());
+        counts.addTo(otherBookId, delta);
+        if (counts.size() > 2 * maxNeighbours) {
+            long[] ranked = rank(counts);
+            for (int i = maxNeighbours; i < ranked.length; i++) {
+                counts.remove(ranked[i]);
+            }
+        }
+    }
+
+    /**
+     * Book ids ordered by descending count, ties broken by ascending id so results are stable.
+     */
+    private static long[] rank(Long2IntOpenHashMap counts) {
+        long[] ids = counts.keySet().toLongArray();
+        LongArrays.quickSort(ids, (a, b) -> {
+            int byCount = Integer.compare(counts.get(b), counts.get(a));
+            return byCount != 0 ? byCount : Long.compare(a, b);
+        });
+        return ids;
+    }
+}
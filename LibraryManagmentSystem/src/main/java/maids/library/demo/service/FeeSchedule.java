@@ -0,0 +1,74 @@
+package maids.library.demo.service;
+
+/**
+ * Turns loan dates into fines. A loan is due {@code loanPeriodDays} after it was borrowed. Once it
+ * is more than {@code graceDays} overdue, every overdue day is charged at the rate of the tier it
+ * falls in, and the total is capped at {@code maxCents}. Dates are epoch days so a whole batch is
+ * assessed with integer arithmetic only.
+ */
+public final class FeeSchedule {
+    private final int loanPeriodDays;
+    private final int graceDays;
+    private final int[] tierStarts;
+    private final long[] tierRates;
+    private final long maxCents;
+
+    /**
+     * @param tiers comma-separated {@code firstOverdueDay:centsPerDay} pairs, the first starting at day 1,
+     *              e.g. {@code 1:25,15:50}
+     */
+    public FeeSchedule(int loanPeriodDays, int graceDays, String tiers, long maxCents) {
+        String[] parts = tiers.split(",");
+        this.tierStarts = new int[parts.length];
+        this.tierRates = new long[parts.length];
+        for (int i = 0; i < parts.length; i++) {
+            String[] tier = parts[i].trim().split(":");
+            if (tier.length != 2) {
+                throw new IllegalArgumentException("Fine tiers must look like 1:25,15:50 but were: " + tiers);
+            }
+            tierStarts[i] = Integer.parseInt(tier[0].trim());
+            tierRates[i] = Long.parseLong(tier[1].trim());
+            if (i == 0 ? tierStarts[i] != 1 : tierStarts[i] <= tierStarts[i - 1]) {
+                throw new IllegalArgumentException("Fine tiers must start at day 1 and ascend: " + tiers);
+            }
+        }
+        this.loanPeriodDays = loanPeriodDays;
+        this.graceDays = graceDays;
+        this.maxCents = maxCents;
+    }
+
+    public int getLoanPeriodDays() {
+        return loanPeriodDays;
+    }
+
+    public int dueDay(int borrowedDay) {
+        return borrowedDay + loanPeriodDays;
+    }
+
+    public int daysOverdue(int borrowedDay, int asOfDay) {
+        return Math.max(asOfDay - dueDay(borrowedDay), 0);
+    }
+
+    public long amountCents(int daysOverdue) {
+        if (daysOverdue <= graceDays) {
+            return 0;
+        }
+        long total = 0;
+        for (int i = 0; i < tierStarts.length && tierStarts[i] <= daysOverdue; i++) {
+            int last = i + 1 < tierStarts.length ? Math.min(tierStarts[i + 1] - 1, daysOverdue) : daysOverdue;
+            total += (last - tierStarts[i] + 1) * tierRates[i];
+        }
+        return Math.min(total, maxCents);
+    }
+
+    /**
+     * Assesses the first {@code count} loans of a batch as of a day, writing into the given arrays.
+     */
+    public void assess(int[] borrowedDays, int count, int asOfDay, int[] daysOverdue, long[] amounts) {
+        for (int i = 0; i < count; i++) {
+            int overdue = daysOverdue(borrowedDays[i], asOfDay);
+            daysOverdue[i] = overdue;
+            amounts[i] = amountCents(overdue);
+        }
+    }
+}
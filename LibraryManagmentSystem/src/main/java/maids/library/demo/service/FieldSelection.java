@@ -0,0 +1,44 @@
+package maids.library.demo.service;
+
+import maids.library.demo.exception.InvalidFieldsException;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Parses the {@code fields} parameter of sparse fieldset requests. Only the listed attributes may
+ * be requested; {@code id} is always part of the selection and comes first.
+ */
+public final class FieldSelection {
+    public static final List<String> BOOK_FIELDS = List.of("id", "title", "author", "publicationYear", "isbn", "branch");
+    public static final List<String> PATRON_FIELDS = List.of("id", "name", "contactInformation", "activeLoans",
+            "memberSince", "branch");
+
+    private FieldSelection() {
+    }
+
+    public static List<String> parse(String fields, List<String> allowed) {
+        Set<String> selected = new LinkedHashSet<>();
+        selected.add("id");
+        List<String> unknown = new ArrayList<>();
+        for (String field : fields.split(",")) {
+            String name = field.trim();
+            if (name.isEmpty()) {
+                continue;
+            }
+            if (allowed.contains(name)) {
+                selected.add(name);
+            } else {
+                unknown.add(name);
+            }
+        }
+        if (!unknown.isEmpty()) {
+            throw InvalidFieldsException.builder()
+                    .message("Unknown fields " + unknown + "; allowed are " + allowed)
+                    .build();
+        }
+        return List.copyOf(selected);
+    }
+}
@@ -0,0 +1,38 @@
+package maids.library.demo.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+
+/**
+ * Stand-in sender that appends one tab-separated line per notification to a local file, so
+ * deliveries can be inspected without a mail or SMS gateway.
+ */
+@Component
+@ConditionalOnProperty(name = "library.notifications.sender", havingValue = "file")
+public class FileNotificationSender implements NotificationSender {
+    private final Path file;
+
+    public FileNotificationSender(@Value("${library.notifications.file:notifications.log}") String file) {
+        this.file = Path.of(file);
+    }
+
+    @Override
+    public synchronized void send(Notification notification) {
+        String line = LocalDateTime.now() + "\t" + notification.id() + "\t" + notification.type() + "\t"
+                + notification.recipient() + "\t" + notification.text() + System.lineSeparator();
+        try {
+            Files.writeString(file, line, StandardCharsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not write notification " + notification.id() + " to " + file, e);
+        }
+    }
+}
@@ -0,0 +1,262 @@
+package maids.library.demo.service;
+
+import it.unimi.dsi.fastutil.longs.LongOpenHashSet;
+import maids.library.demo.branch.BranchContext;
+import maids.library.demo.branch.Branches;
+import maids.library.demo.exception.PatronNotFoundException;
+import maids.library.demo.model.dto.FineRunResult;
+import maids.library.demo.model.dto.FineSummary;
+import maids.library.demo.model.entity.BorrowingRecord;
+import maids.library.demo.model.entity.Fine;
+import maids.library.demo.model.entity.FineStatus;
+import maids.library.demo.repository.FineCrudRepository;
+import maids.library.demo.repository.PatronCrudRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Assesses fines for late loans, for all open loans every night and for one patron on demand.
+ * <p>
+ * Open loans are read with plain JDBC in id order, one batch per transaction, into reusable
+ * columnar arrays of ids and epoch days, so a batch costs no entity objects and no date
+ * arithmetic. The {@link FeeSchedule} fills in days overdue and amounts, and the fines are written
+ * back with JDBC batches: updates for loans already fined, inserts for new ones and deletes for
+ * fines a changed schedule no longer charges. Returning a book settles its fine.
+ */
+@Service
+public class FineService {
+    private static final Logger log = LoggerFactory.getLogger(FineService.class);
+    private static final String SELECT_OPEN_LOANS = "select id, book_id, patron_id, borrowing_date from borrowing_record "
+            + "where return_date is null and borrowing_date is not null and id > ? order by id limit ?";
+    private static final String SELECT_OPEN_LOANS_OF_PATRON = "select id, book_id, patron_id, borrowing_date "
+            + "from borrowing_record where return_date is null and borrowing_date is not null and patron_id = ? "
+            + "and id > ? order by id limit ?";
+    private static final String SELECT_ACCRUING = "select borrowing_record_id from fine "
+            + "where status = 'ACCRUING' and borrowing_record_id between ? and ?";
+    /**
+     * A fine that a concurrent return has settled in the meantime is left as it is.
+     */
+    private static final String INSERT_FINE = "insert into fine (patron_id, book_id, due_date, days_overdue, "
+            + "amount_cents, status, assessed_on, borrowing_record_id) values (?, ?, ?, ?, ?, ?, ?, ?) "
+            + "on duplicate key update borrowing_record_id = borrowing_record_id";
+    private static final String UPDATE_FINE = "update fine set patron_id = ?, book_id = ?, due_date = ?, "
+            + "days_overdue = ?, amount_cents = ?, status = ?, assessed_on = ? "
+            + "where borrowing_record_id = ? and status = 'ACCRUING'";
+    private static final String DELETE_FINE = "delete from fine where borrowing_record_id = ? and status = 'ACCRUING'";
+    private static final String SETTLE_FINE = "insert into fine (patron_id, book_id, due_date, days_overdue, "
+            + "amount_cents, status, assessed_on, borrowing_record_id) values (?, ?, ?, ?, ?, ?, ?, ?) "
+            + "on duplicate key update due_date = ?, days_overdue = ?, amount_cents = ?, status = ?, assessed_on = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final FineCrudRepository fineRepository;
+    private final PatronCrudRepository patronRepository;
+    private final Branches branches;
+    private final TransactionTemplate transactionTemplate;
+    private final FeeSchedule schedule;
+    private final int batchSize;
+
+    public FineService(JdbcTemplate jdbcTemplate,
+                       FineCrudRepository fineRepository,
+                       PatronCrudRepository patronRepository,
+                       Branches branches,
+                       PlatformTransactionManager transactionManager,
+                       @Value("${library.fines.loan-period-days:14}") int loanPeriodDays,
+                       @Value("${library.fines.grace-days:2}") int graceDays,
+                       @Value("${library.fines.tiers:1:25,15:50}") String tiers,
+                       @Value("${library.fines.max-cents:2000}") long maxCents,
+                       @Value("${library.fines.batch-size:5000}") int batchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.fineRepository = fineRepository;
+        this.patronRepository = patronRepository;
+        this.branches = branches;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.schedule = new FeeSchedule(loanPeriodDays, graceDays, tiers, maxCents);
+        this.batchSize = batchSize;
+    }
+
+    public FeeSchedule getSchedule() {
+        return schedule;
+    }
+
+    @Scheduled(cron = "${library.fines.cron:0 0 1 * * *}")
+    public void assessOnSchedule() {
+        branches.forEach("assess fines", this::assessAll);
+    }
+
+    /**
+     * Assesses every open loan of the current branch as of today.
+     */
+    public FineRunResult assessAll() {
+        long startedAt = System.nanoTime();
+        LocalDate today = LocalDate.now();
+        LoanBatch batch = new LoanBatch(batchSize);
+        long openLoans = 0;
+        long fined = 0;
+        int batches = 0;
+        long afterId = 0;
+        do {
+            long from = afterId;
+            fined += transactionTemplate.execute(status -> {
+                batch.load(jdbcTemplate, SELECT_OPEN_LOANS, from, batchSize);
+                return assess(batch, today);
+            });
+            openLoans += batch.size;
+            batches++;
+            if (batch.size > 0) {
+                afterId = batch.ids[batch.size - 1];
+            }
+        } while (batch.size == batchSize);
+
+        long millis = (System.nanoTime() - startedAt) / 1_000_000;
+        log.info("Assessed fines of {} open loans of branch {} in {} batches in {} ms; {} are fined",
+                openLoans, BranchContext.current(), batches, millis, fined);
+        return FineRunResult.builder()
+                .asOf(today)
+                .openLoans(openLoans)
+                .fined(fined)
+                .batches(batches)
+                .millis(millis)
+                .build();
+    }
+
+    /**
+     * Brings the fines of the patron's open loans up to date and returns all of the patron's fines.
+     */
+    public FineSummary assessPatron(Long patronId) {
+        if (!patronRepository.existsById(patronId)) {
+            throw PatronNotFoundException.builder()
+                    .message("Patron not found with id: " + patronId)
+                    .build();
+        }
+        LocalDate today = LocalDate.now();
+        LoanBatch batch = new LoanBatch(batchSize);
+        return transactionTemplate.execute(status -> {
+            long afterId = 0;
+            do {
+                batch.load(jdbcTemplate, SELECT_OPEN_LOANS_OF_PATRON, patronId, afterId, batchSize);
+                assess(batch, today);
+                if (batch.size > 0) {
+                    afterId = batch.ids[batch.size - 1];
+                }
+            } while (batch.size == batchSize);
+
+            List<Fine> fines = fineRepository.findByPatronIdOrderByBorrowingRecordId(patronId);
+            return FineSummary.builder()
+                    .patronId(patronId)
+                    .totalCents(fines.stream().mapToLong(Fine::getAmountCents).sum())
+                    .fines(fines)
+                    .build();
+        });
+    }
+
+    /**
+     * Fixes the fine of a loan that is being returned, in the caller's transaction, with a single
+     * upsert so it cannot collide with a batch inserting the same fine. Loans returned
+     * in time cost no statement; an accruing fine of such a loan can only be left over from a
+     * more expensive schedule and is kept as it was. Loans recorded without a borrowing date
+     * cannot be late and are never fined.
+     */
+    public void settle(BorrowingRecord record) {
+        if (record.getBorrowingDate() == null) {
+            return;
+        }
+        int borrowedDay = (int) record.getBorrowingDate().toEpochDay();
+        int overdue = schedule.daysOverdue(borrowedDay, (int) record.getReturnDate().toEpochDay());
+        long amount = schedule.amountCents(overdue);
+        if (amount == 0) {
+            return;
+        }
+        Date dueDate = Date.valueOf(LocalDate.ofEpochDay(schedule.dueDay(borrowedDay)));
+        Date settledOn = Date.valueOf(record.getReturnDate());
+        jdbcTemplate.update(SETTLE_FINE, record.getPatron().getId(), record.getBook().getId(), dueDate, overdue, amount,
+                FineStatus.SETTLED.name(), settledOn, record.getId(),
+                dueDate, overdue, amount, FineStatus.SETTLED.name(), settledOn);
+    }
+
+    /**
+     * Assesses a loaded batch and writes its fines; returns the number of fined loans.
+     */
+    private int assess(LoanBatch batch, LocalDate asOf) {
+        if (batch.size == 0) {
+            return 0;
+        }
+        schedule.assess(batch.borrowedDays, batch.size, (int) asOf.toEpochDay(), batch.daysOverdue, batch.amounts);
+
+        LongOpenHashSet accruing = new LongOpenHashSet();
+        jdbcTemplate.query(SELECT_ACCRUING, (RowCallbackHandler) resultSet -> accruing.add(resultSet.getLong(1)),
+                batch.ids[0], batch.ids[batch.size - 1]);
+
+        Date assessedOn = Date.valueOf(asOf);
+        List<Object[]> inserts = new ArrayList<>();
+        List<Object[]> updates = new ArrayList<>();
+        List<Object[]> deletes = new ArrayList<>();
+        for (int i = 0; i < batch.size; i++) {
+            boolean exists = accruing.contains(batch.ids[i]);
+            if (batch.amounts[i] == 0) {
+                if (exists) {
+                    deletes.add(new Object[]{batch.ids[i]});
+                }
+                continue;
+            }
+            Object[] row = {batch.patronIds[i], batch.bookIds[i],
+                    Date.valueOf(LocalDate.ofEpochDay(schedule.dueDay(batch.borrowedDays[i]))),
+                    batch.daysOverdue[i], batch.amounts[i], FineStatus.ACCRUING.name(), assessedOn, batch.ids[i]};
+            (exists ? updates : inserts).add(row);
+        }
+        if (!updates.isEmpty()) {
+            jdbcTemplate.batchUpdate(UPDATE_FINE, updates);
+        }
+        if (!inserts.isEmpty()) {
+            jdbcTemplate.batchUpdate(INSERT_FINE, inserts);
+        }
+        if (!deletes.isEmpty()) {
+            jdbcTemplate.batchUpdate(DELETE_FINE, deletes);
+        }
+        return updates.size() + inserts.size();
+    }
+
+    /**
+     * One batch of open loans as parallel arrays, reused from batch to batch.
+     */
+    private static final class LoanBatch {
+        private final long[] ids;
+        private final long[] bookIds;
+        private final long[] patronIds;
+        private final int[] borrowedDays;
+        private final int[] daysOverdue;
+        private final long[] amounts;
+        private int size;
+
+        private LoanBatch(int capacity) {
+            this.ids = new long[capacity];
+            this.bookIds = new long[capacity];
+            this.patronIds = new long[capacity];
+            this.borrowedDays = new int[capacity];
+            this.daysOverdue = new int[capacity];
+            this.amounts = new long[capacity];
+        }
+
+        private void load(JdbcTemplate jdbcTemplate, String sql, Object... parameters) {
+            size = 0;
+            jdbcTemplate.query(sql, (RowCallbackHandler) resultSet -> {
+                ids[size] = resultSet.getLong(1);
+                bookIds[size] = resultSet.getLong(2);
+                patronIds[size] = resultSet.getLong(3);
+                borrowedDays[size] = (int) resultSet.getObject(4, LocalDate.class).toEpochDay();
+                size++;
+            }, parameters);
+        }
+    }
+}
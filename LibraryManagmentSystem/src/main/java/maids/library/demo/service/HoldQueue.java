@@ -0,0 +1,115 @@
+package maids.library.demo.service;
+
+import maids.library.demo.branch.BranchContext;
+import maids.library.demo.branch.Branches;
+import maids.library.demo.event.HoldFulfilledEvent;
+import maids.library.demo.event.HoldPlacedEvent;
+import maids.library.demo.model.projection.WaitingHold;
+import maids.library.demo.repository.HoldCrudRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.NavigableSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+
+/**
+ * In-memory FIFO of waiting holds per book, mirroring the {@code book_hold} table. Reads are
+ * lock-free; writes only contend on the map bin of their own book, so a rush of holds on one
+ * title does not block holds on any other. The table stays authoritative: the queue is a
+ * shortcut for finding the next candidate, which is then claimed with a conditional update.
+ * <p>
+ * Every branch has its own queues; all methods work on the current branch.
+ */
+@Component
+public class HoldQueue {
+    private static final Logger log = LoggerFactory.getLogger(HoldQueue.class);
+    private static final Comparator<QueuedHold> BY_HOLD_ID = Comparator.comparingLong(QueuedHold::holdId);
+
+    private final HoldCrudRepository holdRepository;
+    private final Branches branches;
+    private final ConcurrentHashMap<String, BranchQueues> branchQueues = new ConcurrentHashMap<>();
+
+    public HoldQueue(HoldCrudRepository holdRepository, Branches branches) {
+        this.holdRepository = holdRepository;
+        this.branches = branches;
+    }
+
+    public record QueuedHold(long holdId, long patronId) {
+    }
+
+    public boolean isLoaded() {
+        return current().loaded;
+    }
+
+    /**
+     * Waiting holds of a book, oldest first. The view is weakly consistent.
+     */
+    public NavigableSet<QueuedHold> waiting(long bookId) {
+        ConcurrentSkipListSet<QueuedHold> queue = current().queues.get(bookId);
+        return queue != null ? queue : new ConcurrentSkipListSet<>(BY_HOLD_ID);
+    }
+
+    /**
+     * 1-based position of a hold in its book's queue, or 0 when it is not queued.
+     */
+    public int position(long bookId, long holdId) {
+        NavigableSet<QueuedHold> queue = waiting(bookId);
+        QueuedHold probe = new QueuedHold(holdId, 0);
+        return queue.contains(probe) ? queue.headSet(probe, false).size() + 1 : 0;
+    }
+
+    public void enqueue(long bookId, long holdId, long patronId) {
+        current().queues.compute(bookId, (id, queue) -> {
+            ConcurrentSkipListSet<QueuedHold> target = queue != null ? queue : new ConcurrentSkipListSet<>(BY_HOLD_ID);
+            target.add(new QueuedHold(holdId, patronId));
+            return target;
+        });
+    }
+
+    public void remove(long bookId, long holdId) {
+        current().queues.computeIfPresent(bookId, (id, queue) -> {
+            queue.remove(new QueuedHold(holdId, 0));
+            return queue.isEmpty() ? null : queue;
+        });
+    }
+
+    @TransactionalEventListener
+    public void onHoldPlaced(HoldPlacedEvent event) {
+        enqueue(event.bookId(), event.holdId(), event.patronId());
+    }
+
+    @TransactionalEventListener
+    public void onHoldFulfilled(HoldFulfilledEvent event) {
+        remove(event.bookId(), event.holdId());
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        branches.forEach("load waiting holds", () -> {
+            List<WaitingHold> waitingHolds = holdRepository.findAllWaiting();
+            for (WaitingHold hold : waitingHolds) {
+                enqueue(hold.getBookId(), hold.getId(), hold.getPatronId());
+            }
+            BranchQueues loadedQueues = current();
+            loadedQueues.loaded = true;
+            log.info("Loaded {} waiting holds on {} books of branch {}",
+                    waitingHolds.size(), loadedQueues.queues.size(), BranchContext.current());
+        });
+    }
+
+    private BranchQueues current() {
+        return branchQueues.computeIfAbsent(BranchContext.current(), branch -> new BranchQueues());
+    }
+
+    private static final class BranchQueues {
+        private final ConcurrentHashMap<Long, ConcurrentSkipListSet<QueuedHold>> queues = new ConcurrentHashMap<>();
+        private volatile boolean loaded;
+    }
+}
@@ -0,0 +1,130 @@
+package maids.library.demo.service;
+
+import maids.library.demo.event.HoldPlacedEvent;
+import maids.library.demo.exception.BookNotFoundException;
+import maids.library.demo.exception.HoldAlreadyExistsException;
+import maids.library.demo.exception.PatronNotFoundException;
+import maids.library.demo.model.dto.HoldResponse;
+import maids.library.demo.model.entity.Book;
+import maids.library.demo.model.entity.Hold;
+import maids.library.demo.model.entity.HoldStatus;
+import maids.library.demo.model.entity.Patron;
+import maids.library.demo.model.projection.WaitingHold;
+import maids.library.demo.repository.BookCrudRepository;
+import maids.library.demo.repository.HoldCrudRepository;
+import maids.library.demo.repository.PatronCrudRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.LongPredicate;
+
+@Service
+@Transactional
+public class HoldService {
+    @Autowired
+    private final HoldCrudRepository holdRepository;
+    @Autowired
+    private final BookCrudRepository bookRepository;
+    @Autowired
+    private final PatronCrudRepository patronRepository;
+    @Autowired
+    private final HoldQueue holdQueue;
+    @Autowired
+    private final ApplicationEventPublisher eventPublisher;
+
+    public HoldService(HoldCrudRepository holdRepository, BookCrudRepository bookRepository, PatronCrudRepository patronRepository, HoldQueue holdQueue, ApplicationEventPublisher eventPublisher) {
+        this.holdRepository = holdRepository;
+        this.bookRepository = bookRepository;
+        this.patronRepository = patronRepository;
+        this.holdQueue = holdQueue;
+        this.eventPublisher = eventPublisher;
+    }
+
+    /**
+     * Queues a waiting hold. The patron row stays locked until commit, so concurrent requests of
+     * the same patron are serialised and the duplicate check below sees the other's hold, while
+     * holds of different patrons on the same book still go through side by side.
+     */
+    public HoldResponse placeHold(Long bookId, Long patronId) {
+        Book book = bookRepository.findById(bookId)
+                .orElseThrow(() -> BookNotFoundException.builder()
+                        .message("Book not found with id: " + bookId)
+                        .build());
+        Patron patron = patronRepository.findByIdForUpdate(patronId)
+                .orElseThrow(() -> PatronNotFoundException.builder()
+                        .message("Patron not found with id: " + patronId)
+                        .build());
+        if (holdRepository.existsByBookIdAndPatronIdAndStatus(bookId, patronId, HoldStatus.WAITING)) {
+            throw HoldAlreadyExistsException.builder()
+                    .message("Patron " + patronId + " already holds book " + bookId)
+                    .build();
+        }
+
+        Hold hold = holdRepository.save(Hold.builder()
+                .book(book)
+                .patron(patron)
+                .status(HoldStatus.WAITING)
+                .createdAt(LocalDateTime.now())
+                .build());
+        eventPublisher.publishEvent(new HoldPlacedEvent(hold.getId(), bookId, patronId));
+
+        return HoldResponse.builder()
+                .holdId(hold.getId())
+                .bookId(bookId)
+                .patronId(patronId)
+                .status(hold.getStatus())
+                .createdAt(hold.getCreatedAt())
+                .position(holdQueue.waiting(bookId).size() + 1)
+                .build();
+    }
+
+    @Transactional(readOnly = true)
+    public List<HoldResponse> getWaitingHolds(Long bookId) {
+        List<HoldResponse> holds = new ArrayList<>();
+        int position = 0;
+        for (HoldQueue.QueuedHold hold : holdQueue.waiting(bookId)) {
+            holds.add(HoldResponse.builder()
+                    .holdId(hold.holdId())
+                    .bookId(bookId)
+                    .patronId(hold.patronId())
+                    .status(HoldStatus.WAITING)
+                    .position(++position)
+                    .build());
+        }
+        return holds;
+    }
+
+    /**
+     * Claims the oldest waiting hold on a book within the caller's transaction whose patron
+     * {@code canBorrow} accepts; holds of other patrons stay in place. Queue entries that turn
+     * out to be stale, because the hold was already fulfilled or cancelled, are dropped.
+     */
+    public Optional<HoldQueue.QueuedHold> claimNextHold(Long bookId, LongPredicate canBorrow) {
+        Iterable<HoldQueue.QueuedHold> candidates = holdQueue.isLoaded()
+                ? holdQueue.waiting(bookId)
+                : toQueued(holdRepository.findWaitingByBookId(bookId));
+        LocalDateTime now = LocalDateTime.now();
+        for (HoldQueue.QueuedHold candidate : candidates) {
+            if (holdRepository.markFulfilled(candidate.holdId(), now) != 1) {
+                holdQueue.remove(bookId, candidate.holdId());
+            } else if (canBorrow.test(candidate.patronId())) {
+                return Optional.of(candidate);
+            } else {
+                holdRepository.markWaiting(candidate.holdId());
+            }
+        }
+        return Optional.empty();
+    }
+
+    private static List<HoldQueue.QueuedHold> toQueued(List<WaitingHold> waitingHolds) {
+        return waitingHolds.stream()
+                .map(hold -> new HoldQueue.QueuedHold(hold.getId(), hold.getPatronId()))
+                .toList();
+    }
+}
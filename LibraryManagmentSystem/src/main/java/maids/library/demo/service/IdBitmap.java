@@ -0,0 +1,68 @@
+package maids.library.demo.service;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Growable bitmap of positive ids, one bit per id. Generated ids are dense, so a million ids
+ * take about 125 KB, and unlike a Bloom filter a bit can be cleared again when a row is deleted.
+ * <p>
+ * Lookups are lock-free; writers synchronize only with each other. Ids beyond
+ * {@link #MAX_TRACKED_ID} are not tracked and always reported as possibly present.
+ */
+public class IdBitmap {
+    static final long MAX_TRACKED_ID = (1L << 36) - 1;
+
+    private volatile AtomicLongArray words;
+
+    public IdBitmap() {
+        this.words = new AtomicLongArray(1024);
+    }
+
+    /**
+     * False only when the id is certainly not in the set.
+     */
+    public boolean mightContain(long id) {
+        if (id <= 0) {
+            return false;
+        }
+        if (id > MAX_TRACKED_ID) {
+            return true;
+        }
+        AtomicLongArray current = words;
+        int word = (int) (id >>> 6);
+        return word < current.length() && (current.get(word) & (1L << id)) != 0;
+    }
+
+    public synchronized void add(long id) {
+        if (id <= 0 || id > MAX_TRACKED_ID) {
+            return;
+        }
+        int word = (int) (id >>> 6);
+        if (word >= words.length()) {
+            grow(word);
+        }
+        words.getAndUpdate(word, bits -> bits | (1L << id));
+    }
+
+    public synchronized void remove(long id) {
+        if (id <= 0 || id > MAX_TRACKED_ID) {
+            return;
+        }
+        int word = (int) (id >>> 6);
+        if (word < words.length()) {
+            words.getAndUpdate(word, bits -> bits & ~(1L << id));
+        }
+    }
+
+    private void grow(int word) {
+        int length = words.length();
+        while (length <= word) {
+            length = length > Integer.MAX_VALUE / 2 ? word + 1 : length * 2;
+        }
+        AtomicLongArray grown = new AtomicLongArray(length);
+        for (int i = 0; i < words.length(); i++) {
+            grown.set(i, words.get(i));
+        }
+        words = grown;
+    }
+}
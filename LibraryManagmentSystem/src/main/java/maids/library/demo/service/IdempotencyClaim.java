@@ -0,0 +1,26 @@
+package maids.library.demo.service;
+
+/**
+ * What an {@link IdempotencyStore} found when a request tried to claim its key.
+ */
+public record IdempotencyClaim(Outcome outcome, int responseStatus, String responseBody) {
+
+    public enum Outcome {
+        /** The key was free; the caller now owns it and must complete or release it. */
+        ACQUIRED,
+        /** Another request with the same key has not finished yet. */
+        IN_PROGRESS,
+        /** A request with the same key already finished; its response is attached. */
+        COMPLETED,
+        /** The key was used before for a different request. */
+        MISMATCH
+    }
+
+    public static IdempotencyClaim of(Outcome outcome) {
+        return new IdempotencyClaim(outcome, 0, null);
+    }
+
+    public static IdempotencyClaim completed(int responseStatus, String responseBody) {
+        return new IdempotencyClaim(Outcome.COMPLETED, responseStatus, responseBody);
+    }
+}
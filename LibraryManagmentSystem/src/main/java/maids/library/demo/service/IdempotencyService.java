@@ -0,0 +1,86 @@
+package maids.library.demo.service;
+
+import maids.library.demo.branch.BranchContext;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Service;
+
+import java.util.function.Supplier;
+
+/**
+ * Runs a request at most once per {@code Idempotency-Key}. A retry of a finished request gets
+ * the stored response back without the request being executed again.
+ */
+@Service
+public class IdempotencyService {
+    public static final String IDEMPOTENCY_KEY_HEADER = "Idempotency-Key";
+    public static final String REPLAYED_HEADER = "Idempotent-Replayed";
+    private static final int MAX_KEY_LENGTH = 255;
+
+    private final IdempotencyStore idempotencyStore;
+    private final ObjectMapper objectMapper;
+
+    public IdempotencyService(IdempotencyStore idempotencyStore, ObjectMapper objectMapper) {
+        this.idempotencyStore = idempotencyStore;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * @param key         value of the {@code Idempotency-Key} header, or {@code null} when absent
+     * @param fingerprint identifies the request the key belongs to, e.g. method and path
+     */
+    public ResponseEntity<?> execute(String key, String fingerprint, Supplier<ResponseEntity<?>> request) {
+        if (key == null) {
+            return request.get();
+        }
+        if (key.isBlank() || key.length() > MAX_KEY_LENGTH) {
+            return ResponseEntity.badRequest().build();
+        }
+
+        // The same path means a different request on another branch.
+        IdempotencyClaim claim = idempotencyStore.claim(key, BranchContext.current() + " " + fingerprint);
+        switch (claim.outcome()) {
+            case IN_PROGRESS:
+                return ResponseEntity.status(HttpStatus.CONFLICT).build();
+            case MISMATCH:
+                return ResponseEntity.unprocessableEntity().build();
+            case COMPLETED:
+                return replay(claim);
+            default:
+                break;
+        }
+
+        ResponseEntity<?> response;
+        try {
+            response = request.get();
+        } catch (RuntimeException e) {
+            idempotencyStore.release(key);
+            throw e;
+        }
+        idempotencyStore.complete(key, response.getStatusCode().value(), serialize(response.getBody()));
+        return response;
+    }
+
+    private ResponseEntity<?> replay(IdempotencyClaim claim) {
+        ResponseEntity.BodyBuilder builder = ResponseEntity.status(claim.responseStatus())
+                .header(REPLAYED_HEADER, "true");
+        if (claim.responseBody() == null) {
+            return builder.build();
+        }
+        return builder.contentType(MediaType.APPLICATION_JSON).body(claim.responseBody());
+    }
+
+    private String serialize(Object body) {
+        if (body == null) {
+            return null;
+        }
+        try {
+            return objectMapper.writeValueAsString(body);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Cannot store response for idempotent replay", e);
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package maids.library.demo.service;
+
+/**
+ * Remembers the outcome of requests sent with an {@code Idempotency-Key} header for a limited
+ * time. Implementations are selected with {@code library.idempotency.store}.
+ */
+public interface IdempotencyStore {
+
+    /**
+     * Atomically claims {@code key} for a request identified by {@code fingerprint}.
+     */
+    IdempotencyClaim claim(String key, String fingerprint);
+
+    void complete(String key, int responseStatus, String responseBody);
+
+    /**
+     * Gives up a claimed key so that a retry runs the request again.
+     */
+    void release(String key);
+}
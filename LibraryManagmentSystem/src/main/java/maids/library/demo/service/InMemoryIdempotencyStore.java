@@ -0,0 +1,84 @@
+package maids.library.demo.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Keeps idempotency keys in insertion order, so expired entries are always at the head and the
+ * map never grows beyond {@code library.idempotency.max-entries}.
+ */
+@Component
+@ConditionalOnProperty(name = "library.idempotency.store", havingValue = "memory", matchIfMissing = true)
+public class InMemoryIdempotencyStore implements IdempotencyStore {
+    private final long ttlMillis;
+    private final Map<String, Entry> entries;
+
+    public InMemoryIdempotencyStore(@Value("${library.idempotency.ttl-minutes:1440}") long ttlMinutes,
+                                    @Value("${library.idempotency.max-entries:100000}") int maxEntries) {
+        this.ttlMillis = ttlMinutes * 60_000;
+        this.entries = new LinkedHashMap<>() {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    @Override
+    public synchronized IdempotencyClaim claim(String key, String fingerprint) {
+        long now = System.currentTimeMillis();
+        evictExpired(now);
+        Entry entry = entries.get(key);
+        if (entry == null) {
+            entries.put(key, new Entry(fingerprint, now + ttlMillis));
+            return IdempotencyClaim.of(IdempotencyClaim.Outcome.ACQUIRED);
+        }
+        if (!entry.fingerprint.equals(fingerprint)) {
+            return IdempotencyClaim.of(IdempotencyClaim.Outcome.MISMATCH);
+        }
+        if (!entry.completed) {
+            return IdempotencyClaim.of(IdempotencyClaim.Outcome.IN_PROGRESS);
+        }
+        return IdempotencyClaim.completed(entry.responseStatus, entry.responseBody);
+    }
+
+    @Override
+    public synchronized void complete(String key, int responseStatus, String responseBody) {
+        Entry entry = entries.get(key);
+        if (entry != null) {
+            entry.completed = true;
+            entry.responseStatus = responseStatus;
+            entry.responseBody = responseBody;
+        }
+    }
+
+    @Override
+    public synchronized void release(String key) {
+        entries.remove(key);
+    }
+
+    private void evictExpired(long now) {
+        Iterator<Entry> iterator = entries.values().iterator();
+        while (iterator.hasNext() && iterator.next().expiresAt <= now) {
+            iterator.remove();
+        }
+    }
+
+    private static final class Entry {
+        private final String fingerprint;
+        private final long expiresAt;
+        private boolean completed;
+        private int responseStatus;
+        private String responseBody;
+
+        private Entry(String fingerprint, long expiresAt) {
+            this.fingerprint = fingerprint;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
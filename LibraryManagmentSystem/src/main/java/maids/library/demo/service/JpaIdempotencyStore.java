@@ -0,0 +1,98 @@
+package maids.library.demo.service;
+
+import maids.library.demo.branch.Branches;
+import maids.library.demo.model.entity.IdempotencyRecord;
+import maids.library.demo.repository.IdempotencyRecordCrudRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Optional;
+
+/**
+ * Stores idempotency keys in the {@code idempotency_record} table so that retries are recognised
+ * by every application instance. Each call runs in its own transaction, independent of the
+ * request's transaction, and concurrent claims of one key are settled by the primary key.
+ */
+@Component
+@ConditionalOnProperty(name = "library.idempotency.store", havingValue = "database")
+public class JpaIdempotencyStore implements IdempotencyStore {
+    private final IdempotencyRecordCrudRepository idempotencyRecordRepository;
+    private final Branches branches;
+    private final TransactionTemplate transactionTemplate;
+    private final Duration ttl;
+
+    public JpaIdempotencyStore(IdempotencyRecordCrudRepository idempotencyRecordRepository,
+                               Branches branches,
+                               PlatformTransactionManager transactionManager,
+                               @Value("${library.idempotency.ttl-minutes:1440}") long ttlMinutes) {
+        this.idempotencyRecordRepository = idempotencyRecordRepository;
+        this.branches = branches;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.ttl = Duration.ofMinutes(ttlMinutes);
+    }
+
+    @Override
+    public IdempotencyClaim claim(String key, String fingerprint) {
+        try {
+            return transactionTemplate.execute(status -> {
+                Instant now = Instant.now();
+                Optional<IdempotencyRecord> existing = idempotencyRecordRepository.findById(key)
+                        .filter(record -> record.getExpiresAt().isAfter(now));
+                if (existing.isPresent()) {
+                    return toClaim(existing.get(), fingerprint);
+                }
+                idempotencyRecordRepository.saveAndFlush(IdempotencyRecord.builder()
+                        .key(key)
+                        .fingerprint(fingerprint)
+                        .expiresAt(now.plus(ttl))
+                        .build());
+                return IdempotencyClaim.of(IdempotencyClaim.Outcome.ACQUIRED);
+            });
+        } catch (DataIntegrityViolationException e) {
+            // Lost the race for the key; report whatever the winner stored.
+            return transactionTemplate.execute(status -> idempotencyRecordRepository.findById(key)
+                    .map(record -> toClaim(record, fingerprint))
+                    .orElse(IdempotencyClaim.of(IdempotencyClaim.Outcome.IN_PROGRESS)));
+        }
+    }
+
+    @Override
+    public void complete(String key, int responseStatus, String responseBody) {
+        transactionTemplate.executeWithoutResult(status -> idempotencyRecordRepository.findById(key)
+                .ifPresent(record -> {
+                    record.setCompleted(true);
+                    record.setResponseStatus(responseStatus);
+                    record.setResponseBody(responseBody);
+                }));
+    }
+
+    @Override
+    public void release(String key) {
+        transactionTemplate.executeWithoutResult(status -> idempotencyRecordRepository.deleteById(key));
+    }
+
+    @Scheduled(fixedDelayString = "${library.idempotency.cleanup-interval-ms:600000}")
+    public void deleteExpired() {
+        branches.forEach("delete expired idempotency records", () -> transactionTemplate.executeWithoutResult(
+                status -> idempotencyRecordRepository.deleteExpired(Instant.now())));
+    }
+
+    private static IdempotencyClaim toClaim(IdempotencyRecord record, String fingerprint) {
+        if (!record.getFingerprint().equals(fingerprint)) {
+            return IdempotencyClaim.of(IdempotencyClaim.Outcome.MISMATCH);
+        }
+        if (!record.isCompleted()) {
+            return IdempotencyClaim.of(IdempotencyClaim.Outcome.IN_PROGRESS);
+        }
+        return IdempotencyClaim.completed(record.getResponseStatus(), record.getResponseBody());
+    }
+}
@@ -0,0 +1,30 @@
+package maids.library.demo.service;
+
+import jakarta.persistence.PostPersist;
+import maids.library.demo.model.entity.Book;
+import maids.library.demo.model.entity.Patron;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+
+/**
+ * Adds the id of every inserted book and patron to {@link KnownIds}, whichever code path saved
+ * it. Runs right after the insert, before the transaction commits, so a reader can never see a
+ * committed row that the sets do not know yet.
+ */
+@Component
+public class KnownIdListener {
+    private final ObjectProvider<KnownIds> knownIds;
+
+    public KnownIdListener(ObjectProvider<KnownIds> knownIds) {
+        this.knownIds = knownIds;
+    }
+
+    @PostPersist
+    public void onPersist(Object entity) {
+        if (entity instanceof Book book) {
+            knownIds.getObject().bookInserted(book.getId());
+        } else if (entity instanceof Patron patron) {
+            knownIds.getObject().patronInserted(patron.getId());
+        }
+    }
+}
@@ -0,0 +1,137 @@
+package maids.library.demo.service;
+
+import maids.library.demo.branch.BranchContext;
+import maids.library.demo.branch.Branches;
+import maids.library.demo.event.BookChangedEvent;
+import maids.library.demo.event.ChangeType;
+import maids.library.demo.event.PatronChangedEvent;
+import maids.library.demo.event.SnapshotRestoredEvent;
+import maids.library.demo.repository.BookCrudRepository;
+import maids.library.demo.repository.PatronCrudRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiFunction;
+
+/**
+ * The ids of all existing books and patrons, so lookups of ids that do not exist are answered
+ * without a database query.
+ * <p>
+ * An id is added as soon as its row is inserted and removed only once its delete has committed,
+ * so the sets may briefly claim an id that is gone but never miss one that exists. Until the
+ * initial load has finished every id is reported as possibly present. The sets only see writes
+ * made by this instance; set {@code library.known-ids.enabled=false} when several instances
+ * share a database.
+ * <p>
+ * Every branch has its own sets; all methods work on the current branch.
+ */
+@Service
+public class KnownIds {
+    private static final Logger log = LoggerFactory.getLogger(KnownIds.class);
+
+    private final BookCrudRepository bookRepository;
+    private final PatronCrudRepository patronRepository;
+    private final Branches branches;
+    private final boolean enabled;
+    private final int loadPageSize;
+    private final ConcurrentHashMap<String, BranchIds> branchIds = new ConcurrentHashMap<>();
+
+    public KnownIds(BookCrudRepository bookRepository,
+                    PatronCrudRepository patronRepository,
+                    Branches branches,
+                    @Value("${library.known-ids.enabled:true}") boolean enabled,
+                    @Value("${library.known-ids.load-page-size:10000}") int loadPageSize) {
+        this.bookRepository = bookRepository;
+        this.patronRepository = patronRepository;
+        this.branches = branches;
+        this.enabled = enabled;
+        this.loadPageSize = loadPageSize;
+    }
+
+    public boolean mightContainBook(long id) {
+        BranchIds ids = current();
+        return !ids.loaded || ids.books.mightContain(id);
+    }
+
+    public boolean mightContainPatron(long id) {
+        BranchIds ids = current();
+        return !ids.loaded || ids.patrons.mightContain(id);
+    }
+
+    void bookInserted(long id) {
+        current().books.add(id);
+    }
+
+    void patronInserted(long id) {
+        current().patrons.add(id);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadAll() {
+        branches.forEach("load known ids", this::load);
+    }
+
+    /**
+     * Loads the ids of the current branch.
+     */
+    @EventListener(SnapshotRestoredEvent.class)
+    public void load() {
+        if (!enabled) {
+            return;
+        }
+        BranchIds ids = current();
+        int bookCount = load(ids.books, (afterId, page) -> bookRepository.findIdsAfter(afterId, page));
+        int patronCount = load(ids.patrons, (afterId, page) -> patronRepository.findIdsAfter(afterId, page));
+        ids.loaded = true;
+        log.info("Loaded {} book ids and {} patron ids of branch {}", bookCount, patronCount, BranchContext.current());
+    }
+
+    @TransactionalEventListener
+    public void onBookChanged(BookChangedEvent event) {
+        if (event.type() == ChangeType.DELETED) {
+            current().books.remove(event.bookId());
+        }
+    }
+
+    @TransactionalEventListener
+    public void onPatronChanged(PatronChangedEvent event) {
+        if (event.type() == ChangeType.DELETED) {
+            current().patrons.remove(event.patronId());
+        }
+    }
+
+    private int load(IdBitmap target, BiFunction<Long, PageRequest, List<Long>> nextPage) {
+        int count = 0;
+        long afterId = 0;
+        List<Long> ids;
+        do {
+            ids = nextPage.apply(afterId, PageRequest.of(0, loadPageSize));
+            for (Long id : ids) {
+                target.add(id);
+            }
+            count += ids.size();
+            if (!ids.isEmpty()) {
+                afterId = ids.get(ids.size() - 1);
+            }
+        } while (ids.size() == loadPageSize);
+        return count;
+    }
+
+    private BranchIds current() {
+        return branchIds.computeIfAbsent(BranchContext.current(), branch -> new BranchIds());
+    }
+
+    private static final class BranchIds {
+        private final IdBitmap books = new IdBitmap();
+        private final IdBitmap patrons = new IdBitmap();
+        private volatile boolean loaded;
+    }
+}
@@ -1,24 +1,51 @@
 package maids.library.demo.service;
 
+import maids.library.demo.event.BookBorrowedEvent;
+import maids.library.demo.event.BookChangedEvent;
+import maids.library.demo.event.BookReturnedEvent;
+import maids.library.demo.event.ChangeType;
+import maids.library.demo.event.HoldFulfilledEvent;
+import maids.library.demo.event.PatronChangedEvent;
 import maids.library.demo.exception.BookNotFoundException;
 import maids.library.demo.exception.BorrowingRecordNotFoundException;
 import maids.library.demo.exception.PatronNotFoundException;
 import maids.library.demo.model.entity.Book;
+import maids.library.demo.model.dto.BookPage;
+import maids.library.demo.model.dto.LoanHistoryEntry;
+import maids.library.demo.model.dto.MultiGetResponse;
 import maids.library.demo.model.entity.BorrowingRecord;
 import maids.library.demo.model.entity.Patron;
+import maids.library.demo.model.projection.LoanSnapshot;
+import maids.library.demo.repository.ArchivedBorrowingRecordCrudRepository;
 import maids.library.demo.repository.BookCrudRepository;
 import maids.library.demo.repository.BorrowingRecordCrudRepository;
 import maids.library.demo.repository.PatronCrudRepository;
+import maids.library.demo.repository.SparseFieldRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
 
 @Service
 @Transactional
 public class LibraryService {
+    /**
+     * Upper bound on ids sent in a single IN list; some databases reject or mis-plan longer lists.
+     */
+    static final int ID_CHUNK_SIZE = 500;
+    static final int MIN_YEAR = -9999;
+    static final int MAX_YEAR = 9999;
+
     @Autowired
     private final BookCrudRepository bookRepository;
     @Autowired
@@ -27,10 +54,42 @@ public class LibraryService {
     @Autowired
     private final BorrowingRecordCrudRepository borrowingRecordRepository;
 
-    public LibraryService(BookCrudRepository bookRepository, PatronCrudRepository patronRepository, BorrowingRecordCrudRepository borrowingRecordRepository) {
+    @Autowired
+    private final ArchivedBorrowingRecordCrudRepository archivedRecordRepository;
+
+    @Autowired
+    private final HoldService holdService;
+
+    @Autowired
+    private final LoanLimitService loanLimitService;
+
+    @Autowired
+    private final KnownIds knownIds;
+
+    @Autowired
+    private final FineService fineService;
+
+    @Autowired
+    private final SparseFieldRepository sparseFieldRepository;
+
+    @Autowired
+    private final NotificationOutbox notificationOutbox;
+
+    @Autowired
+    private final ApplicationEventPublisher eventPublisher;
+
+    public LibraryService(BookCrudRepository bookRepository, PatronCrudRepository patronRepository, BorrowingRecordCrudRepository borrowingRecordRepository, ArchivedBorrowingRecordCrudRepository archivedRecordRepository, HoldService holdService, LoanLimitService loanLimitService, KnownIds knownIds, FineService fineService, SparseFieldRepository sparseFieldRepository, NotificationOutbox notificationOutbox, ApplicationEventPublisher eventPublisher) {
         this.bookRepository = bookRepository;
         this.patronRepository = patronRepository;
         this.borrowingRecordRepository = borrowingRecordRepository;
+        this.archivedRecordRepository = archivedRecordRepository;
+        this.holdService = holdService;
+        this.loanLimitService = loanLimitService;
+        this.knownIds = knownIds;
+        this.fineService = fineService;
+        this.sparseFieldRepository = sparseFieldRepository;
+        this.notificationOutbox = notificationOutbox;
+        this.eventPublisher = eventPublisher;
     }
 
     public List<Book> getAllBooks() {
@@ -39,14 +98,79 @@ public class LibraryService {
 
 
     public Book getBookById(Long id) {
+        if (!knownIds.mightContainBook(id)) {
+            throw BookNotFoundException.builder()
+                    .message("Book not found with id: " + id)
+                    .build();
+        }
         return bookRepository.findById(id)
                 .orElseThrow(() -> BookNotFoundException.builder()
                         .message("Book not found with id: " + id)
                         .build());
     }
 
+    @Transactional(readOnly = true)
+    public MultiGetResponse<Book> getBooksByIds(List<Long> ids) {
+        return findAllInOrder(ids, bookRepository::findAllById, Book::getId);
+    }
+
+    /**
+     * One page of books published between two years, optionally by a single author, in year and
+     * id order. Null bounds are open and a null cursor starts at the first page. Books whose year
+     * has not been migrated yet are not listed.
+     */
+    @Transactional(readOnly = true)
+    public BookPage browseBooks(String author, Integer yearFrom, Integer yearTo, Integer afterYear, Long afterId, int limit) {
+        int from = yearFrom != null ? yearFrom : MIN_YEAR;
+        int to = yearTo != null ? yearTo : MAX_YEAR;
+        int cursorYear = afterYear != null ? afterYear : from;
+        long cursorId = afterId != null ? afterId : 0;
+        PageRequest page = PageRequest.of(0, limit + 1);
+        List<Book> books = author != null
+                ? bookRepository.findByAuthorAndYearRange(author, from, to, cursorYear, cursorId, page)
+                : bookRepository.findByYearRange(from, to, cursorYear, cursorId, page);
+        if (books.size() <= limit) {
+            return BookPage.builder().books(books).build();
+        }
+        Book last = books.get(limit - 1);
+        return BookPage.builder()
+                .books(books.subList(0, limit))
+                .nextAfterYear(last.getPublicationYear())
+                .nextAfterId(last.getId())
+                .build();
+    }
+
+    /**
+     * Sparse fieldset variants read only the selected columns; see {@link FieldSelection}.
+     */
+    @Transactional(readOnly = true)
+    public List<Map<String, Object>> getAllBooks(List<String> fields) {
+        return sparseFieldRepository.findAll(Book.class, fields);
+    }
+
+    @Transactional(readOnly = true)
+    public Map<String, Object> getBookById(Long id, List<String> fields) {
+        List<Map<String, Object>> rows = knownIds.mightContainBook(id)
+                ? sparseFieldRepository.findAllById(Book.class, fields, List.of(id))
+                : List.of();
+        if (rows.isEmpty()) {
+            throw BookNotFoundException.builder()
+                    .message("Book not found with id: " + id)
+                    .build();
+        }
+        return rows.get(0);
+    }
+
+    @Transactional(readOnly = true)
+    public MultiGetResponse<Map<String, Object>> getBooksByIds(List<Long> ids, List<String> fields) {
+        return findAllInOrder(ids, chunk -> sparseFieldRepository.findAllById(Book.class, fields, chunk),
+                row -> (Long) row.get("id"));
+    }
+
     public Book addBook(Book book) {
-        return bookRepository.save(book);
+        Book savedBook = bookRepository.save(book);
+        publishBookChanged(ChangeType.CREATED, savedBook);
+        return savedBook;
     }
 
     public Book updateBook(Long id, Book updatedBook) {
@@ -60,7 +184,9 @@ public class LibraryService {
         existingBook.setPublicationYear(updatedBook.getPublicationYear());
         existingBook.setIsbn(updatedBook.getIsbn());
 
-        return bookRepository.save(existingBook);
+        Book savedBook = bookRepository.save(existingBook);
+        publishBookChanged(ChangeType.UPDATED, savedBook);
+        return savedBook;
     }
 
     public void deleteBook(Long id) {
@@ -68,7 +194,8 @@ public class LibraryService {
                 .orElseThrow(() -> BookNotFoundException.builder().message("Book not found with id: " + id)
                         .build());
 
-        bookRepository.deleteById(id);
+        bookRepository.delete(existingBook);
+        publishBookChanged(ChangeType.DELETED, existingBook);
     }
 
     public List<Patron> getAllPatrons() {
@@ -76,14 +203,50 @@ public class LibraryService {
     }
 
     public Patron getPatronById(Long id) {
+        if (!knownIds.mightContainPatron(id)) {
+            throw PatronNotFoundException.builder()
+                    .message("Patron not found with id: " + id)
+                    .build();
+        }
         return patronRepository.findById(id)
                 .orElseThrow(() -> PatronNotFoundException
-                .builder().message("Book not found with id: " + id)
+                .builder().message("Patron not found with id: " + id)
                 .build());
     }
 
+    @Transactional(readOnly = true)
+    public MultiGetResponse<Patron> getPatronsByIds(List<Long> ids) {
+        return findAllInOrder(ids, patronRepository::findAllById, Patron::getId);
+    }
+
+    @Transactional(readOnly = true)
+    public List<Map<String, Object>> getAllPatrons(List<String> fields) {
+        return sparseFieldRepository.findAll(Patron.class, fields);
+    }
+
+    @Transactional(readOnly = true)
+    public Map<String, Object> getPatronById(Long id, List<String> fields) {
+        List<Map<String, Object>> rows = knownIds.mightContainPatron(id)
+                ? sparseFieldRepository.findAllById(Patron.class, fields, List.of(id))
+                : List.of();
+        if (rows.isEmpty()) {
+            throw PatronNotFoundException.builder()
+                    .message("Patron not found with id: " + id)
+                    .build();
+        }
+        return rows.get(0);
+    }
+
+    @Transactional(readOnly = true)
+    public MultiGetResponse<Map<String, Object>> getPatronsByIds(List<Long> ids, List<String> fields) {
+        return findAllInOrder(ids, chunk -> sparseFieldRepository.findAllById(Patron.class, fields, chunk),
+                row -> (Long) row.get("id"));
+    }
+
     public Patron addPatron(Patron patron) {
-        return patronRepository.save(patron);
+        Patron savedPatron = patronRepository.save(patron);
+        eventPublisher.publishEvent(new PatronChangedEvent(ChangeType.CREATED, savedPatron.getId()));
+        return savedPatron;
     }
 
     public Patron updatePatron(Long id, Patron updatedPatron) {
@@ -93,7 +256,9 @@ public class LibraryService {
         existingPatron.setName(updatedPatron.getName());
         existingPatron.setContactInformation(updatedPatron.getContactInformation());
 
-        return patronRepository.save(existingPatron);
+        Patron savedPatron = patronRepository.save(existingPatron);
+        eventPublisher.publishEvent(new PatronChangedEvent(ChangeType.UPDATED, id));
+        return savedPatron;
     }
 
     public void deletePatron(Long id) {
@@ -101,6 +266,7 @@ public class LibraryService {
                 .orElseThrow(() -> new PatronNotFoundException("Patron not found with id: " + id));
 
         patronRepository.deleteById(id);
+        eventPublisher.publishEvent(new PatronChangedEvent(ChangeType.DELETED, id));
     }
 
     public BorrowingRecord borrowBook(Long bookId, Long patronId) {
@@ -116,12 +282,8 @@ public class LibraryService {
                                 .message("Patron not found with id: " + patronId)
                                 .build());
 
-        BorrowingRecord borrowingRecord = BorrowingRecord.builder()
-                .book(book)
-                .patron(patron)
-                .build();
-
-       return borrowingRecordRepository.save(borrowingRecord);
+        loanLimitService.reserve(patronId);
+        return createLoan(book, patron);
     }
 
 
@@ -143,6 +305,108 @@ public class LibraryService {
 
         borrowingRecord.setReturnDate(LocalDate.now());
         borrowingRecordRepository.save(borrowingRecord);
+        fineService.settle(borrowingRecord);
+        notificationOutbox.loanReturned(borrowingRecord.getId());
+        loanLimitService.release(patronId);
+        eventPublisher.publishEvent(new BookReturnedEvent(borrowingRecord.getId(), bookId, patronId,
+                borrowingRecord.getBorrowingDate(), borrowingRecord.getReturnDate(), book.getAuthor(), patron.getMemberSince()));
+
+        // The returned copy is lent to the oldest waiting hold in the same transaction as the
+        // return, so the hold is fulfilled exactly when the return commits. borrowBook does not
+        // check holds, so this orders the queue but does not keep other patrons from borrowing
+        // the book. Patrons at their loan limit keep their place in the queue.
+        holdService.claimNextHold(bookId, loanLimitService::tryReserve).ifPresent(hold -> {
+            BorrowingRecord loan = createLoan(book, patronRepository.getReferenceById(hold.patronId()));
+            eventPublisher.publishEvent(new HoldFulfilledEvent(hold.holdId(), bookId, hold.patronId(), loan != null ? loan.getId() : null));
+            notificationOutbox.holdReady(loan != null ? loan.getId() : null, bookId, hold.patronId(), LocalDate.now());
+        });
+    }
+
+    private BorrowingRecord createLoan(Book book, Patron patron) {
+        BorrowingRecord borrowingRecord = BorrowingRecord.builder()
+                .book(book)
+                .patron(patron)
+                .borrowingDate(LocalDate.now())
+                .build();
+
+        BorrowingRecord savedRecord = borrowingRecordRepository.save(borrowingRecord);
+        eventPublisher.publishEvent(new BookBorrowedEvent(borrowingRecord.getId(), book.getId(), patron.getId(),
+                borrowingRecord.getBorrowingDate(), book.getAuthor(), patron.getMemberSince()));
+        notificationOutbox.loanCreated(borrowingRecord.getId(), book.getId(), patron.getId(), borrowingRecord.getBorrowingDate());
+        return savedRecord;
+    }
+
+    @Transactional(readOnly = true)
+    public List<LoanHistoryEntry> getBorrowingHistoryForPatron(Long patronId) {
+        if (!patronRepository.existsById(patronId)) {
+            throw PatronNotFoundException.builder()
+                    .message("Patron not found with id: " + patronId)
+                    .build();
+        }
+        return mergeHistory(borrowingRecordRepository.findHistoryByPatronId(patronId),
+                archivedRecordRepository.findHistoryByPatronId(patronId));
+    }
+
+    @Transactional(readOnly = true)
+    public List<LoanHistoryEntry> getBorrowingHistoryForBook(Long bookId) {
+        if (!bookRepository.existsById(bookId)) {
+            throw BookNotFoundException.builder()
+                    .message("Book not found with id: " + bookId)
+                    .build();
+        }
+        return mergeHistory(borrowingRecordRepository.findHistoryByBookId(bookId),
+                archivedRecordRepository.findHistoryByBookId(bookId));
+    }
+
+    private List<LoanHistoryEntry> mergeHistory(List<LoanSnapshot> active, List<LoanSnapshot> archived) {
+        List<LoanHistoryEntry> history = new ArrayList<>(active.size() + archived.size());
+        active.forEach(loan -> history.add(toHistoryEntry(loan, false)));
+        archived.forEach(loan -> history.add(toHistoryEntry(loan, true)));
+        history.sort(Comparator.comparing(LoanHistoryEntry::getBorrowingRecordId).reversed());
+        return history;
+    }
+
+    private LoanHistoryEntry toHistoryEntry(LoanSnapshot loan, boolean archived) {
+        return LoanHistoryEntry.builder()
+                .borrowingRecordId(loan.getId())
+                .bookId(loan.getBookId())
+                .patronId(loan.getPatronId())
+                .borrowingDate(loan.getBorrowingDate())
+                .returnDate(loan.getReturnDate())
+                .archived(archived)
+                .build();
+    }
+
+    private void publishBookChanged(ChangeType type, Book book) {
+        eventPublisher.publishEvent(new BookChangedEvent(type, book.getId(), book.getTitle(), book.getAuthor()));
+    }
+
+    private <T> MultiGetResponse<T> findAllInOrder(List<Long> ids,
+                                                   Function<List<Long>, List<T>> finder,
+                                                   Function<T, Long> idOf) {
+        List<Long> distinctIds = new ArrayList<>(new LinkedHashSet<>(ids));
+        Map<Long, T> found = new HashMap<>();
+        for (int from = 0; from < distinctIds.size(); from += ID_CHUNK_SIZE) {
+            List<Long> chunk = distinctIds.subList(from, Math.min(from + ID_CHUNK_SIZE, distinctIds.size()));
+            for (T entity : finder.apply(chunk)) {
+                found.put(idOf.apply(entity), entity);
+            }
+        }
+
+        List<T> items = new ArrayList<>(found.size());
+        List<Long> missingIds = new ArrayList<>();
+        for (Long id : distinctIds) {
+            T entity = found.get(id);
+            if (entity != null) {
+                items.add(entity);
+            } else {
+                missingIds.add(id);
+            }
+        }
+        return MultiGetResponse.<T>builder()
+                .items(items)
+                .missingIds(missingIds)
+                .build();
     }
 
-}
\ No newline at end of file
+}
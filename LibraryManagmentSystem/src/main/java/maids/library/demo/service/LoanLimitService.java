@@ -0,0 +1,86 @@
+package maids.library.demo.service;
+
+import maids.library.demo.branch.Branches;
+import maids.library.demo.exception.LoanLimitExceededException;
+import maids.library.demo.repository.PatronCrudRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Caps the number of loans a patron can have open at once, using the counter on the patron row.
+ * Taking a slot is a single conditional update, so the limit check needs no count over the
+ * borrowing records and two concurrent borrows cannot both pass it.
+ */
+@Service
+public class LoanLimitService {
+    private static final Logger log = LoggerFactory.getLogger(LoanLimitService.class);
+
+    private final PatronCrudRepository patronRepository;
+    private final Branches branches;
+    private final TransactionTemplate transactionTemplate;
+    private final int maxActiveLoans;
+    private final int reconcileBatchSize;
+
+    public LoanLimitService(PatronCrudRepository patronRepository,
+                            Branches branches,
+                            PlatformTransactionManager transactionManager,
+                            @Value("${library.loans.max-active-per-patron:10}") int maxActiveLoans,
+                            @Value("${library.loans.reconcile-batch-size:1000}") int reconcileBatchSize) {
+        this.patronRepository = patronRepository;
+        this.branches = branches;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.maxActiveLoans = maxActiveLoans;
+        this.reconcileBatchSize = reconcileBatchSize;
+    }
+
+    public int getMaxActiveLoans() {
+        return maxActiveLoans;
+    }
+
+    /**
+     * Takes a loan slot for the patron in the caller's transaction.
+     */
+    public void reserve(Long patronId) {
+        if (!tryReserve(patronId)) {
+            throw LoanLimitExceededException.builder()
+                    .message("Patron " + patronId + " already has " + maxActiveLoans + " books on loan")
+                    .build();
+        }
+    }
+
+    public boolean tryReserve(Long patronId) {
+        return patronRepository.tryIncrementActiveLoans(patronId, maxActiveLoans) == 1;
+    }
+
+    public void release(Long patronId) {
+        patronRepository.decrementActiveLoans(patronId);
+    }
+
+    @Scheduled(cron = "${library.loans.reconcile-cron:0 0 3 * * *}")
+    public void reconcileOnSchedule() {
+        branches.forEach("reconcile the active loan counters", this::reconcile);
+    }
+
+    /**
+     * Recomputes the counters of the current branch from the open borrowing records, one id range per transaction so
+     * patron rows are only locked briefly.
+     */
+    public long reconcile() {
+        long maxId = patronRepository.findMaxId().orElse(0L);
+        long repaired = 0;
+        for (long afterId = 0; afterId < maxId; afterId += reconcileBatchSize) {
+            long from = afterId;
+            long to = Math.min(afterId + reconcileBatchSize, maxId);
+            repaired += transactionTemplate.execute(status -> patronRepository.reconcileActiveLoans(from, to));
+        }
+        if (repaired > 0) {
+            log.warn("Repaired the active loan counter of {} patrons", repaired);
+        }
+        return repaired;
+    }
+}
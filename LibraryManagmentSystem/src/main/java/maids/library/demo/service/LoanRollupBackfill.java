@@ -0,0 +1,188 @@
+package maids.library.demo.service;
+
+import maids.library.demo.branch.BranchContext;
+import maids.library.demo.model.dto.RollupBackfillResult;
+import maids.library.demo.model.entity.LoanDailyRollup;
+import maids.library.demo.model.entity.LoanRollupKey;
+import maids.library.demo.model.projection.LoanFact;
+import maids.library.demo.repository.ArchivedBorrowingRecordCrudRepository;
+import maids.library.demo.repository.BorrowingRecordCrudRepository;
+import maids.library.demo.repository.LoanDailyRollupCrudRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+/**
+ * Rebuilds the daily loan rollups from the full loan history, hot and archived. The history is
+ * split into date ranges that are read and aggregated in parallel on a fork-join pool, then the
+ * partial results are merged pairwise.
+ * <p>
+ * Only days before today are rebuilt and replaced. Today's row is left to the incremental updates,
+ * since loans and returns keep arriving for it while the backfill runs.
+ */
+@Service
+public class LoanRollupBackfill {
+    private static final Logger log = LoggerFactory.getLogger(LoanRollupBackfill.class);
+
+    private final BorrowingRecordCrudRepository borrowingRecordRepository;
+    private final ArchivedBorrowingRecordCrudRepository archivedRecordRepository;
+    private final LoanDailyRollupCrudRepository rollupRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final TransactionTemplate readTransaction;
+    private final int parallelism;
+    private final int partitionDays;
+    private final int writeBatchSize;
+
+    public LoanRollupBackfill(BorrowingRecordCrudRepository borrowingRecordRepository,
+                              ArchivedBorrowingRecordCrudRepository archivedRecordRepository,
+                              LoanDailyRollupCrudRepository rollupRepository,
+                              PlatformTransactionManager transactionManager,
+                              @Value("${library.analytics.backfill-parallelism:4}") int parallelism,
+                              @Value("${library.analytics.backfill-partition-days:31}") int partitionDays,
+                              @Value("${library.analytics.backfill-write-batch-size:1000}") int writeBatchSize) {
+        this.borrowingRecordRepository = borrowingRecordRepository;
+        this.archivedRecordRepository = archivedRecordRepository;
+        this.rollupRepository = rollupRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.readTransaction = new TransactionTemplate(transactionManager);
+        this.readTransaction.setIsolationLevel(TransactionDefinition.ISOLATION_REPEATABLE_READ);
+        this.readTransaction.setReadOnly(true);
+        this.parallelism = parallelism;
+        this.partitionDays = partitionDays;
+        this.writeBatchSize = writeBatchSize;
+    }
+
+    public synchronized RollupBackfillResult backfill() {
+        long startedAt = System.nanoTime();
+        LocalDate cutoff = LocalDate.now();
+        LocalDate first = Stream.of(borrowingRecordRepository.findFirstBorrowingDate(),
+                        archivedRecordRepository.findFirstBorrowingDate())
+                .flatMap(Optional::stream)
+                .min(LocalDate::compareTo)
+                .orElse(cutoff);
+
+        AtomicInteger partitions = new AtomicInteger();
+        Map<LoanRollupKey, long[]> totals;
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            totals = first.isBefore(cutoff)
+                    ? pool.invoke(new RangeTask(BranchContext.current(), first, cutoff, partitions))
+                    : new HashMap<>();
+        } finally {
+            pool.shutdown();
+        }
+
+        List<LoanDailyRollup> rows = new ArrayList<>(totals.size());
+        totals.forEach((key, counters) -> rows.add(LoanDailyRollup.builder()
+                .key(key)
+                .loanCount(counters[0])
+                .returnCount(counters[1])
+                .loanDays(counters[2])
+                .build()));
+        transactionTemplate.executeWithoutResult(status -> {
+            rollupRepository.deleteBefore(cutoff);
+            for (int from = 0; from < rows.size(); from += writeBatchSize) {
+                rollupRepository.saveAll(rows.subList(from, Math.min(from + writeBatchSize, rows.size())));
+                rollupRepository.flush();
+            }
+        });
+
+        long millis = (System.nanoTime() - startedAt) / 1_000_000;
+        log.info("Rebuilt {} loan rollup rows from {} to {} in {} partitions in {} ms",
+                rows.size(), first, cutoff, partitions.get(), millis);
+        return RollupBackfillResult.builder()
+                .from(first)
+                .to(cutoff.minusDays(1))
+                .partitions(partitions.get())
+                .rows(rows.size())
+                .millis(millis)
+                .build();
+    }
+
+    /**
+     * Reads the hot and archived loans of a range from one snapshot, so a loan the archiver moves
+     * meanwhile is counted in exactly one of the tables.
+     */
+    private Map<LoanRollupKey, long[]> aggregate(LocalDate from, LocalDate to) {
+        return readTransaction.execute(status -> aggregateInSnapshot(from, to));
+    }
+
+    private Map<LoanRollupKey, long[]> aggregateInSnapshot(LocalDate from, LocalDate to) {
+        Map<LoanRollupKey, long[]> totals = new HashMap<>();
+        for (List<LoanFact> borrowed : List.of(borrowingRecordRepository.findBorrowedBetween(from, to),
+                archivedRecordRepository.findBorrowedBetween(from, to))) {
+            for (LoanFact loan : borrowed) {
+                counters(totals, loan.getBorrowingDate(), loan)[0]++;
+            }
+        }
+        for (List<LoanFact> returned : List.of(borrowingRecordRepository.findReturnedBetween(from, to),
+                archivedRecordRepository.findReturnedBetween(from, to))) {
+            for (LoanFact loan : returned) {
+                long[] counters = counters(totals, loan.getReturnDate(), loan);
+                counters[1]++;
+                counters[2] += LoanRollupUpdater.loanDays(loan.getBorrowingDate(), loan.getReturnDate());
+            }
+        }
+        return totals;
+    }
+
+    private static long[] counters(Map<LoanRollupKey, long[]> totals, LocalDate day, LoanFact loan) {
+        LoanRollupKey key = new LoanRollupKey(day, LoanRollupUpdater.authorOf(loan.getAuthor()),
+                LoanRollupUpdater.cohortOf(loan.getMemberSince()));
+        return totals.computeIfAbsent(key, k -> new long[3]);
+    }
+
+    /**
+     * Carries the branch along, since a range may be computed by any worker of the pool.
+     */
+    private final class RangeTask extends RecursiveTask<Map<LoanRollupKey, long[]>> {
+        private final String branch;
+        private final LocalDate from;
+        private final LocalDate to;
+        private final AtomicInteger partitions;
+
+        private RangeTask(String branch, LocalDate from, LocalDate to, AtomicInteger partitions) {
+            this.branch = branch;
+            this.from = from;
+            this.to = to;
+            this.partitions = partitions;
+        }
+
+        @Override
+        protected Map<LoanRollupKey, long[]> compute() {
+            long days = ChronoUnit.DAYS.between(from, to);
+            if (days <= partitionDays) {
+                partitions.incrementAndGet();
+                return BranchContext.call(branch, () -> aggregate(from, to));
+            }
+            LocalDate middle = from.plusDays(days / 2);
+            RangeTask left = new RangeTask(branch, from, middle, partitions);
+            left.fork();
+            Map<LoanRollupKey, long[]> right = new RangeTask(branch, middle, to, partitions).compute();
+            Map<LoanRollupKey, long[]> merged = left.join();
+            right.forEach((key, counters) -> merged.merge(key, counters, (a, b) -> {
+                a[0] += b[0];
+                a[1] += b[1];
+                a[2] += b[2];
+                return a;
+            }));
+            return merged;
+        }
+    }
+}
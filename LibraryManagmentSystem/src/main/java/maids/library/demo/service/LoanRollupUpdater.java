@@ -0,0 +1,59 @@
+package maids.library.demo.service;
+
+import maids.library.demo.event.BookBorrowedEvent;
+import maids.library.demo.event.BookReturnedEvent;
+import maids.library.demo.repository.LoanDailyRollupCrudRepository;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.temporal.ChronoUnit;
+
+/**
+ * Keeps the daily loan rollups current. The rollup row is upserted before the loan's transaction
+ * commits, so a loan and its rollup are written together or not at all.
+ */
+@Component
+public class LoanRollupUpdater {
+    static final String UNKNOWN = "unknown";
+
+    private final LoanDailyRollupCrudRepository rollupRepository;
+
+    public LoanRollupUpdater(LoanDailyRollupCrudRepository rollupRepository) {
+        this.rollupRepository = rollupRepository;
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.BEFORE_COMMIT)
+    public void onBookBorrowed(BookBorrowedEvent event) {
+        if (event.borrowingDate() != null) {
+            rollupRepository.increment(event.borrowingDate(), authorOf(event.author()),
+                    cohortOf(event.patronMemberSince()), 1, 0, 0);
+        }
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.BEFORE_COMMIT)
+    public void onBookReturned(BookReturnedEvent event) {
+        if (event.returnDate() != null) {
+            rollupRepository.increment(event.returnDate(), authorOf(event.author()),
+                    cohortOf(event.patronMemberSince()), 0, 1,
+                    loanDays(event.borrowingDate(), event.returnDate()));
+        }
+    }
+
+    static String authorOf(String author) {
+        return author == null || author.isBlank() ? UNKNOWN : author.trim();
+    }
+
+    /**
+     * Patrons form one cohort per month of registration, e.g. {@code 2024-09}.
+     */
+    static String cohortOf(LocalDate memberSince) {
+        return memberSince == null ? UNKNOWN : YearMonth.from(memberSince).toString();
+    }
+
+    static long loanDays(LocalDate borrowingDate, LocalDate returnDate) {
+        return borrowingDate == null ? 0 : Math.max(ChronoUnit.DAYS.between(borrowingDate, returnDate), 0);
+    }
+}
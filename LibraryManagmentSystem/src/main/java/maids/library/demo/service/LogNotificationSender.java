@@ -0,0 +1,21 @@
+package maids.library.demo.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+/**
+ * Stand-in sender that only logs the notifications, for development and tests.
+ */
+@Component
+@ConditionalOnProperty(name = "library.notifications.sender", havingValue = "log", matchIfMissing = true)
+public class LogNotificationSender implements NotificationSender {
+    private static final Logger log = LoggerFactory.getLogger(LogNotificationSender.class);
+
+    @Override
+    public void send(Notification notification) {
+        log.info("Notification {} {} to {}: {}", notification.id(), notification.type(),
+                notification.recipient(), notification.text());
+    }
+}
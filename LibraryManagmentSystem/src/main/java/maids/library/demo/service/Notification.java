@@ -0,0 +1,21 @@
+package maids.library.demo.service;
+
+import maids.library.demo.model.entity.NotificationType;
+
+import java.time.LocalDate;
+
+/**
+ * An outbox notification ready for delivery, with the recipient and book title resolved at
+ * sending time.
+ */
+public record Notification(long id, NotificationType type, String recipient, String bookTitle, LocalDate dueDate) {
+
+    public String text() {
+        return switch (type) {
+            case DUE_SOON -> "\"" + bookTitle + "\" is due on " + dueDate + ".";
+            case OVERDUE -> "\"" + bookTitle + "\" was due on " + dueDate + ". Please return it.";
+            case HOLD_READY -> "Your hold on \"" + bookTitle + "\" is ready and has been checked out to you"
+                    + (dueDate != null ? " until " + dueDate : "") + ".";
+        };
+    }
+}
@@ -0,0 +1,217 @@
+package maids.library.demo.service;
+
+import maids.library.demo.branch.BranchContext;
+import maids.library.demo.branch.Branches;
+import maids.library.demo.model.dto.NotificationDispatchResult;
+import maids.library.demo.model.entity.NotificationType;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Delivers the outbox in the background, one batch at a time.
+ * <p>
+ * A batch is claimed in a short transaction: due rows are selected {@code for update skip locked},
+ * so concurrent dispatchers on other instances pass over each other's rows instead of waiting, and
+ * stamped with a lease. The lease keeps the rows claimed after that transaction commits, while they
+ * are sent without any transaction or lock held; rows of a dispatcher that died become due again
+ * when the lease runs out. The outcomes are written back in a second transaction, only for rows
+ * still leased to this run and still pending, so a notice cancelled meanwhile stays cancelled.
+ * A failed delivery is retried with exponential backoff until {@code max-attempts} is reached.
+ */
+@Service
+public class NotificationDispatcher {
+    private static final Logger log = LoggerFactory.getLogger(NotificationDispatcher.class);
+    private static final int MAX_ERROR_LENGTH = 512;
+    private static final String SELECT_DUE = "select id from notification_outbox where status = 'PENDING' "
+            + "and not_before <= ? and (leased_until is null or leased_until < ?) "
+            + "order by not_before, id limit ? for update skip locked";
+    private static final String LEASE = "update notification_outbox set lease_owner = ?, leased_until = ? where id = ?";
+    private static final String SELECT_LEASED = "select o.id, o.type, o.due_date, o.attempts, p.contact_information, "
+            + "b.title from notification_outbox o left join patron p on p.id = o.patron_id "
+            + "left join book b on b.id = o.book_id where o.lease_owner = ? and o.status = 'PENDING' order by o.id";
+    private static final String MARK_SENT = "update notification_outbox set status = 'SENT', sent_at = ?, "
+            + "attempts = attempts + 1, last_error = null, lease_owner = null, leased_until = null "
+            + "where id = ? and lease_owner = ? and status = 'PENDING'";
+    private static final String MARK_RETRY = "update notification_outbox set not_before = ?, "
+            + "attempts = attempts + 1, last_error = ?, lease_owner = null, leased_until = null "
+            + "where id = ? and lease_owner = ? and status = 'PENDING'";
+    private static final String MARK_FAILED = "update notification_outbox set status = 'FAILED', "
+            + "attempts = attempts + 1, last_error = ?, lease_owner = null, leased_until = null "
+            + "where id = ? and lease_owner = ? and status = 'PENDING'";
+    private static final String DELETE_FINISHED = "delete from notification_outbox where status <> 'PENDING' "
+            + "and created_at < ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final NotificationSender sender;
+    private final Branches branches;
+    private final TransactionTemplate transactionTemplate;
+    private final int batchSize;
+    private final long leaseSeconds;
+    private final int maxAttempts;
+    private final long backoffBaseSeconds;
+    private final long backoffMaxSeconds;
+    private final int retentionDays;
+
+    public NotificationDispatcher(JdbcTemplate jdbcTemplate,
+                                  NotificationSender sender,
+                                  Branches branches,
+                                  PlatformTransactionManager transactionManager,
+                                  @Value("${library.notifications.batch-size:100}") int batchSize,
+                                  @Value("${library.notifications.lease-seconds:300}") long leaseSeconds,
+                                  @Value("${library.notifications.max-attempts:8}") int maxAttempts,
+                                  @Value("${library.notifications.backoff-base-seconds:30}") long backoffBaseSeconds,
+                                  @Value("${library.notifications.backoff-max-seconds:21600}") long backoffMaxSeconds,
+                                  @Value("${library.notifications.retention-days:30}") int retentionDays) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.sender = sender;
+        this.branches = branches;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.batchSize = batchSize;
+        this.leaseSeconds = leaseSeconds;
+        this.maxAttempts = maxAttempts;
+        this.backoffBaseSeconds = backoffBaseSeconds;
+        this.backoffMaxSeconds = backoffMaxSeconds;
+        this.retentionDays = retentionDays;
+    }
+
+    @Scheduled(fixedDelayString = "${library.notifications.dispatch-interval-ms:10000}",
+            initialDelayString = "${library.notifications.dispatch-interval-ms:10000}")
+    public void dispatchOnSchedule() {
+        branches.forEach("dispatch notifications", this::dispatch);
+    }
+
+    @Scheduled(cron = "${library.notifications.cleanup-cron:0 30 2 * * *}")
+    public void deleteFinishedOnSchedule() {
+        branches.forEach("delete finished notifications", () -> transactionTemplate.executeWithoutResult(status ->
+                jdbcTemplate.update(DELETE_FINISHED, Timestamp.valueOf(LocalDateTime.now().minusDays(retentionDays)))));
+    }
+
+    /**
+     * Sends every notification of the current branch that is due now.
+     */
+    public NotificationDispatchResult dispatch() {
+        long startedAt = System.nanoTime();
+        int claimed = 0;
+        int sent = 0;
+        int retried = 0;
+        int failed = 0;
+        int batches = 0;
+        int leased;
+        do {
+            String leaseOwner = UUID.randomUUID().toString();
+            leased = claim(leaseOwner);
+            if (leased == 0) {
+                break;
+            }
+            batches++;
+            claimed += leased;
+
+            List<Object[]> sentRows = new ArrayList<>();
+            List<Object[]> retryRows = new ArrayList<>();
+            List<Object[]> failedRows = new ArrayList<>();
+            for (Leased row : loadLeased(leaseOwner)) {
+                LocalDateTime now = LocalDateTime.now();
+                if (row.notification().recipient() == null || row.notification().bookTitle() == null) {
+                    failedRows.add(new Object[]{"The patron or book no longer exists", row.notification().id(), leaseOwner});
+                    continue;
+                }
+                try {
+                    sender.send(row.notification());
+                    sentRows.add(new Object[]{Timestamp.valueOf(now), row.notification().id(), leaseOwner});
+                } catch (RuntimeException e) {
+                    String error = truncate(e.getClass().getSimpleName() + ": " + e.getMessage());
+                    int attempts = row.attempts() + 1;
+                    if (attempts >= maxAttempts) {
+                        log.warn("Giving up on notification {} after {} attempts: {}", row.notification().id(), attempts, error);
+                        failedRows.add(new Object[]{error, row.notification().id(), leaseOwner});
+                    } else {
+                        retryRows.add(new Object[]{Timestamp.valueOf(now.plusSeconds(backoffSeconds(attempts))), error,
+                                row.notification().id(), leaseOwner});
+                    }
+                }
+            }
+            transactionTemplate.executeWithoutResult(status -> {
+                if (!sentRows.isEmpty()) {
+                    jdbcTemplate.batchUpdate(MARK_SENT, sentRows);
+                }
+                if (!retryRows.isEmpty()) {
+                    jdbcTemplate.batchUpdate(MARK_RETRY, retryRows);
+                }
+                if (!failedRows.isEmpty()) {
+                    jdbcTemplate.batchUpdate(MARK_FAILED, failedRows);
+                }
+            });
+            sent += sentRows.size();
+            retried += retryRows.size();
+            failed += failedRows.size();
+        } while (leased == batchSize);
+
+        long millis = (System.nanoTime() - startedAt) / 1_000_000;
+        if (claimed > 0) {
+            log.info("Dispatched {} notifications of branch {} in {} batches in {} ms: {} sent, {} to retry, {} failed",
+                    claimed, BranchContext.current(), batches, millis, sent, retried, failed);
+        }
+        return NotificationDispatchResult.builder()
+                .claimed(claimed)
+                .sent(sent)
+                .retried(retried)
+                .failed(failed)
+                .batches(batches)
+                .millis(millis)
+                .build();
+    }
+
+    /**
+     * Delay before the attempt after {@code attempts} failed ones: the base, doubled per failure, capped.
+     */
+    long backoffSeconds(int attempts) {
+        int doublings = Math.min(attempts - 1, 30);
+        return Math.min(backoffBaseSeconds << doublings, backoffMaxSeconds);
+    }
+
+    private int claim(String leaseOwner) {
+        return transactionTemplate.execute(status -> {
+            Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+            List<Long> ids = jdbcTemplate.queryForList(SELECT_DUE, Long.class, now, now, batchSize);
+            if (!ids.isEmpty()) {
+                Timestamp leasedUntil = Timestamp.valueOf(LocalDateTime.now().plusSeconds(leaseSeconds));
+                List<Object[]> leases = new ArrayList<>(ids.size());
+                for (Long id : ids) {
+                    leases.add(new Object[]{leaseOwner, leasedUntil, id});
+                }
+                jdbcTemplate.batchUpdate(LEASE, leases);
+            }
+            return ids.size();
+        });
+    }
+
+    private List<Leased> loadLeased(String leaseOwner) {
+        return jdbcTemplate.query(SELECT_LEASED, (resultSet, rowNum) -> new Leased(
+                new Notification(resultSet.getLong(1),
+                        NotificationType.valueOf(resultSet.getString(2)),
+                        resultSet.getString(5),
+                        resultSet.getString(6),
+                        resultSet.getObject(3, LocalDate.class)),
+                resultSet.getInt(4)), leaseOwner);
+    }
+
+    private static String truncate(String error) {
+        return error.length() <= MAX_ERROR_LENGTH ? error : error.substring(0, MAX_ERROR_LENGTH);
+    }
+
+    private record Leased(Notification notification, int attempts) {
+    }
+}
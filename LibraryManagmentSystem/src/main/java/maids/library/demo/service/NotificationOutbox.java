@@ -0,0 +1,82 @@
+package maids.library.demo.service;
+
+import maids.library.demo.model.entity.NotificationStatus;
+import maids.library.demo.model.entity.NotificationType;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Writes patron notifications to the {@code notification_outbox} table in the caller's
+ * transaction, so a notification exists exactly when the loan change that caused it commits.
+ * Nothing is sent here; {@link NotificationDispatcher} delivers the rows in the background.
+ * <p>
+ * Rows are written with plain JDBC, which keeps checkout at a single extra batched statement.
+ */
+@Service
+public class NotificationOutbox {
+    private static final String INSERT_NOTIFICATION = "insert into notification_outbox (type, status, "
+            + "borrowing_record_id, patron_id, book_id, due_date, not_before, attempts, created_at) "
+            + "values (?, ?, ?, ?, ?, ?, ?, 0, ?)";
+    private static final String CANCEL_LOAN_REMINDERS = "update notification_outbox set status = ? "
+            + "where borrowing_record_id = ? and status = ? and type in (?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final int loanPeriodDays;
+    private final int dueSoonDays;
+
+    public NotificationOutbox(JdbcTemplate jdbcTemplate,
+                              @Value("${library.fines.loan-period-days:14}") int loanPeriodDays,
+                              @Value("${library.notifications.due-soon-days:2}") int dueSoonDays) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.loanPeriodDays = loanPeriodDays;
+        this.dueSoonDays = dueSoonDays;
+    }
+
+    public LocalDate dueDate(LocalDate borrowingDate) {
+        return borrowingDate.plusDays(loanPeriodDays);
+    }
+
+    /**
+     * Schedules the due-soon reminder and the overdue notice of a new loan.
+     */
+    public void loanCreated(Long borrowingRecordId, Long bookId, Long patronId, LocalDate borrowingDate) {
+        LocalDateTime now = LocalDateTime.now();
+        LocalDate dueDate = dueDate(borrowingDate);
+        LocalDateTime dueSoonAt = dueDate.minusDays(dueSoonDays).atStartOfDay();
+        jdbcTemplate.batchUpdate(INSERT_NOTIFICATION, List.of(
+                row(NotificationType.DUE_SOON, borrowingRecordId, patronId, bookId, dueDate,
+                        dueSoonAt.isAfter(now) ? dueSoonAt : now, now),
+                row(NotificationType.OVERDUE, borrowingRecordId, patronId, bookId, dueDate,
+                        dueDate.plusDays(1).atStartOfDay(), now)));
+    }
+
+    /**
+     * Drops the pending reminders of a returned loan. Notices already sent stay as they are.
+     */
+    public void loanReturned(Long borrowingRecordId) {
+        jdbcTemplate.update(CANCEL_LOAN_REMINDERS, NotificationStatus.CANCELLED.name(), borrowingRecordId,
+                NotificationStatus.PENDING.name(), NotificationType.DUE_SOON.name(), NotificationType.OVERDUE.name());
+    }
+
+    /**
+     * Tells the patron of a fulfilled hold that the book is now checked out to them.
+     */
+    public void holdReady(Long borrowingRecordId, Long bookId, Long patronId, LocalDate borrowingDate) {
+        LocalDateTime now = LocalDateTime.now();
+        jdbcTemplate.update(INSERT_NOTIFICATION, row(NotificationType.HOLD_READY, borrowingRecordId, patronId, bookId,
+                dueDate(borrowingDate), now, now));
+    }
+
+    private static Object[] row(NotificationType type, Long borrowingRecordId, Long patronId, Long bookId,
+                                LocalDate dueDate, LocalDateTime notBefore, LocalDateTime createdAt) {
+        return new Object[]{type.name(), NotificationStatus.PENDING.name(), borrowingRecordId, patronId, bookId,
+                Date.valueOf(dueDate), Timestamp.valueOf(notBefore), Timestamp.valueOf(createdAt)};
+    }
+}
@@ -0,0 +1,10 @@
+package maids.library.demo.service;
+
+/**
+ * Delivers notifications to patrons. Implementations are selected with
+ * {@code library.notifications.sender}; a delivery that throws is retried with backoff.
+ */
+public interface NotificationSender {
+
+    void send(Notification notification);
+}
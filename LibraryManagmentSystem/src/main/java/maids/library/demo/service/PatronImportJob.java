@@ -0,0 +1,104 @@
+package maids.library.demo.service;
+
+import maids.library.demo.model.dto.PatronImportStatus;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Progress of one patron import. Counters are updated by the parsing request thread and the
+ * writer thread and can be read at any time.
+ */
+public class PatronImportJob {
+    public record RowError(long line, String message) {
+    }
+
+    private final String id;
+    private final int maxReportedErrors;
+    private final Instant startedAt = Instant.now();
+    private final AtomicLong rowsRead = new AtomicLong();
+    private final AtomicLong imported = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+    private final List<RowError> errors = new ArrayList<>();
+    private volatile PatronImportStatus.State state = PatronImportStatus.State.RUNNING;
+    private volatile Instant finishedAt;
+    private volatile String failure;
+
+    PatronImportJob(String id, int maxReportedErrors) {
+        this.id = id;
+        this.maxReportedErrors = maxReportedErrors;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public boolean isRunning() {
+        return state == PatronImportStatus.State.RUNNING;
+    }
+
+    public Instant getFinishedAt() {
+        return finishedAt;
+    }
+
+    void rowRead() {
+        rowsRead.incrementAndGet();
+    }
+
+    void imported(int count) {
+        imported.addAndGet(count);
+    }
+
+    /**
+     * Counts a rejected row. Only the first {@code maxReportedErrors} make it into the report.
+     */
+    void reject(long line, String message) {
+        rejected.incrementAndGet();
+        synchronized (errors) {
+            if (errors.size() < maxReportedErrors) {
+                errors.add(new RowError(line, message));
+            }
+        }
+    }
+
+    void complete() {
+        if (isRunning()) {
+            finishedAt = Instant.now();
+            state = PatronImportStatus.State.COMPLETED;
+        }
+    }
+
+    void fail(String reason) {
+        if (isRunning()) {
+            failure = reason;
+            finishedAt = Instant.now();
+            state = PatronImportStatus.State.FAILED;
+        }
+    }
+
+    public List<RowError> getErrors() {
+        synchronized (errors) {
+            return List.copyOf(errors);
+        }
+    }
+
+    public PatronImportStatus toStatus(String errorReport) {
+        Instant end = finishedAt != null ? finishedAt : Instant.now();
+        double seconds = Math.max(Duration.between(startedAt, end).toMillis(), 1) / 1000.0;
+        return PatronImportStatus.builder()
+                .jobId(id)
+                .state(state)
+                .rowsRead(rowsRead.get())
+                .imported(imported.get())
+                .rejected(rejected.get())
+                .rowsPerSecond(Math.round(imported.get() / seconds * 10) / 10.0)
+                .startedAt(startedAt)
+                .finishedAt(finishedAt)
+                .failure(failure)
+                .errorReport(rejected.get() > 0 ? errorReport : null)
+                .build();
+    }
+}
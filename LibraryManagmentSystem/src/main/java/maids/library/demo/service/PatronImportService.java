@@ -0,0 +1,263 @@
+package maids.library.demo.service;
+
+import jakarta.annotation.PreDestroy;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import maids.library.demo.branch.BranchContext;
+import maids.library.demo.event.ChangeType;
+import maids.library.demo.event.PatronChangedEvent;
+import maids.library.demo.exception.ImportJobNotFoundException;
+import maids.library.demo.model.entity.Patron;
+import maids.library.demo.repository.PatronCrudRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Imports patrons from CSV with the columns {@code name} and {@code contactInformation}.
+ * <p>
+ * The upload is parsed record by record on the request thread while it arrives, so the file is
+ * never held in memory. Valid rows are grouped into batches and handed over a small bounded
+ * queue to a writer on a background executor, which saves each batch in its own transaction.
+ * When the writer falls behind, the queue fills up and parsing, and so the upload, slows down.
+ */
+@Service
+public class PatronImportService {
+    private static final Logger log = LoggerFactory.getLogger(PatronImportService.class);
+    private static final List<Patron> END_OF_INPUT = new ArrayList<>();
+    private static final long OFFER_TIMEOUT_MILLIS = 100;
+    private static final long POLL_TIMEOUT_MILLIS = 100;
+
+    private final PatronCrudRepository patronRepository;
+    private final Validator validator;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TransactionTemplate transactionTemplate;
+    private final int batchSize;
+    private final int queueCapacity;
+    private final int maxReportedErrors;
+    private final int retainedJobs;
+    private final ExecutorService writers;
+    private final Map<String, PatronImportJob> jobs = new LinkedHashMap<>();
+
+    public PatronImportService(PatronCrudRepository patronRepository,
+                               Validator validator,
+                               ApplicationEventPublisher eventPublisher,
+                               PlatformTransactionManager transactionManager,
+                               @Value("${library.import.batch-size:500}") int batchSize,
+                               @Value("${library.import.queue-capacity:4}") int queueCapacity,
+                               @Value("${library.import.max-reported-errors:10000}") int maxReportedErrors,
+                               @Value("${library.import.retained-jobs:100}") int retainedJobs,
+                               @Value("${library.import.writer-threads:2}") int writerThreads) {
+        this.patronRepository = patronRepository;
+        this.validator = validator;
+        this.eventPublisher = eventPublisher;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.batchSize = batchSize;
+        this.queueCapacity = queueCapacity;
+        this.maxReportedErrors = maxReportedErrors;
+        this.retainedJobs = retainedJobs;
+        this.writers = Executors.newFixedThreadPool(writerThreads, runnable -> {
+            Thread thread = new Thread(runnable, "patron-import-writer");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Parses the whole input on the calling thread and returns once it is consumed; rows still
+     * queued for writing are saved in the background.
+     */
+    public PatronImportJob importCsv(InputStream input) {
+        PatronImportJob job = register();
+        BlockingQueue<List<Patron>> batches = new ArrayBlockingQueue<>(queueCapacity);
+        writers.execute(BranchContext.wrap(() -> write(job, batches)));
+        try (Reader reader = new InputStreamReader(input, StandardCharsets.UTF_8)) {
+            parse(job, new CsvReader(reader), batches);
+        } catch (IOException e) {
+            job.fail("Could not read the upload: " + e.getMessage());
+        } finally {
+            if (!hand(job, batches, END_OF_INPUT)) {
+                batches.clear();
+            }
+        }
+        return job;
+    }
+
+    public PatronImportJob getJob(String jobId) {
+        synchronized (jobs) {
+            PatronImportJob job = jobs.get(jobId);
+            if (job == null) {
+                throw ImportJobNotFoundException.builder()
+                        .message("Import job not found with id: " + jobId)
+                        .build();
+            }
+            return job;
+        }
+    }
+
+    /**
+     * The rejected rows of a job as CSV with the columns {@code line} and {@code error}.
+     */
+    public String getErrorReport(String jobId) {
+        StringBuilder report = new StringBuilder("line,error\n");
+        for (PatronImportJob.RowError error : getJob(jobId).getErrors()) {
+            report.append(error.line())
+                    .append(",\"")
+                    .append(error.message().replace("\"", "\"\""))
+                    .append("\"\n");
+        }
+        return report.toString();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        writers.shutdownNow();
+    }
+
+    private PatronImportJob register() {
+        PatronImportJob job = new PatronImportJob(UUID.randomUUID().toString(), maxReportedErrors);
+        synchronized (jobs) {
+            Iterator<PatronImportJob> oldest = jobs.values().iterator();
+            while (jobs.size() >= retainedJobs && oldest.hasNext()) {
+                if (!oldest.next().isRunning()) {
+                    oldest.remove();
+                }
+            }
+            jobs.put(job.getId(), job);
+        }
+        return job;
+    }
+
+    private void parse(PatronImportJob job, CsvReader csv, BlockingQueue<List<Patron>> batches) throws IOException {
+        List<String> header = csv.readRecord();
+        int nameColumn = header != null ? columnOf(header, "name") : -1;
+        int contactColumn = header != null ? columnOf(header, "contactinformation") : -1;
+        if (nameColumn < 0 || contactColumn < 0) {
+            job.fail("The first line must be a header with the columns name and contactInformation");
+            return;
+        }
+
+        List<Patron> batch = new ArrayList<>(batchSize);
+        List<String> record;
+        while (job.isRunning() && (record = csv.readRecord()) != null) {
+            if (record.size() == 1 && record.get(0).isBlank()) {
+                continue;
+            }
+            job.rowRead();
+            if (record.size() != header.size()) {
+                job.reject(csv.getRecordLine(), "Expected " + header.size() + " fields but found " + record.size());
+                continue;
+            }
+            Patron patron = Patron.builder()
+                    .name(record.get(nameColumn).trim())
+                    .contactInformation(record.get(contactColumn).trim())
+                    .build();
+            Set<ConstraintViolation<Patron>> violations = validator.validate(patron);
+            if (!violations.isEmpty()) {
+                job.reject(csv.getRecordLine(), violations.stream()
+                        .map(violation -> violation.getPropertyPath() + ": " + violation.getMessage())
+                        .sorted()
+                        .collect(Collectors.joining("; ")));
+                continue;
+            }
+            batch.add(patron);
+            if (batch.size() == batchSize) {
+                if (!hand(job, batches, batch)) {
+                    return;
+                }
+                batch = new ArrayList<>(batchSize);
+            }
+        }
+        if (!batch.isEmpty()) {
+            hand(job, batches, batch);
+        }
+    }
+
+    /**
+     * Blocks until the writer has room for the batch; gives up when the job has failed.
+     */
+    private boolean hand(PatronImportJob job, BlockingQueue<List<Patron>> batches, List<Patron> batch) {
+        try {
+            while (!batches.offer(batch, OFFER_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS)) {
+                if (!job.isRunning()) {
+                    return false;
+                }
+            }
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            job.fail("Interrupted while reading the upload");
+            return false;
+        }
+    }
+
+    /**
+     * Saves batches until the end of input arrives. Once the job has failed the reader may stop
+     * handing over anything, the end marker included, so the writer then returns on its own
+     * rather than waiting for it.
+     */
+    private void write(PatronImportJob job, BlockingQueue<List<Patron>> batches) {
+        try {
+            while (true) {
+                List<Patron> batch = batches.poll(POLL_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+                if (batch == END_OF_INPUT) {
+                    job.complete();
+                    log.info("Patron import {} finished: {}", job.getId(), job.toStatus(null));
+                    return;
+                }
+                if (!job.isRunning()) {
+                    return;
+                }
+                if (batch == null) {
+                    continue;
+                }
+                transactionTemplate.executeWithoutResult(status -> {
+                    for (Patron patron : patronRepository.saveAll(batch)) {
+                        eventPublisher.publishEvent(new PatronChangedEvent(ChangeType.CREATED, patron.getId()));
+                    }
+                });
+                job.imported(batch.size());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            job.fail("Interrupted while writing patrons");
+        } catch (RuntimeException e) {
+            log.error("Patron import {} failed", job.getId(), e);
+            job.fail("Writing patrons failed: " + e.getMessage());
+        }
+    }
+
+    private static int columnOf(List<String> header, String name) {
+        for (int i = 0; i < header.size(); i++) {
+            String column = header.get(i).trim().replace("_", "").replace("\uFEFF", "").toLowerCase(Locale.ROOT);
+            if (column.equals(name)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,172 @@
+package maids.library.demo.service;
+
+import maids.library.demo.branch.BranchContext;
+import maids.library.demo.branch.Branches;
+import maids.library.demo.event.SnapshotRestoredEvent;
+import maids.library.demo.model.dto.YearMigrationResult;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Fills the numeric {@code published_year} of books written while the year was text, from the
+ * legacy {@code publication_year} column.
+ * <p>
+ * Books are walked in id order, one small batch per transaction, so only the rows of the current
+ * batch are locked and only briefly; the application keeps reading and writing books meanwhile.
+ * A row is only set while its year is still null, so a year written by the application in the
+ * meantime wins. Values that hold no recognisable year are logged and left null, and such books
+ * do not show up in year browsing until they are corrected.
+ */
+@Service
+public class PublicationYearMigration {
+    private static final Logger log = LoggerFactory.getLogger(PublicationYearMigration.class);
+    private static final Pattern YEAR = Pattern.compile("-?\\d{1,4}");
+    private static final Pattern YEAR_IN_TEXT = Pattern.compile("(?<!\\d)\\d{4}(?!\\d)");
+    private static final String SELECT_UNMIGRATED = "select id, publication_year from book "
+            + "where id > ? and published_year is null order by id limit ?";
+    private static final String UPDATE_YEAR = "update book set published_year = ? where id = ? and published_year is null";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final Branches branches;
+    private final TransactionTemplate transactionTemplate;
+    private final boolean enabled;
+    private final int batchSize;
+
+    public PublicationYearMigration(JdbcTemplate jdbcTemplate,
+                                    Branches branches,
+                                    PlatformTransactionManager transactionManager,
+                                    @Value("${library.books.year-migration.enabled:true}") boolean enabled,
+                                    @Value("${library.books.year-migration.batch-size:1000}") int batchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.branches = branches;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.enabled = enabled;
+        this.batchSize = batchSize;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void migrateAllAsync() {
+        if (!enabled) {
+            return;
+        }
+        for (String branch : branches.names()) {
+            CompletableFuture.runAsync(() -> BranchContext.run(branch, this::migrate))
+                    .exceptionally(ex -> {
+                        log.error("Failed to migrate the publication years of branch {}", branch, ex);
+                        return null;
+                    });
+        }
+    }
+
+    /**
+     * A snapshot carries the legacy text year only, so restored books are converted before the
+     * restore returns.
+     */
+    @EventListener(SnapshotRestoredEvent.class)
+    public void onSnapshotRestored() {
+        if (enabled) {
+            migrate();
+        }
+    }
+
+    /**
+     * Converts every unmigrated book of the current branch.
+     */
+    public YearMigrationResult migrate() {
+        long startedAt = System.nanoTime();
+        long scanned = 0;
+        long converted = 0;
+        long unparseable = 0;
+        int batches = 0;
+        long afterId = 0;
+        Batch batch;
+        do {
+            long from = afterId;
+            batch = transactionTemplate.execute(status -> migrateBatch(from));
+            if (batch.read() == 0) {
+                break;
+            }
+            batches++;
+            scanned += batch.read();
+            converted += batch.converted();
+            unparseable += batch.rejected().size();
+            if (!batch.rejected().isEmpty()) {
+                log.warn("No publication year recognised in the legacy values of books {}", batch.rejected());
+            }
+            afterId = batch.lastId();
+        } while (batch.read() == batchSize);
+
+        long millis = (System.nanoTime() - startedAt) / 1_000_000;
+        if (scanned > 0) {
+            log.info("Migrated the publication years of {} books of branch {} in {} batches in {} ms; {} unparseable",
+                    converted, BranchContext.current(), batches, millis, unparseable);
+        }
+        return YearMigrationResult.builder()
+                .scanned(scanned)
+                .converted(converted)
+                .unparseable(unparseable)
+                .batches(batches)
+                .millis(millis)
+                .build();
+    }
+
+    private Batch migrateBatch(long afterId) {
+        List<Object[]> updates = new ArrayList<>(batchSize);
+        List<Long> rejected = new ArrayList<>();
+        long[] lastId = {afterId};
+        jdbcTemplate.query(SELECT_UNMIGRATED, (RowCallbackHandler) resultSet -> {
+            long id = resultSet.getLong(1);
+            Integer year = parseYear(resultSet.getString(2));
+            if (year != null) {
+                updates.add(new Object[]{year, id});
+            } else {
+                rejected.add(id);
+            }
+            lastId[0] = id;
+        }, afterId, batchSize);
+        int converted = 0;
+        if (!updates.isEmpty()) {
+            for (int count : jdbcTemplate.batchUpdate(UPDATE_YEAR, updates)) {
+                converted += Math.max(count, 0);
+            }
+        }
+        return new Batch(updates.size() + rejected.size(), lastId[0], converted, rejected);
+    }
+
+    /**
+     * A year from a legacy value: the whole value when it is a number, else the only four-digit
+     * number in it, such as in "c. 1965" or "1965-03-01"; null when there is none or several.
+     */
+    static Integer parseYear(String value) {
+        if (value == null) {
+            return null;
+        }
+        String trimmed = value.trim();
+        if (YEAR.matcher(trimmed).matches()) {
+            return Integer.valueOf(trimmed);
+        }
+        Matcher matcher = YEAR_IN_TEXT.matcher(trimmed);
+        if (!matcher.find()) {
+            return null;
+        }
+        String year = matcher.group();
+        return matcher.find() ? null : Integer.valueOf(year);
+    }
+
+    private record Batch(int read, long lastId, int converted, List<Long> rejected) {
+    }
+}
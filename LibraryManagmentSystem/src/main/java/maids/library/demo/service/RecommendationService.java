@@ -0,0 +1,274 @@
+package maids.library.demo.service;
+
+import maids.library.demo.branch.BranchContext;
+import maids.library.demo.branch.Branches;
+import maids.library.demo.event.BookBorrowedEvent;
+import maids.library.demo.event.SnapshotRestoredEvent;
+import maids.library.demo.model.entity.Book;
+import maids.library.demo.model.projection.LoanPair;
+import maids.library.demo.repository.ArchivedBorrowingRecordCrudRepository;
+import maids.library.demo.repository.BookCrudRepository;
+import maids.library.demo.repository.BorrowingRecordCrudRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+import java.util.function.LongFunction;
+import java.util.stream.Collectors;
+
+/**
+ * Keeps the co-borrowing index in memory. The index is rebuilt from the borrowing records and
+ * their archive when the application starts, one partition of patrons per thread, and afterwards
+ * follows committed loans as they happen.
+ * <p>
+ * Loans committed during a rebuild are held back, up to {@code max-pending-loans}, and replayed
+ * onto the new index. A rebuild that fails leaves the previous index in place, replays the held
+ * back loans onto it and is retried after {@code bootstrap-retry-ms}; one whose backlog
+ * overflowed is followed by another rebuild, which reads the dropped loans from the database.
+ * <p>
+ * Every branch has its own index; all methods work on the current branch.
+ */
+@Service
+public class RecommendationService {
+    private static final Logger log = LoggerFactory.getLogger(RecommendationService.class);
+
+    private final BorrowingRecordCrudRepository borrowingRecordRepository;
+    private final ArchivedBorrowingRecordCrudRepository archivedRecordRepository;
+    private final BookCrudRepository bookRepository;
+    private final Branches branches;
+    private final int maxNeighbours;
+    private final int partitions;
+    private final int pageSize;
+    private final int maxPendingLoans;
+    private final long retryDelayMillis;
+    private final ConcurrentHashMap<String, BranchIndex> indexes = new ConcurrentHashMap<>();
+
+    public RecommendationService(BorrowingRecordCrudRepository borrowingRecordRepository,
+                                 ArchivedBorrowingRecordCrudRepository archivedRecordRepository,
+                                 BookCrudRepository bookRepository,
+                                 Branches branches,
+                                 @Value("${library.recommendations.max-neighbours:50}") int maxNeighbours,
+                                 @Value("${library.recommendations.bootstrap-partitions:4}") int partitions,
+                                 @Value("${library.recommendations.bootstrap-page-size:10000}") int pageSize,
+                                 @Value("${library.recommendations.max-pending-loans:100000}") int maxPendingLoans,
+                                 @Value("${library.recommendations.bootstrap-retry-ms:60000}") long retryDelayMillis) {
+        this.borrowingRecordRepository = borrowingRecordRepository;
+        this.archivedRecordRepository = archivedRecordRepository;
+        this.bookRepository = bookRepository;
+        this.branches = branches;
+        this.maxNeighbours = maxNeighbours;
+        this.partitions = partitions;
+        this.pageSize = pageSize;
+        this.maxPendingLoans = maxPendingLoans;
+        this.retryDelayMillis = retryDelayMillis;
+    }
+
+    public List<Book> getRecommendations(Long bookId, int limit) {
+        BranchIndex current = current();
+        long[] bookIds;
+        current.lock.readLock().lock();
+        try {
+            bookIds = current.index.recommend(bookId, limit);
+        } finally {
+            current.lock.readLock().unlock();
+        }
+        if (bookIds.length == 0) {
+            return List.of();
+        }
+        List<Long> ids = new ArrayList<>(bookIds.length);
+        for (long id : bookIds) {
+            ids.add(id);
+        }
+        Map<Long, Book> books = bookRepository.findAllById(ids).stream()
+                .collect(Collectors.toMap(Book::getId, Function.identity()));
+        return ids.stream()
+                .map(books::get)
+                .filter(book -> book != null)
+                .toList();
+    }
+
+    @TransactionalEventListener
+    public void onBookBorrowed(BookBorrowedEvent event) {
+        BranchIndex current = current();
+        current.lock.writeLock().lock();
+        try {
+            if (current.bootstrapping) {
+                if (current.pendingLoans.size() < maxPendingLoans) {
+                    current.pendingLoans.add(event);
+                } else {
+                    current.pendingOverflowed = true;
+                }
+            } else {
+                current.index.recordLoan(event.patronId(), event.bookId());
+            }
+        } finally {
+            current.lock.writeLock().unlock();
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void bootstrapAllAsync() {
+        for (String branch : branches.names()) {
+            BranchContext.run(branch, this::bootstrapAsync);
+        }
+    }
+
+    /**
+     * Rebuilds the index of the current branch.
+     */
+    @EventListener(SnapshotRestoredEvent.class)
+    public void bootstrapAsync() {
+        bootstrapAsync(ForkJoinPool.commonPool());
+    }
+
+    private void bootstrapAsync(Executor executor) {
+        String branch = BranchContext.current();
+        CompletableFuture.runAsync(BranchContext.wrap(this::bootstrap), executor)
+                .exceptionally(ex -> {
+                    log.error("Failed to build the recommendation index of branch {}, retrying in {} ms",
+                            branch, retryDelayMillis, ex);
+                    BranchContext.run(branch, () -> bootstrapAsync(
+                            CompletableFuture.delayedExecutor(retryDelayMillis, TimeUnit.MILLISECONDS)));
+                    return null;
+                });
+    }
+
+    public void bootstrap() {
+        long startedAt = System.nanoTime();
+        BranchIndex current = current();
+        String branch = BranchContext.current();
+        long maxId = borrowingRecordRepository.findMaxId().orElse(0L);
+        current.lock.writeLock().lock();
+        try {
+            current.bootstrapping = true;
+            current.bootstrapHorizon = maxId;
+        } finally {
+            current.lock.writeLock().unlock();
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(partitions);
+        CoBorrowIndex rebuilt;
+        try {
+            List<CompletableFuture<CoBorrowIndex>> parts = new ArrayList<>(partitions);
+            for (int partition = 0; partition < partitions; partition++) {
+                int partitionNumber = partition;
+                parts.add(CompletableFuture.supplyAsync(
+                        () -> BranchContext.call(branch, () -> buildPartition(partitionNumber, maxId)), executor));
+            }
+            rebuilt = parts.stream()
+                    .map(CompletableFuture::join)
+                    .reduce((left, right) -> {
+                        left.merge(right);
+                        return left;
+                    })
+                    .orElseGet(() -> new CoBorrowIndex(maxNeighbours));
+        } catch (RuntimeException e) {
+            abandonBootstrap(current);
+            throw e;
+        } finally {
+            executor.shutdown();
+        }
+
+        boolean overflowed;
+        current.lock.writeLock().lock();
+        try {
+            // Loans committed while the partitions were loading are either already part of the
+            // snapshot (id at or below the horizon) or still waiting here.
+            current.pendingLoans.stream()
+                    .filter(event -> event.borrowingRecordId() != null && event.borrowingRecordId() > current.bootstrapHorizon)
+                    .sorted(Comparator.comparing(BookBorrowedEvent::borrowingRecordId))
+                    .forEach(event -> rebuilt.recordLoan(event.patronId(), event.bookId()));
+            current.pendingLoans.clear();
+            current.index = rebuilt;
+            current.bootstrapping = false;
+            overflowed = current.pendingOverflowed;
+            current.pendingOverflowed = false;
+        } finally {
+            current.lock.writeLock().unlock();
+        }
+        log.info("Recommendation index of branch {} built for {} books in {} ms",
+                branch, rebuilt.bookCount(), (System.nanoTime() - startedAt) / 1_000_000);
+        if (overflowed) {
+            log.warn("More than {} loans arrived while building the recommendation index of branch {}, rebuilding",
+                    maxPendingLoans, branch);
+            bootstrapAsync();
+        }
+    }
+
+    /**
+     * Keeps serving the previous index after a failed rebuild, brought up to date with the loans
+     * held back in the meantime.
+     */
+    private void abandonBootstrap(BranchIndex current) {
+        current.lock.writeLock().lock();
+        try {
+            current.pendingLoans.stream()
+                    .sorted(Comparator.comparing(BookBorrowedEvent::borrowingRecordId,
+                            Comparator.nullsFirst(Comparator.naturalOrder())))
+                    .forEach(event -> current.index.recordLoan(event.patronId(), event.bookId()));
+            current.pendingLoans.clear();
+            current.pendingOverflowed = false;
+            current.bootstrapping = false;
+        } finally {
+            current.lock.writeLock().unlock();
+        }
+    }
+
+    private CoBorrowIndex buildPartition(int partition, long maxId) {
+        CoBorrowIndex partial = new CoBorrowIndex(maxNeighbours);
+        loadPartition(partial, afterId -> archivedRecordRepository.findLoanPairs(
+                partitions, partition, afterId, PageRequest.of(0, pageSize)));
+        loadPartition(partial, afterId -> borrowingRecordRepository.findLoanPairs(
+                partitions, partition, afterId, maxId, PageRequest.of(0, pageSize)));
+        return partial;
+    }
+
+    private void loadPartition(CoBorrowIndex partial, LongFunction<List<LoanPair>> pageAfter) {
+        long afterId = 0;
+        while (true) {
+            List<LoanPair> page = pageAfter.apply(afterId);
+            for (LoanPair pair : page) {
+                partial.recordLoan(pair.getPatronId(), pair.getBookId());
+            }
+            if (page.size() < pageSize) {
+                return;
+            }
+            afterId = page.get(page.size() - 1).getId();
+        }
+    }
+
+    private BranchIndex current() {
+        return indexes.computeIfAbsent(BranchContext.current(), branch -> new BranchIndex(maxNeighbours));
+    }
+
+    private static final class BranchIndex {
+        private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+        private final List<BookBorrowedEvent> pendingLoans = new ArrayList<>();
+        private CoBorrowIndex index;
+        private boolean bootstrapping = true;
+        private boolean pendingOverflowed;
+        private long bootstrapHorizon = Long.MAX_VALUE;
+
+        private BranchIndex(int maxNeighbours) {
+            this.index = new CoBorrowIndex(maxNeighbours);
+        }
+    }
+}
@@ -0,0 +1,226 @@
+package maids.library.demo.service;
+
+import maids.library.demo.exception.CorruptSnapshotException;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Binary layout of a snapshot file:
+ * <pre>
+ * header   magic "LSNP", int version
+ * chunk    byte table, int rows, int rawLength, int compressedLength, int crc32, compressed rows
+ * ...
+ * trailer  byte 0, int chunkCount
+ * </pre>
+ * A chunk holds the rows of one table, deflated independently of the others so chunks can be
+ * restored in parallel. The CRC covers the uncompressed rows. Every value starts with a presence
+ * byte; strings are length-prefixed UTF-8 and dates are epoch days.
+ */
+final class SnapshotCodec {
+    static final byte[] MAGIC = {'L', 'S', 'N', 'P'};
+    static final int VERSION = 1;
+    private static final byte END_OF_CHUNKS = 0;
+
+    record Chunk(SnapshotTable table, int rows, int rawLength, int crc, byte[] compressed) {
+    }
+
+    private SnapshotCodec() {
+    }
+
+    static void writeHeader(DataOutputStream out) throws IOException {
+        out.write(MAGIC);
+        out.writeInt(VERSION);
+    }
+
+    static void readHeader(DataInputStream in) throws IOException {
+        byte[] magic = new byte[MAGIC.length];
+        in.readFully(magic);
+        if (!Arrays.equals(magic, MAGIC)) {
+            throw corrupt("Not a library snapshot");
+        }
+        int version = in.readInt();
+        if (version != VERSION) {
+            throw corrupt("Unsupported snapshot version " + version);
+        }
+    }
+
+    /**
+     * Appends one row of the result set's current position to {@code rows}.
+     */
+    static void encodeRow(SnapshotTable table, ResultSet resultSet, DataOutputStream rows) throws IOException, SQLException {
+        SnapshotTable.Column[] columns = table.columns();
+        for (int i = 0; i < columns.length; i++) {
+            int index = i + 1;
+            switch (columns[i].sqlType()) {
+                case Types.BIGINT -> {
+                    long value = resultSet.getLong(index);
+                    writePresent(rows, !resultSet.wasNull());
+                    if (!resultSet.wasNull()) {
+                        rows.writeLong(value);
+                    }
+                }
+                case Types.INTEGER -> {
+                    int value = resultSet.getInt(index);
+                    writePresent(rows, !resultSet.wasNull());
+                    if (!resultSet.wasNull()) {
+                        rows.writeInt(value);
+                    }
+                }
+                case Types.DATE -> {
+                    LocalDate value = resultSet.getObject(index, LocalDate.class);
+                    writePresent(rows, value != null);
+                    if (value != null) {
+                        rows.writeLong(value.toEpochDay());
+                    }
+                }
+                default -> {
+                    String value = resultSet.getString(index);
+                    writePresent(rows, value != null);
+                    if (value != null) {
+                        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+                        rows.writeInt(bytes.length);
+                        rows.write(bytes);
+                    }
+                }
+            }
+        }
+    }
+
+    static List<Object[]> decodeRows(SnapshotTable table, int count, byte[] raw) throws IOException {
+        SnapshotTable.Column[] columns = table.columns();
+        List<Object[]> rows = new ArrayList<>(count);
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(raw));
+        for (int row = 0; row < count; row++) {
+            Object[] values = new Object[columns.length];
+            for (int i = 0; i < columns.length; i++) {
+                if (in.readByte() == 0) {
+                    continue;
+                }
+                values[i] = switch (columns[i].sqlType()) {
+                    case Types.BIGINT -> in.readLong();
+                    case Types.INTEGER -> in.readInt();
+                    case Types.DATE -> LocalDate.ofEpochDay(in.readLong());
+                    default -> {
+                        byte[] bytes = new byte[in.readInt()];
+                        in.readFully(bytes);
+                        yield new String(bytes, StandardCharsets.UTF_8);
+                    }
+                };
+            }
+            rows.add(values);
+        }
+        return rows;
+    }
+
+    /**
+     * Writes one chunk and returns its compressed size.
+     */
+    static int writeChunk(DataOutputStream out, SnapshotTable table, int rows, byte[] raw, int rawLength,
+                          Deflater deflater) throws IOException {
+        CRC32 crc = new CRC32();
+        crc.update(raw, 0, rawLength);
+        deflater.reset();
+        deflater.setInput(raw, 0, rawLength);
+        deflater.finish();
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream(Math.max(64, rawLength / 2));
+        byte[] buffer = new byte[64 * 1024];
+        while (!deflater.finished()) {
+            compressed.write(buffer, 0, deflater.deflate(buffer));
+        }
+        out.writeByte(table.code());
+        out.writeInt(rows);
+        out.writeInt(rawLength);
+        out.writeInt(compressed.size());
+        out.writeInt((int) crc.getValue());
+        compressed.writeTo(out);
+        return compressed.size();
+    }
+
+    static void writeTrailer(DataOutputStream out, int chunkCount) throws IOException {
+        out.writeByte(END_OF_CHUNKS);
+        out.writeInt(chunkCount);
+    }
+
+    /**
+     * Reads the next chunk without inflating it, or returns null after checking the trailer.
+     */
+    static Chunk readChunk(DataInputStream in, int chunksRead) throws IOException {
+        try {
+            byte code = in.readByte();
+            if (code == END_OF_CHUNKS) {
+                int expected = in.readInt();
+                if (expected != chunksRead) {
+                    throw corrupt("Snapshot lists " + expected + " chunks but contains " + chunksRead);
+                }
+                return null;
+            }
+            SnapshotTable table = SnapshotTable.fromCode(code);
+            if (table == null) {
+                throw corrupt("Unknown table code " + code + " in chunk " + (chunksRead + 1));
+            }
+            int rows = in.readInt();
+            int rawLength = in.readInt();
+            int compressedLength = in.readInt();
+            int crc = in.readInt();
+            if (rows < 0 || rawLength < 0 || compressedLength < 0) {
+                throw corrupt("Invalid header in chunk " + (chunksRead + 1));
+            }
+            byte[] compressed = new byte[compressedLength];
+            in.readFully(compressed);
+            return new Chunk(table, rows, rawLength, crc, compressed);
+        } catch (EOFException e) {
+            throw corrupt("Snapshot is truncated after " + chunksRead + " chunks");
+        }
+    }
+
+    static byte[] inflate(Chunk chunk, int chunkNumber) {
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(chunk.compressed());
+            byte[] raw = new byte[chunk.rawLength()];
+            int length = 0;
+            while (length < raw.length && !inflater.finished()) {
+                int inflated = inflater.inflate(raw, length, raw.length - length);
+                if (inflated == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    break;
+                }
+                length += inflated;
+            }
+            CRC32 crc = new CRC32();
+            crc.update(raw, 0, length);
+            if (length != raw.length || (int) crc.getValue() != chunk.crc()) {
+                throw corrupt("Checksum mismatch in chunk " + chunkNumber);
+            }
+            return raw;
+        } catch (DataFormatException e) {
+            throw corrupt("Chunk " + chunkNumber + " cannot be decompressed");
+        } finally {
+            inflater.end();
+        }
+    }
+
+    private static void writePresent(DataOutputStream out, boolean present) throws IOException {
+        out.writeByte(present ? 1 : 0);
+    }
+
+    private static CorruptSnapshotException corrupt(String message) {
+        return CorruptSnapshotException.builder().message(message).build();
+    }
+}
@@ -0,0 +1,332 @@
+package maids.library.demo.service;
+
+import maids.library.demo.branch.BranchContext;
+import maids.library.demo.event.SnapshotRestoredEvent;
+import maids.library.demo.exception.SnapshotNotFoundException;
+import maids.library.demo.exception.SnapshotRestoreException;
+import maids.library.demo.model.dto.SnapshotFile;
+import maids.library.demo.model.dto.SnapshotStats;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+import java.util.zip.Deflater;
+
+/**
+ * Writes books, patrons and borrowing records to a compressed snapshot file and loads them back.
+ * <p>
+ * The export reads every table in one read-only repeatable-read transaction, so the snapshot is
+ * consistent even while the library is in use, and pages through each table by id. Every page
+ * becomes one chunk in the {@link SnapshotCodec} format.
+ * <p>
+ * A restore streams the file and hands the chunks to a pool of workers that check, inflate and
+ * insert them with JDBC batches, each chunk in its own transaction. Tables are restored in order
+ * so foreign keys always resolve. The target tables have to be empty, as after a fresh schema
+ * creation; a failed restore leaves them partly filled and they have to be emptied again before
+ * retrying. Holds, archived loans, fines and the analytics rollups are not part of a snapshot.
+ * <p>
+ * Both work on the current branch; snapshot names carry the branch they were exported from, and
+ * a snapshot can be restored into any branch.
+ */
+@Service
+public class SnapshotService {
+    private static final Logger log = LoggerFactory.getLogger(SnapshotService.class);
+    private static final String EXTENSION = ".snap";
+    private static final Pattern NAME = Pattern.compile("[A-Za-z0-9][A-Za-z0-9._-]*\\" + EXTENSION);
+    private static final DateTimeFormatter TIMESTAMP = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss-SSS");
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TransactionTemplate exportTransaction;
+    private final TransactionTemplate restoreTransaction;
+    private final Path directory;
+    private final int chunkRows;
+    private final int compressionLevel;
+    private final int restoreThreads;
+    private final int insertBatchSize;
+
+    public SnapshotService(JdbcTemplate jdbcTemplate,
+                           ApplicationEventPublisher eventPublisher,
+                           PlatformTransactionManager transactionManager,
+                           @Value("${library.snapshot.directory:snapshots}") String directory,
+                           @Value("${library.snapshot.chunk-rows:5000}") int chunkRows,
+                           @Value("${library.snapshot.compression-level:1}") int compressionLevel,
+                           @Value("${library.snapshot.restore-threads:4}") int restoreThreads,
+                           @Value("${library.snapshot.insert-batch-size:500}") int insertBatchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.eventPublisher = eventPublisher;
+        this.exportTransaction = new TransactionTemplate(transactionManager);
+        this.exportTransaction.setIsolationLevel(TransactionDefinition.ISOLATION_REPEATABLE_READ);
+        this.exportTransaction.setReadOnly(true);
+        this.restoreTransaction = new TransactionTemplate(transactionManager);
+        this.directory = Path.of(directory);
+        this.chunkRows = chunkRows;
+        this.compressionLevel = compressionLevel;
+        this.restoreThreads = restoreThreads;
+        this.insertBatchSize = insertBatchSize;
+    }
+
+    public List<SnapshotFile> listSnapshots() {
+        if (!Files.isDirectory(directory)) {
+            return List.of();
+        }
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(file -> NAME.matcher(file.getFileName().toString()).matches())
+                    .map(file -> {
+                        try {
+                            return SnapshotFile.builder()
+                                    .name(file.getFileName().toString())
+                                    .bytes(Files.size(file))
+                                    .lastModified(Files.getLastModifiedTime(file).toInstant())
+                                    .build();
+                        } catch (IOException e) {
+                            throw new UncheckedIOException(e);
+                        }
+                    })
+                    .sorted(Comparator.comparing(SnapshotFile::getName).reversed())
+                    .toList();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public synchronized SnapshotStats export() {
+        long startedAt = System.nanoTime();
+        String name = "library-" + BranchContext.current() + "-" + TIMESTAMP.format(LocalDateTime.now()) + EXTENSION;
+        Path partial = directory.resolve(name + ".part");
+        Progress progress = new Progress();
+        Deflater deflater = new Deflater(compressionLevel);
+        try {
+            Files.createDirectories(directory);
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(partial)))) {
+                SnapshotCodec.writeHeader(out);
+                exportTransaction.executeWithoutResult(status -> {
+                    for (SnapshotTable table : SnapshotTable.values()) {
+                        exportTable(table, out, deflater, progress);
+                    }
+                });
+                SnapshotCodec.writeTrailer(out, progress.chunks);
+            }
+            Files.move(partial, directory.resolve(name), StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            deleteQuietly(partial);
+            throw new UncheckedIOException(e);
+        } catch (RuntimeException e) {
+            deleteQuietly(partial);
+            throw e;
+        } finally {
+            deflater.end();
+        }
+        SnapshotStats stats = progress.toStats(name, startedAt);
+        log.info("Exported snapshot {}: {}", name, stats);
+        return stats;
+    }
+
+    public synchronized SnapshotStats restore(String name) {
+        Path file = resolve(name);
+        for (SnapshotTable table : SnapshotTable.values()) {
+            if (!jdbcTemplate.queryForList("select 1 from " + table.tableName() + " limit 1").isEmpty()) {
+                throw SnapshotRestoreException.builder()
+                        .message("Table " + table.tableName() + " is not empty; a snapshot can only be restored into empty tables")
+                        .build();
+            }
+        }
+
+        long startedAt = System.nanoTime();
+        String branch = BranchContext.current();
+        Progress progress = new Progress();
+        AtomicReference<RuntimeException> failure = new AtomicReference<>();
+        Semaphore inFlight = new Semaphore(restoreThreads * 2);
+        List<Future<?>> pending = new ArrayList<>();
+        ExecutorService workers = Executors.newFixedThreadPool(restoreThreads, runnable -> {
+            Thread thread = new Thread(runnable, "snapshot-restore");
+            thread.setDaemon(true);
+            return thread;
+        });
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            SnapshotCodec.readHeader(in);
+            SnapshotTable current = null;
+            SnapshotCodec.Chunk chunk;
+            while (failure.get() == null && (chunk = SnapshotCodec.readChunk(in, progress.chunks)) != null) {
+                if (chunk.table() != current) {
+                    // Later tables refer to earlier ones, so finish a table before starting the next.
+                    awaitAll(pending);
+                    current = chunk.table();
+                }
+                progress.add(chunk.table(), chunk.rows(), chunk.rawLength(), chunk.compressed().length);
+                SnapshotCodec.Chunk restored = chunk;
+                int chunkNumber = progress.chunks;
+                inFlight.acquire();
+                pending.add(workers.submit(() -> {
+                    try {
+                        BranchContext.run(branch, () -> restoreChunk(restored, chunkNumber, branch));
+                    } catch (RuntimeException e) {
+                        failure.compareAndSet(null, e);
+                        throw e;
+                    } finally {
+                        inFlight.release();
+                    }
+                }));
+            }
+            awaitAll(pending);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw SnapshotRestoreException.builder().message("Interrupted while restoring " + name).build();
+        } finally {
+            workers.shutdownNow();
+        }
+
+        SnapshotStats stats = progress.toStats(name, startedAt);
+        log.info("Restored snapshot {}: {}", name, stats);
+        eventPublisher.publishEvent(new SnapshotRestoredEvent(name));
+        return stats;
+    }
+
+    private void exportTable(SnapshotTable table, DataOutputStream out, Deflater deflater, Progress progress) {
+        long afterId = 0;
+        while (true) {
+            ByteArrayOutputStream raw = new ByteArrayOutputStream(64 * 1024);
+            DataOutputStream rows = new DataOutputStream(raw);
+            long[] page = {0, afterId};
+            jdbcTemplate.query(table.selectPageSql(), (RowCallbackHandler) resultSet -> {
+                try {
+                    SnapshotCodec.encodeRow(table, resultSet, rows);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                page[0]++;
+                page[1] = resultSet.getLong(1);
+            }, afterId, chunkRows);
+            if (page[0] == 0) {
+                return;
+            }
+            try {
+                int compressed = SnapshotCodec.writeChunk(out, table, (int) page[0], raw.toByteArray(), raw.size(), deflater);
+                progress.add(table, page[0], raw.size(), compressed);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            if (page[0] < chunkRows) {
+                return;
+            }
+            afterId = page[1];
+        }
+    }
+
+    private void restoreChunk(SnapshotCodec.Chunk chunk, int chunkNumber, String branch) {
+        List<Object[]> rows;
+        try {
+            rows = SnapshotCodec.decodeRows(chunk.table(), chunk.rows(), SnapshotCodec.inflate(chunk, chunkNumber));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        SnapshotTable.Column[] columns = chunk.table().columns();
+        restoreTransaction.executeWithoutResult(status -> jdbcTemplate.batchUpdate(chunk.table().insertSql(), rows,
+                insertBatchSize, (statement, row) -> {
+                    for (int i = 0; i < columns.length; i++) {
+                        if (row[i] == null) {
+                            statement.setNull(i + 1, columns[i].sqlType());
+                        } else {
+                            statement.setObject(i + 1, row[i]);
+                        }
+                    }
+                    statement.setString(columns.length + 1, branch);
+                }));
+    }
+
+    private static void awaitAll(List<Future<?>> pending) throws InterruptedException {
+        try {
+            for (Future<?> future : pending) {
+                future.get();
+            }
+        } catch (ExecutionException e) {
+            pending.forEach(future -> future.cancel(true));
+            throw e.getCause() instanceof RuntimeException runtime ? runtime : new IllegalStateException(e.getCause());
+        } finally {
+            pending.clear();
+        }
+    }
+
+    private Path resolve(String name) {
+        Path file = directory.resolve(name);
+        if (!NAME.matcher(name).matches() || !Files.isRegularFile(file)) {
+            throw SnapshotNotFoundException.builder().message("Snapshot not found: " + name).build();
+        }
+        return file;
+    }
+
+    private static void deleteQuietly(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            log.warn("Could not delete {}", file, e);
+        }
+    }
+
+    private static final class Progress {
+        private final Map<String, Long> rows = new LinkedHashMap<>();
+        private int chunks;
+        private long rawBytes;
+        private long compressedBytes;
+
+        private void add(SnapshotTable table, long tableRows, long raw, long compressed) {
+            rows.merge(table.tableName(), tableRows, Long::sum);
+            chunks++;
+            rawBytes += raw;
+            compressedBytes += compressed;
+        }
+
+        /**
+         * Throughput is measured on the uncompressed row data.
+         */
+        private SnapshotStats toStats(String name, long startedAt) {
+            long nanos = Math.max(System.nanoTime() - startedAt, 1);
+            double seconds = nanos / 1e9;
+            long totalRows = rows.values().stream().mapToLong(Long::longValue).sum();
+            return SnapshotStats.builder()
+                    .name(name)
+                    .rows(rows)
+                    .chunks(chunks)
+                    .rawBytes(rawBytes)
+                    .compressedBytes(compressedBytes)
+                    .millis(nanos / 1_000_000)
+                    .rowsPerSecond(totalRows / seconds)
+                    .megabytesPerSecond(rawBytes / 1e6 / seconds)
+                    .build();
+        }
+    }
+}
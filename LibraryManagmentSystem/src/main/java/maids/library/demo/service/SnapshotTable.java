@@ -0,0 +1,87 @@
+package maids.library.demo.service;
+
+import java.sql.Types;
+import java.util.Arrays;
+import java.util.stream.Collectors;
+
+/**
+ * Tables in a snapshot, in the order they are written and restored; a table only refers to
+ * tables before it. The branch column is not part of a snapshot: restored rows belong to the
+ * branch they are restored into.
+ * <p>
+ * Books carry the legacy text column of the publication year, which every version writes, so
+ * snapshots of either version restore; {@link PublicationYearMigration} converts the restored years.
+ */
+public enum SnapshotTable {
+    BOOK(1, "book",
+            new Column("id", Types.BIGINT),
+            new Column("title", Types.VARCHAR),
+            new Column("author", Types.VARCHAR),
+            new Column("publication_year", Types.VARCHAR),
+            new Column("isbn", Types.VARCHAR)),
+    PATRON(2, "patron",
+            new Column("id", Types.BIGINT),
+            new Column("name", Types.VARCHAR),
+            new Column("contact_information", Types.VARCHAR),
+            new Column("active_loans", Types.INTEGER),
+            new Column("member_since", Types.DATE)),
+    BORROWING_RECORD(3, "borrowing_record",
+            new Column("id", Types.BIGINT),
+            new Column("book_id", Types.BIGINT),
+            new Column("patron_id", Types.BIGINT),
+            new Column("borrowing_date", Types.DATE),
+            new Column("return_date", Types.DATE));
+
+    public record Column(String name, int sqlType) {
+    }
+
+    private final byte code;
+    private final String tableName;
+    private final Column[] columns;
+
+    SnapshotTable(int code, String tableName, Column... columns) {
+        this.code = (byte) code;
+        this.tableName = tableName;
+        this.columns = columns;
+    }
+
+    public byte code() {
+        return code;
+    }
+
+    public String tableName() {
+        return tableName;
+    }
+
+    public Column[] columns() {
+        return columns;
+    }
+
+    /**
+     * Selects the next page of rows after an id; the first column is always the id.
+     */
+    String selectPageSql() {
+        return "select " + columnList() + " from " + tableName + " where id > ? order by id limit ?";
+    }
+
+    /**
+     * Inserts a row; the parameters are the columns followed by the branch.
+     */
+    String insertSql() {
+        return "insert into " + tableName + " (" + columnList() + ", branch) values ("
+                + Arrays.stream(columns).map(column -> "?").collect(Collectors.joining(", ")) + ", ?)";
+    }
+
+    static SnapshotTable fromCode(byte code) {
+        for (SnapshotTable table : values()) {
+            if (table.code == code) {
+                return table;
+            }
+        }
+        return null;
+    }
+
+    private String columnList() {
+        return Arrays.stream(columns).map(Column::name).collect(Collectors.joining(", "));
+    }
+}
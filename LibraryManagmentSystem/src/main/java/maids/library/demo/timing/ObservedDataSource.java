@@ -0,0 +1,87 @@
+package maids.library.demo.timing;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * Reports every statement executed on its connections to a {@link StatementListener}, whether it
+ * comes from Hibernate or from a {@code JdbcTemplate}. Each {@code execute} call counts once, so a
+ * JDBC batch is one statement. Everything else is passed through to the target.
+ */
+public class ObservedDataSource extends DelegatingDataSource {
+    private final StatementListener listener;
+
+    public ObservedDataSource(DataSource targetDataSource, StatementListener listener) {
+        super(targetDataSource);
+        this.listener = listener;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return observe(super.getConnection());
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return observe(super.getConnection(username, password));
+    }
+
+    private Connection observe(Connection connection) {
+        return proxy(Connection.class, connection, (proxy, method, args) -> {
+            Object result = invoke(connection, method, args);
+            if (result instanceof Statement statement && isStatementFactory(method)) {
+                String sql = args != null && args.length > 0 && args[0] instanceof String text ? text : null;
+                return observe(method.getReturnType(), statement, sql);
+            }
+            return result;
+        });
+    }
+
+    private Object observe(Class<?> statementType, Statement statement, String preparedSql) {
+        return proxy(statementType, statement, (proxy, method, args) -> {
+            if (!method.getName().startsWith("execute")) {
+                return invoke(statement, method, args);
+            }
+            long startedAt = System.nanoTime();
+            try {
+                return invoke(statement, method, args);
+            } finally {
+                String sql = args != null && args.length > 0 && args[0] instanceof String text ? text : preparedSql;
+                listener.executed(sql, System.nanoTime() - startedAt);
+            }
+        });
+    }
+
+    private static boolean isStatementFactory(Method method) {
+        return method.getName().equals("createStatement")
+                || method.getName().equals("prepareStatement")
+                || method.getName().equals("prepareCall");
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T proxy(Class<T> type, Object target, InvocationHandler handler) {
+        return (T) Proxy.newProxyInstance(ObservedDataSource.class.getClassLoader(), new Class<?>[]{type},
+                (proxy, method, args) -> switch (method.getName()) {
+                    case "equals" -> proxy == args[0];
+                    case "hashCode" -> System.identityHashCode(proxy);
+                    case "toString" -> "Observed " + target;
+                    default -> handler.invoke(proxy, method, args);
+                });
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getTargetException();
+        }
+    }
+}
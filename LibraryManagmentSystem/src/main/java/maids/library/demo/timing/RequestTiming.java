@@ -0,0 +1,89 @@
+package maids.library.demo.timing;
+
+import java.util.Locale;
+
+/**
+ * Time spent in each layer while serving one request. Bound to the request thread by
+ * {@link ServerTimingFilter}; the instrumentation points record into {@link #current()} and do
+ * nothing when the request is not being traced.
+ */
+public final class RequestTiming {
+    private static final ThreadLocal<RequestTiming> CURRENT = new ThreadLocal<>();
+
+    private final long startedAt = System.nanoTime();
+    private int sqlCount;
+    private long sqlNanos;
+    private long flushNanos;
+    private long validationNanos;
+    private long serializationNanos;
+
+    static RequestTiming start() {
+        RequestTiming timing = new RequestTiming();
+        CURRENT.set(timing);
+        return timing;
+    }
+
+    static void clear() {
+        CURRENT.remove();
+    }
+
+    public static RequestTiming current() {
+        return CURRENT.get();
+    }
+
+    public void recordSql(long nanos) {
+        sqlCount++;
+        sqlNanos += nanos;
+    }
+
+    public void recordFlush(long nanos) {
+        flushNanos += nanos;
+    }
+
+    public void recordValidation(long nanos) {
+        validationNanos += nanos;
+    }
+
+    public void recordSerialization(long nanos) {
+        serializationNanos += nanos;
+    }
+
+    public int getSqlCount() {
+        return sqlCount;
+    }
+
+    public long elapsedNanos() {
+        return System.nanoTime() - startedAt;
+    }
+
+    /**
+     * The breakdown as a {@code Server-Timing} header value, durations in milliseconds.
+     */
+    String toServerTimingHeader(long totalNanos) {
+        return String.format(Locale.ROOT,
+                "db;desc=\"%d queries\";dur=%.2f, flush;dur=%.2f, validation;dur=%.2f, serialization;dur=%.2f, total;dur=%.2f",
+                sqlCount, millis(sqlNanos), millis(flushNanos), millis(validationNanos),
+                millis(serializationNanos), millis(totalNanos));
+    }
+
+    /**
+     * The breakdown as {@code key=value} pairs for the slow-request log.
+     */
+    String toLogFields(long totalNanos) {
+        return String.format(Locale.ROOT,
+                "totalMs=%.2f sqlCount=%d sqlMs=%.2f flushMs=%.2f validationMs=%.2f serializationMs=%.2f",
+                millis(totalNanos), sqlCount, millis(sqlNanos), millis(flushNanos),
+                millis(validationNanos), millis(serializationNanos));
+    }
+
+    /**
+     * The total alone, for a request that was timed without a trace.
+     */
+    static String toUntracedLogFields(long totalNanos) {
+        return String.format(Locale.ROOT, "totalMs=%.2f traced=false", millis(totalNanos));
+    }
+
+    private static double millis(long nanos) {
+        return nanos / 1_000_000.0;
+    }
+}
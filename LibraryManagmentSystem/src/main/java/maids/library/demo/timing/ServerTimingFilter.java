@@ -0,0 +1,175 @@
+package maids.library.demo.timing;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.WriteListener;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.MediaType;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Traces a sample of API requests. A traced response is buffered so the {@code Server-Timing}
+ * header can still be added once the body has been serialized; a body outgrowing
+ * {@code maxBufferedBytes} is streamed out instead and goes without the header if that commits
+ * the response. Every request slower than the threshold, traced or not, is written to the
+ * {@code slow-requests} log as {@code key=value} pairs. Event streams are never traced, since
+ * they are neither short-lived nor bufferable.
+ */
+public class ServerTimingFilter extends OncePerRequestFilter {
+    static final String SERVER_TIMING_HEADER = "Server-Timing";
+    private static final Logger slowRequestLog = LoggerFactory.getLogger("slow-requests");
+
+    private final double sampleRate;
+    private final long slowRequestThresholdNanos;
+    private final int maxBufferedBytes;
+
+    public ServerTimingFilter(double sampleRate, long slowRequestThresholdMillis, int maxBufferedBytes) {
+        this.sampleRate = sampleRate;
+        this.slowRequestThresholdNanos = slowRequestThresholdMillis * 1_000_000;
+        this.maxBufferedBytes = maxBufferedBytes;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        String accept = request.getHeader("Accept");
+        return !request.getRequestURI().startsWith("/api/")
+                || request.getRequestURI().equals("/api/changes")
+                || (accept != null && accept.contains(MediaType.TEXT_EVENT_STREAM_VALUE));
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        if (sampleRate < 1.0 && ThreadLocalRandom.current().nextDouble() >= sampleRate) {
+            long startedAt = System.nanoTime();
+            try {
+                chain.doFilter(request, response);
+            } finally {
+                long totalNanos = System.nanoTime() - startedAt;
+                if (totalNanos >= slowRequestThresholdNanos) {
+                    logSlowRequest(request, response.getStatus(), RequestTiming.toUntracedLogFields(totalNanos));
+                }
+            }
+            return;
+        }
+
+        BoundedResponseWrapper bufferedResponse = new BoundedResponseWrapper(response, maxBufferedBytes);
+        RequestTiming timing = RequestTiming.start();
+        try {
+            chain.doFilter(request, bufferedResponse);
+        } finally {
+            RequestTiming.clear();
+            long totalNanos = timing.elapsedNanos();
+            if (!bufferedResponse.isCommitted()) {
+                bufferedResponse.setHeader(SERVER_TIMING_HEADER, timing.toServerTimingHeader(totalNanos));
+            }
+            if (totalNanos >= slowRequestThresholdNanos) {
+                logSlowRequest(request, bufferedResponse.getStatus(), timing.toLogFields(totalNanos));
+            }
+            bufferedResponse.copyBodyToResponse();
+        }
+    }
+
+    private static void logSlowRequest(HttpServletRequest request, int status, String timingFields) {
+        String query = request.getQueryString();
+        slowRequestLog.warn("method={} path={}{} status={} {}",
+                request.getMethod(), request.getRequestURI(), query != null ? "?" + query : "",
+                status, timingFields);
+    }
+
+    /**
+     * Caches the body like its parent until it grows past {@code maxBufferedBytes}, then hands
+     * what it has to the underlying response and writes the rest straight through.
+     */
+    private static final class BoundedResponseWrapper extends ContentCachingResponseWrapper {
+        private final int maxBufferedBytes;
+        private ServletOutputStream outputStream;
+        private PrintWriter writer;
+        private boolean streaming;
+
+        BoundedResponseWrapper(HttpServletResponse response, int maxBufferedBytes) {
+            super(response);
+            this.maxBufferedBytes = maxBufferedBytes;
+        }
+
+        @Override
+        public ServletOutputStream getOutputStream() throws IOException {
+            if (outputStream == null) {
+                outputStream = new BoundedOutputStream(super.getOutputStream());
+            }
+            return outputStream;
+        }
+
+        @Override
+        public PrintWriter getWriter() throws IOException {
+            if (writer == null) {
+                writer = new PrintWriter(new OutputStreamWriter(getOutputStream(), getCharacterEncoding()));
+            }
+            return writer;
+        }
+
+        @Override
+        public void flushBuffer() throws IOException {
+            if (writer != null) {
+                writer.flush();
+            }
+            if (streaming) {
+                getResponse().flushBuffer();
+            }
+        }
+
+        @Override
+        public void copyBodyToResponse() throws IOException {
+            if (writer != null) {
+                writer.flush();
+            }
+            super.copyBodyToResponse();
+        }
+
+        private final class BoundedOutputStream extends ServletOutputStream {
+            private final ServletOutputStream cache;
+
+            BoundedOutputStream(ServletOutputStream cache) {
+                this.cache = cache;
+            }
+
+            @Override
+            public void write(int b) throws IOException {
+                target(1).write(b);
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) throws IOException {
+                target(len).write(b, off, len);
+            }
+
+            private ServletOutputStream target(int len) throws IOException {
+                if (!streaming && getContentSize() + len > maxBufferedBytes) {
+                    copyBodyToResponse(false);
+                    streaming = true;
+                }
+                return streaming ? getResponse().getOutputStream() : cache;
+            }
+
+            @Override
+            public boolean isReady() {
+                return cache.isReady();
+            }
+
+            @Override
+            public void setWriteListener(WriteListener writeListener) {
+                cache.setWriteListener(writeListener);
+            }
+        }
+    }
+}
@@ -0,0 +1,15 @@
+package maids.library.demo.timing;
+
+/**
+ * Told about every statement executed through an {@link ObservedDataSource}, on the thread that
+ * executed it.
+ */
+@FunctionalInterface
+public interface StatementListener {
+
+    /**
+     * @param sql   the statement text, or {@code null} for a batch of plain statements
+     * @param nanos how long the execute call took
+     */
+    void executed(String sql, long nanos);
+}
@@ -0,0 +1,47 @@
+package maids.library.demo.timing;
+
+import org.springframework.validation.Errors;
+import org.springframework.validation.SmartValidator;
+
+/**
+ * Records how long bean validation of request bodies takes.
+ */
+class TimedValidator implements SmartValidator {
+    private final SmartValidator delegate;
+
+    TimedValidator(SmartValidator delegate) {
+        this.delegate = delegate;
+    }
+
+    @Override
+    public boolean supports(Class<?> clazz) {
+        return delegate.supports(clazz);
+    }
+
+    @Override
+    public void validate(Object target, Errors errors) {
+        long startedAt = System.nanoTime();
+        try {
+            delegate.validate(target, errors);
+        } finally {
+            record(startedAt);
+        }
+    }
+
+    @Override
+    public void validate(Object target, Errors errors, Object... validationHints) {
+        long startedAt = System.nanoTime();
+        try {
+            delegate.validate(target, errors, validationHints);
+        } finally {
+            record(startedAt);
+        }
+    }
+
+    private static void record(long startedAt) {
+        RequestTiming timing = RequestTiming.current();
+        if (timing != null) {
+            timing.recordValidation(System.nanoTime() - startedAt);
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package maids.library.demo.timing;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.validation.Validator;
+import org.springframework.validation.beanvalidation.SpringValidatorAdapter;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import javax.sql.DataSource;
+
+/**
+ * Wires the per-request timing: the filter that starts and reports a trace, and the hooks in the
+ * data source, Hibernate, bean validation and Jackson that fill it in. Disable with
+ * {@code library.timing.enabled=false}.
+ */
+@Configuration(proxyBeanMethods = false)
+@ConditionalOnProperty(name = "library.timing.enabled", havingValue = "true", matchIfMissing = true)
+public class TimingConfiguration implements WebMvcConfigurer {
+    private final jakarta.validation.Validator validator;
+
+    public TimingConfiguration(jakarta.validation.Validator validator) {
+        this.validator = validator;
+    }
+
+    @Bean
+    public FilterRegistrationBean<ServerTimingFilter> serverTimingFilter(
+            @Value("${library.timing.sample-rate:0.01}") double sampleRate,
+            @Value("${library.timing.slow-request-threshold-ms:500}") long slowRequestThresholdMillis,
+            @Value("${library.timing.max-buffered-bytes:65536}") int maxBufferedBytes) {
+        FilterRegistrationBean<ServerTimingFilter> registration = new FilterRegistrationBean<>(
+                new ServerTimingFilter(sampleRate, slowRequestThresholdMillis, maxBufferedBytes));
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE + 10);
+        return registration;
+    }
+
+    /**
+     * Wraps the primary, branch routing data source, so every statement on a request thread is
+     * timed whichever branch it runs on.
+     */
+    @Bean
+    static BeanPostProcessor timedDataSource() {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (!(bean instanceof DataSource dataSource) || !beanName.equals("dataSource")) {
+                    return bean;
+                }
+                return new ObservedDataSource(dataSource, (sql, nanos) -> {
+                    RequestTiming timing = RequestTiming.current();
+                    if (timing != null) {
+                        timing.recordSql(nanos);
+                    }
+                });
+            }
+        };
+    }
+
+    @Bean
+    public HibernatePropertiesCustomizer timingSessionEvents() {
+        return properties -> properties.put(AvailableSettings.AUTO_SESSION_EVENTS_LISTENER,
+                TimingSessionEventListener.class.getName());
+    }
+
+    /**
+     * Replaces the auto-configured JSON converter, which backs off when one is defined.
+     */
+    @Bean
+    public MappingJackson2HttpMessageConverter mappingJackson2HttpMessageConverter(ObjectMapper objectMapper) {
+        return new TimedJacksonHttpMessageConverter(objectMapper);
+    }
+
+    @Override
+    public Validator getValidator() {
+        return new TimedValidator(new SpringValidatorAdapter(validator));
+    }
+}
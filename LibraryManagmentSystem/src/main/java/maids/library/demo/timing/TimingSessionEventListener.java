@@ -0,0 +1,25 @@
+package maids.library.demo.timing;
+
+import org.hibernate.BaseSessionEventListener;
+
+/**
+ * Hibernate creates one instance per session, see {@link TimingConfiguration}. Flushes are
+ * attributed to the request that owns the session's thread; statements are timed by the
+ * {@link ObservedDataSource} instead, which also sees those run through a {@code JdbcTemplate}.
+ */
+public class TimingSessionEventListener extends BaseSessionEventListener {
+    private long flushStartedAt;
+
+    @Override
+    public void flushStart() {
+        flushStartedAt = System.nanoTime();
+    }
+
+    @Override
+    public void flushEnd(int numberOfEntities, int numberOfCollections) {
+        RequestTiming timing = RequestTiming.current();
+        if (timing != null) {
+            timing.recordFlush(System.nanoTime() - flushStartedAt);
+        }
+    }
+}
@@ -0,0 +1,126 @@
+package maids.library.demo;
+
+import maids.library.demo.model.entity.Book;
+import maids.library.demo.model.entity.BorrowingRecord;
+import maids.library.demo.model.entity.Patron;
+import maids.library.demo.repository.BookCrudRepository;
+import maids.library.demo.repository.BorrowingRecordCrudRepository;
+import maids.library.demo.repository.PatronCrudRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+
+import static maids.library.demo.TestUtils.clearTables;
+import static maids.library.demo.TestUtils.newBook;
+import static maids.library.demo.TestUtils.newPatron;
+import static org.hamcrest.Matchers.hasSize;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+public class AnalyticsTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private BookCrudRepository bookRepository;
+
+    @Autowired
+    private PatronCrudRepository patronRepository;
+
+    @Autowired
+    private BorrowingRecordCrudRepository borrowingRecordRepository;
+
+    private Book book;
+    private Patron patron;
+
+    @BeforeEach
+    public void setUp() {
+        clearTables(jdbcTemplate);
+
+        book = bookRepository.save(newBook("Dune", "Frank Herbert", 1965));
+        patron = patronRepository.save(newPatron("Ada"));
+    }
+
+    @Test
+    public void givenBorrowAndReturn_whenGetReports_thenRollupsUpdated() throws Exception {
+        mockMvc.perform(post("/api/borrow/{bookId}/patron/{patronId}", book.getId(), patron.getId()))
+                .andExpect(status().isCreated());
+        mockMvc.perform(put("/api/return/{bookId}/patron/{patronId}", book.getId(), patron.getId()))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(get("/api/analytics/loans-per-day"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(1)))
+                .andExpect(jsonPath("$[0].day").value(LocalDate.now().toString()))
+                .andExpect(jsonPath("$[0].loans").value(1))
+                .andExpect(jsonPath("$[0].returns").value(1));
+        mockMvc.perform(get("/api/analytics/loans-per-author"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].author").value("Frank Herbert"))
+                .andExpect(jsonPath("$[0].loans").value(1));
+        mockMvc.perform(get("/api/analytics/loans-per-cohort"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].cohort").value(YearMonth.now().toString()))
+                .andExpect(jsonPath("$[0].loans").value(1));
+        mockMvc.perform(get("/api/analytics/loan-duration"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.returns").value(1))
+                .andExpect(jsonPath("$.averageLoanDays").value(0.0));
+    }
+
+    @Test
+    public void givenPastLoans_whenBackfill_thenReportsCoverHistory() throws Exception {
+        LocalDate borrowed = LocalDate.now().minusDays(100);
+        for (int i = 0; i < 3; i++) {
+            borrowingRecordRepository.save(BorrowingRecord.builder()
+                    .book(book)
+                    .patron(patron)
+                    .borrowingDate(borrowed)
+                    .returnDate(borrowed.plusDays(10 + i))
+                    .build());
+        }
+
+        mockMvc.perform(post("/api/analytics/backfill"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.from").value(borrowed.toString()))
+                .andExpect(jsonPath("$.rows").value(4));
+
+        mockMvc.perform(get("/api/analytics/loans-per-day")
+                        .param("from", borrowed.toString())
+                        .param("to", borrowed.plusDays(20).toString()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(4)))
+                .andExpect(jsonPath("$[0].loans").value(3))
+                .andExpect(jsonPath("$[1].returns").value(1));
+        mockMvc.perform(get("/api/analytics/loan-duration")
+                        .param("from", borrowed.toString())
+                        .param("to", LocalDate.now().toString()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.returns").value(3))
+                .andExpect(jsonPath("$.averageLoanDays").value(11.0));
+    }
+
+    @Test
+    public void givenFromAfterTo_whenGetReport_thenBadRequest() throws Exception {
+        mockMvc.perform(get("/api/analytics/loans-per-day")
+                        .param("from", "2024-02-01")
+                        .param("to", "2024-01-01"))
+                .andExpect(status().isBadRequest());
+    }
+}
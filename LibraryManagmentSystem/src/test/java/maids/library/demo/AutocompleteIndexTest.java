@@ -0,0 +1,79 @@
+package maids.library.demo;
+
+import maids.library.demo.model.dto.AutocompleteSuggestion;
+import maids.library.demo.service.AutocompleteIndex;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class AutocompleteIndexTest {
+
+    @Test
+    public void givenTitlesAndAuthors_whenSuggest_thenMatchNormalizedPrefixByWeight() {
+        AutocompleteIndex index = new AutocompleteIndex(10);
+        index.putBook(1L, "The Hobbit", "J.R.R. Tolkien");
+        index.putBook(2L, "The Hunger Games", "Suzanne Collins");
+        index.putBook(3L, "Théâtre Complet", "Molière");
+        index.addLoans(2L, 5);
+        index.addLoans(1L, 2);
+
+        List<AutocompleteSuggestion> suggestions = index.suggest("  THE h", 10);
+
+        assertEquals(2, suggestions.size());
+        assertEquals("The Hunger Games", suggestions.get(0).getText());
+        assertEquals(5, suggestions.get(0).getWeight());
+        assertEquals("The Hobbit", suggestions.get(1).getText());
+        assertEquals("Théâtre Complet", index.suggest("thea", 10).get(0).getText());
+        assertEquals(AutocompleteSuggestion.Type.AUTHOR, index.suggest("moli", 10).get(0).getType());
+    }
+
+    @Test
+    public void givenSharedAuthor_whenSuggest_thenWeightIsSummedAcrossBooks() {
+        AutocompleteIndex index = new AutocompleteIndex(10);
+        index.putBook(1L, "Emma", "Jane Austen");
+        index.putBook(2L, "Persuasion", "Jane Austen");
+        index.addLoans(1L, 3);
+        index.addLoans(2L, 4);
+
+        List<AutocompleteSuggestion> suggestions = index.suggest("jane", 10);
+
+        assertEquals(1, suggestions.size());
+        assertEquals(7, suggestions.get(0).getWeight());
+    }
+
+    @Test
+    public void givenUpdatedAndRemovedBooks_whenSuggest_thenOldTermsAreGone() {
+        AutocompleteIndex index = new AutocompleteIndex(10);
+        index.putBook(1L, "Dune", "Frank Herbert");
+        index.putBook(2L, "Dune Messiah", "Frank Herbert");
+        index.addLoans(1L, 9);
+
+        index.putBook(1L, "Dune (Deluxe Edition)", "Frank Herbert");
+        index.removeBook(2L);
+
+        List<AutocompleteSuggestion> suggestions = index.suggest("dune", 10);
+        assertEquals(1, suggestions.size());
+        assertEquals("Dune (Deluxe Edition)", suggestions.get(0).getText());
+        assertEquals(9, suggestions.get(0).getWeight());
+        assertTrue(index.suggest("dune m", 10).isEmpty());
+        assertEquals(9, index.suggest("frank", 10).get(0).getWeight());
+    }
+
+    @Test
+    public void givenMoreMatchesThanCapacity_whenSuggest_thenReturnHeaviestOnly() {
+        AutocompleteIndex index = new AutocompleteIndex(3);
+        for (long id = 1; id <= 6; id++) {
+            index.putBook(id, "Book " + id, "Author " + id);
+            index.addLoans(id, id);
+        }
+
+        List<AutocompleteSuggestion> suggestions = index.suggest("book", 10);
+
+        assertEquals(3, suggestions.size());
+        assertEquals("Book 6", suggestions.get(0).getText());
+        assertEquals("Book 4", suggestions.get(2).getText());
+    }
+}
@@ -0,0 +1,117 @@
+package maids.library.demo;
+
+import maids.library.demo.model.dto.BookFilter;
+import maids.library.demo.model.dto.BulkBookUpdateRequest;
+import maids.library.demo.model.entity.Book;
+import maids.library.demo.model.entity.BorrowingRecord;
+import maids.library.demo.model.entity.Patron;
+import maids.library.demo.repository.BookCrudRepository;
+import maids.library.demo.repository.BorrowingRecordCrudRepository;
+import maids.library.demo.repository.PatronCrudRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static maids.library.demo.TestUtils.asJsonString;
+import static maids.library.demo.TestUtils.clearTables;
+import static maids.library.demo.TestUtils.newBook;
+import static maids.library.demo.TestUtils.newPatron;
+import static org.hamcrest.Matchers.contains;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = "library.bulk.chunk-size=2")
+@AutoConfigureMockMvc
+public class BookBulkTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private BookCrudRepository bookRepository;
+
+    @Autowired
+    private PatronCrudRepository patronRepository;
+
+    @Autowired
+    private BorrowingRecordCrudRepository borrowingRecordRepository;
+
+    @BeforeEach
+    public void setUp() {
+        clearTables(jdbcTemplate);
+    }
+
+    @Test
+    public void givenBooksByAuthor_whenBulkDelete_thenBooksWithLoansSkipped() throws Exception {
+        Book first = bookRepository.save(newBook("Dune", "Frank Herbert", 1965));
+        Book loaned = bookRepository.save(newBook("Dune Messiah", "Frank Herbert", 1969));
+        Book third = bookRepository.save(newBook("Children of Dune", "Frank Herbert", 1976));
+        Book other = bookRepository.save(newBook("Emma", "Jane Austen", 1815));
+        Patron patron = patronRepository.save(newPatron("Ada"));
+        borrowingRecordRepository.save(BorrowingRecord.builder()
+                .book(loaned)
+                .patron(patron)
+                .borrowingDate(LocalDate.now())
+                .build());
+
+        mockMvc.perform(post("/api/books/bulk-delete")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(asJsonString(BookFilter.builder().author("Frank Herbert").build())))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.matched").value(3))
+                .andExpect(jsonPath("$.affected").value(2))
+                .andExpect(jsonPath("$.skippedIds", contains(loaned.getId().intValue())));
+
+        assertTrue(bookRepository.findById(first.getId()).isEmpty());
+        assertTrue(bookRepository.findById(third.getId()).isEmpty());
+        assertTrue(bookRepository.findById(loaned.getId()).isPresent());
+        assertTrue(bookRepository.findById(other.getId()).isPresent());
+    }
+
+    @Test
+    public void givenIdsAndYear_whenBulkUpdate_thenOnlyMatchingBooksChanged() throws Exception {
+        Book first = bookRepository.save(newBook("Dune", "F. Herbert", 1965));
+        Book second = bookRepository.save(newBook("Dune Messiah", "F. Herbert", 1969));
+        Book third = bookRepository.save(newBook("Children of Dune", "F. Herbert", 1965));
+
+        mockMvc.perform(post("/api/books/bulk-update")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(asJsonString(BulkBookUpdateRequest.builder()
+                                .filter(BookFilter.builder()
+                                        .ids(List.of(first.getId(), second.getId(), third.getId(), -1L))
+                                        .publicationYear(1965)
+                                        .build())
+                                .author("Frank Herbert")
+                                .build())))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.matched").value(2))
+                .andExpect(jsonPath("$.affected").value(2));
+
+        assertEquals("Frank Herbert", bookRepository.findById(first.getId()).orElseThrow().getAuthor());
+        assertEquals("F. Herbert", bookRepository.findById(second.getId()).orElseThrow().getAuthor());
+        assertEquals("Frank Herbert", bookRepository.findById(third.getId()).orElseThrow().getAuthor());
+        assertEquals(1965, bookRepository.findById(third.getId()).orElseThrow().getPublicationYear());
+    }
+
+    @Test
+    public void givenEmptyFilter_whenBulkDelete_thenBadRequest() throws Exception {
+        mockMvc.perform(post("/api/books/bulk-delete")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{}"))
+                .andExpect(status().isBadRequest());
+    }
+}
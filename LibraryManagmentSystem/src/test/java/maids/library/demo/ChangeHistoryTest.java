@@ -0,0 +1,54 @@
+package maids.library.demo;
+
+import maids.library.demo.model.dto.ChangeNotification;
+import maids.library.demo.service.ChangeHistory;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ChangeHistoryTest {
+
+    @Test
+    public void testAppend_AssignsConsecutiveSequences() {
+        ChangeHistory history = new ChangeHistory(4, 100);
+
+        assertEquals(101, history.append(bookCreated(1L)).getSequence());
+        assertEquals(102, history.append(bookCreated(2L)).getSequence());
+        assertEquals(102, history.lastSequence());
+    }
+
+    @Test
+    public void testSince_ReplaysMissedChangesInOrder() {
+        ChangeHistory history = new ChangeHistory(4, 100);
+        for (long id = 1; id <= 6; id++) {
+            history.append(bookCreated(id));
+        }
+
+        List<ChangeNotification> missed = history.since(103);
+
+        assertEquals(List.of(4L, 5L, 6L), missed.stream().map(ChangeNotification::getId).toList());
+        assertTrue(history.since(106).isEmpty());
+    }
+
+    @Test
+    public void testSince_ReturnsNullWhenGapCannotBeReplayed() {
+        ChangeHistory history = new ChangeHistory(4, 100);
+        for (long id = 1; id <= 6; id++) {
+            history.append(bookCreated(id));
+        }
+
+        assertNull(history.since(101));
+        assertNull(history.since(50));
+        assertNull(history.since(107));
+    }
+
+    private static ChangeNotification bookCreated(Long id) {
+        return ChangeNotification.builder()
+                .entity(ChangeNotification.Entity.BOOK)
+                .type(ChangeNotification.Type.CREATED)
+                .id(id)
+                .build();
+    }
+}
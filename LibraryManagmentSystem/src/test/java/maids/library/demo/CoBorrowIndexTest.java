@@ -0,0 +1,72 @@
+package maids.library.demo;
+
+import maids.library.demo.service.CoBorrowIndex;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class CoBorrowIndexTest {
+
+    @Test
+    public void givenSharedPatrons_whenRecommend_thenRankByCoBorrowCount() {
+        CoBorrowIndex index = new CoBorrowIndex(10);
+        index.recordLoan(1L, 100L);
+        index.recordLoan(1L, 200L);
+        index.recordLoan(1L, 300L);
+        index.recordLoan(2L, 100L);
+        index.recordLoan(2L, 300L);
+
+        assertArrayEquals(new long[]{300L, 200L}, index.recommend(100L, 5));
+        assertArrayEquals(new long[]{300L}, index.recommend(100L, 1));
+        assertArrayEquals(new long[0], index.recommend(999L, 5));
+    }
+
+    @Test
+    public void givenRepeatedLoanOfSameBook_whenRecordLoan_thenCountOnlyOnce() {
+        CoBorrowIndex index = new CoBorrowIndex(10);
+        index.recordLoan(1L, 100L);
+        index.recordLoan(1L, 200L);
+        index.recordLoan(1L, 200L);
+        index.recordLoan(2L, 100L);
+        index.recordLoan(2L, 300L);
+        index.recordLoan(3L, 100L);
+        index.recordLoan(3L, 300L);
+
+        assertArrayEquals(new long[]{300L, 200L}, index.recommend(100L, 5));
+    }
+
+    @Test
+    public void givenManyNeighbours_whenRecordLoan_thenKeepBoundedTopEntries() {
+        CoBorrowIndex index = new CoBorrowIndex(2);
+        for (long patron = 1; patron <= 3; patron++) {
+            index.recordLoan(patron, 1L);
+            index.recordLoan(patron, 2L);
+        }
+        index.recordLoan(4L, 1L);
+        for (long book = 10; book < 20; book++) {
+            index.recordLoan(4L, book);
+        }
+
+        long[] recommended = index.recommend(1L, 10);
+        assertEquals(2L, recommended[0]);
+        assertTrue(recommended.length <= 4);
+    }
+
+    @Test
+    public void givenDisjointPartitions_whenMerge_thenCountsAreCombined() {
+        CoBorrowIndex left = new CoBorrowIndex(10);
+        left.recordLoan(1L, 100L);
+        left.recordLoan(1L, 200L);
+        CoBorrowIndex right = new CoBorrowIndex(10);
+        right.recordLoan(2L, 100L);
+        right.recordLoan(2L, 300L);
+        right.recordLoan(4L, 100L);
+        right.recordLoan(4L, 300L);
+
+        left.merge(right);
+
+        assertArrayEquals(new long[]{300L, 200L}, left.recommend(100L, 5));
+    }
+}
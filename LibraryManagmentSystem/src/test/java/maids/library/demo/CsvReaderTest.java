@@ -0,0 +1,41 @@
+package maids.library.demo;
+
+import maids.library.demo.service.CsvReader;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CsvReaderTest {
+
+    @Test
+    public void testReadRecord_HandlesQuotesAndLineEndings() throws IOException {
+        CsvReader csv = new CsvReader(new StringReader(
+                "name,contactInformation\r\n\"Lovelace, Ada\",\"say \"\"hi\"\"\"\n\"Multi\nline\",x"));
+
+        assertEquals(List.of("name", "contactInformation"), csv.readRecord());
+        assertEquals(List.of("Lovelace, Ada", "say \"hi\""), csv.readRecord());
+        assertEquals(2, csv.getRecordLine());
+        assertEquals(List.of("Multi\nline", "x"), csv.readRecord());
+        assertEquals(3, csv.getRecordLine());
+        assertNull(csv.readRecord());
+    }
+
+    @Test
+    public void testReadRecord_KeepsEmptyFields() throws IOException {
+        CsvReader csv = new CsvReader(new StringReader("a,,\n"));
+
+        assertEquals(List.of("a", "", ""), csv.readRecord());
+        assertNull(csv.readRecord());
+    }
+
+    @Test
+    public void testReadRecord_UnterminatedQuote() {
+        CsvReader csv = new CsvReader(new StringReader("\"open"));
+
+        assertThrows(IOException.class, csv::readRecord);
+    }
+}
@@ -0,0 +1,36 @@
+package maids.library.demo;
+
+import maids.library.demo.service.BorrowingRecordArchiver;
+import maids.library.demo.service.NotificationDispatcher;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.scheduling.config.ScheduledTaskHolder;
+import org.springframework.scheduling.support.ScheduledMethodRunnable;
+import org.springframework.test.context.ActiveProfiles;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Beans are lazy under the fast-start profile; scheduled jobs must still be registered.
+ */
+@SpringBootTest
+@ActiveProfiles("fast-start")
+public class FastStartTest {
+
+    @Autowired
+    private ScheduledTaskHolder scheduledTaskHolder;
+
+    @Test
+    public void givenFastStartProfile_whenStarted_thenScheduledBeansRegistered() {
+        assertTrue(isScheduled(NotificationDispatcher.class));
+        assertTrue(isScheduled(BorrowingRecordArchiver.class));
+    }
+
+    private boolean isScheduled(Class<?> beanType) {
+        return scheduledTaskHolder.getScheduledTasks().stream()
+                .map(task -> task.getTask().getRunnable())
+                .anyMatch(runnable -> runnable instanceof ScheduledMethodRunnable method
+                        && beanType.isInstance(method.getTarget()));
+    }
+}
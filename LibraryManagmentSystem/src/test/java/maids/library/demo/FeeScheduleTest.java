@@ -0,0 +1,41 @@
+package maids.library.demo;
+
+import maids.library.demo.service.FeeSchedule;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class FeeScheduleTest {
+    private final FeeSchedule schedule = new FeeSchedule(14, 2, "1:25, 15:50", 2000);
+
+    @Test
+    public void testAmountCents_GraceTiersAndCap() {
+        assertEquals(0, schedule.amountCents(0));
+        assertEquals(0, schedule.amountCents(2));
+        assertEquals(75, schedule.amountCents(3));
+        assertEquals(350, schedule.amountCents(14));
+        assertEquals(450, schedule.amountCents(16));
+        assertEquals(2000, schedule.amountCents(100));
+    }
+
+    @Test
+    public void testAssess_Batch() {
+        int[] borrowedDays = {100, 80, 70, 0};
+        int[] daysOverdue = new int[4];
+        long[] amounts = new long[4];
+
+        schedule.assess(borrowedDays, 3, 100, daysOverdue, amounts);
+
+        assertArrayEquals(new int[]{0, 6, 16, 0}, daysOverdue);
+        assertArrayEquals(new long[]{0, 150, 450, 0}, amounts);
+    }
+
+    @Test
+    public void testConstructor_InvalidTiers() {
+        assertThrows(IllegalArgumentException.class, () -> new FeeSchedule(14, 0, "2:25", 2000));
+        assertThrows(IllegalArgumentException.class, () -> new FeeSchedule(14, 0, "1:25,1:50", 2000));
+        assertThrows(IllegalArgumentException.class, () -> new FeeSchedule(14, 0, "1-25", 2000));
+    }
+}
@@ -0,0 +1,151 @@
+package maids.library.demo;
+
+import maids.library.demo.model.entity.Book;
+import maids.library.demo.model.entity.BorrowingRecord;
+import maids.library.demo.model.entity.FineStatus;
+import maids.library.demo.model.entity.Patron;
+import maids.library.demo.repository.BookCrudRepository;
+import maids.library.demo.repository.BorrowingRecordCrudRepository;
+import maids.library.demo.repository.FineCrudRepository;
+import maids.library.demo.repository.PatronCrudRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.time.LocalDate;
+
+import static maids.library.demo.TestUtils.clearTables;
+import static maids.library.demo.TestUtils.newBook;
+import static maids.library.demo.TestUtils.newPatron;
+import static org.hamcrest.Matchers.contains;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Uses the default schedule: due after 14 days, two days of grace, 25 cents a day and 50 from the
+ * 15th overdue day on.
+ */
+@SpringBootTest(properties = "library.fines.batch-size=2")
+@AutoConfigureMockMvc
+public class FinesTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private BookCrudRepository bookRepository;
+
+    @Autowired
+    private PatronCrudRepository patronRepository;
+
+    @Autowired
+    private BorrowingRecordCrudRepository borrowingRecordRepository;
+
+    @Autowired
+    private FineCrudRepository fineRepository;
+
+    private Patron ada;
+    private Patron grace;
+
+    @BeforeEach
+    public void setUp() {
+        clearTables(jdbcTemplate);
+
+        ada = patronRepository.save(newPatron("Ada"));
+        grace = patronRepository.save(newPatron("Grace"));
+    }
+
+    @Test
+    public void givenLateLoans_whenAssessAll_thenFinesFollowSchedule() throws Exception {
+        BorrowingRecord veryLate = borrow("Dune", ada, 30);
+        borrow("Emma", ada, 17);
+        borrow("Persuasion", ada, 5);
+        borrow("Middlemarch", grace, 20);
+
+        mockMvc.perform(post("/api/fines/assess"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.openLoans").value(4))
+                .andExpect(jsonPath("$.fined").value(3));
+
+        mockMvc.perform(get("/api/patrons/{id}/fines", ada.getId()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.totalCents").value(525))
+                .andExpect(jsonPath("$.fines[*].amountCents", contains(450, 75)))
+                .andExpect(jsonPath("$.fines[*].status", contains("ACCRUING", "ACCRUING")));
+        assertEquals(16, fineRepository.findById(veryLate.getId()).orElseThrow().getDaysOverdue());
+    }
+
+    @Test
+    public void givenLateLoan_whenReturned_thenFineSettled() throws Exception {
+        BorrowingRecord late = borrow("Dune", ada, 20);
+
+        mockMvc.perform(put("/api/return/{bookId}/patron/{patronId}", late.getBook().getId(), ada.getId()))
+                .andExpect(status().isOk());
+
+        assertEquals(FineStatus.SETTLED, fineRepository.findById(late.getId()).orElseThrow().getStatus());
+        assertEquals(150, fineRepository.findById(late.getId()).orElseThrow().getAmountCents());
+
+        mockMvc.perform(post("/api/fines/assess"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.openLoans").value(0));
+        assertEquals(FineStatus.SETTLED, fineRepository.findById(late.getId()).orElseThrow().getStatus());
+    }
+
+    @Test
+    public void givenAccruingFine_whenReturned_thenSettledInPlace() throws Exception {
+        BorrowingRecord late = borrow("Dune", ada, 20);
+        mockMvc.perform(post("/api/fines/assess")).andExpect(status().isOk());
+        assertEquals(FineStatus.ACCRUING, fineRepository.findById(late.getId()).orElseThrow().getStatus());
+
+        mockMvc.perform(put("/api/return/{bookId}/patron/{patronId}", late.getBook().getId(), ada.getId()))
+                .andExpect(status().isOk());
+
+        assertEquals(FineStatus.SETTLED, fineRepository.findById(late.getId()).orElseThrow().getStatus());
+        assertEquals(150, fineRepository.findById(late.getId()).orElseThrow().getAmountCents());
+        assertEquals(1, fineRepository.count());
+    }
+
+    @Test
+    public void givenLoanWithoutBorrowingDate_whenAssessedAndReturned_thenNotFined() throws Exception {
+        borrow("Dune", ada, 30);
+        BorrowingRecord undated = borrow("Emma", ada, 0);
+        undated.setBorrowingDate(null);
+        borrowingRecordRepository.save(undated);
+
+        mockMvc.perform(post("/api/fines/assess"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.openLoans").value(1))
+                .andExpect(jsonPath("$.fined").value(1));
+        mockMvc.perform(put("/api/return/{bookId}/patron/{patronId}", undated.getBook().getId(), ada.getId()))
+                .andExpect(status().isOk());
+
+        assertTrue(fineRepository.findById(undated.getId()).isEmpty());
+    }
+
+    @Test
+    public void givenOnDemandAssessment_whenPatronUnknown_thenNotFound() throws Exception {
+        mockMvc.perform(get("/api/patrons/{id}/fines", grace.getId() + 1000))
+                .andExpect(status().isNotFound());
+    }
+
+    private BorrowingRecord borrow(String title, Patron patron, int daysAgo) {
+        Book book = bookRepository.save(newBook(title, "Author of " + title, 2024));
+        return borrowingRecordRepository.save(BorrowingRecord.builder()
+                .book(book)
+                .patron(patron)
+                .borrowingDate(LocalDate.now().minusDays(daysAgo))
+                .build());
+    }
+}
@@ -0,0 +1,43 @@
+package maids.library.demo;
+
+import maids.library.demo.branch.BranchContext;
+import maids.library.demo.branch.Branches;
+import maids.library.demo.repository.HoldCrudRepository;
+import maids.library.demo.service.HoldQueue;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+public class HoldQueueTest {
+    private final HoldQueue holdQueue = new HoldQueue(mock(HoldCrudRepository.class),
+            new Branches(List.of(BranchContext.DEFAULT_BRANCH)));
+
+    @Test
+    public void testWaiting_OrdersByHoldId() {
+        holdQueue.enqueue(1L, 12L, 102L);
+        holdQueue.enqueue(1L, 10L, 100L);
+        holdQueue.enqueue(1L, 11L, 101L);
+        holdQueue.enqueue(2L, 13L, 100L);
+
+        assertEquals(100L, holdQueue.waiting(1L).first().patronId());
+        assertEquals(3, holdQueue.waiting(1L).size());
+        assertEquals(3, holdQueue.position(1L, 12L));
+        assertEquals(1, holdQueue.position(2L, 13L));
+    }
+
+    @Test
+    public void testRemove_DropsEmptyQueues() {
+        holdQueue.enqueue(1L, 10L, 100L);
+        holdQueue.enqueue(1L, 11L, 101L);
+
+        holdQueue.remove(1L, 10L);
+        assertEquals(1, holdQueue.position(1L, 11L));
+        assertEquals(0, holdQueue.position(1L, 10L));
+
+        holdQueue.remove(1L, 11L);
+        assertTrue(holdQueue.waiting(1L).isEmpty());
+    }
+}
@@ -0,0 +1,38 @@
+package maids.library.demo;
+
+import maids.library.demo.service.IdBitmap;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class IdBitmapTest {
+
+    @Test
+    public void testMightContain_AddedAndRemovedIds() {
+        IdBitmap bitmap = new IdBitmap();
+        bitmap.add(1);
+        bitmap.add(64);
+        bitmap.add(5_000_000);
+
+        assertTrue(bitmap.mightContain(1));
+        assertTrue(bitmap.mightContain(64));
+        assertTrue(bitmap.mightContain(5_000_000));
+        assertFalse(bitmap.mightContain(2));
+        assertFalse(bitmap.mightContain(63));
+        assertFalse(bitmap.mightContain(10_000_000));
+
+        bitmap.remove(64);
+        assertFalse(bitmap.mightContain(64));
+        assertTrue(bitmap.mightContain(1));
+    }
+
+    @Test
+    public void testMightContain_IdsOutsideTrackedRange() {
+        IdBitmap bitmap = new IdBitmap();
+
+        assertFalse(bitmap.mightContain(0));
+        assertFalse(bitmap.mightContain(-1));
+        assertTrue(bitmap.mightContain(Long.MAX_VALUE));
+    }
+}
@@ -4,9 +4,12 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import maids.library.demo.controller.LibraryController;
 import maids.library.demo.exception.BookNotFoundException;
 import maids.library.demo.exception.PatronNotFoundException;
+import maids.library.demo.model.dto.MultiGetResponse;
 import maids.library.demo.model.entity.Book;
 import maids.library.demo.model.entity.BorrowingRecord;
 import maids.library.demo.model.entity.Patron;
+import maids.library.demo.service.IdempotencyService;
+import maids.library.demo.service.InMemoryIdempotencyStore;
 import maids.library.demo.service.LibraryService;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -16,6 +19,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
 import org.springframework.http.MediaType;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 import org.springframework.test.web.servlet.MockMvc;
@@ -24,8 +28,11 @@ import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
 import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 import static maids.library.demo.TestUtils.asJsonString;
@@ -36,11 +43,14 @@ import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.BDDMockito.given;
 import static org.mockito.Mockito.doNothing;
 import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
 @WebMvcTest(LibraryController.class)
+@Import({IdempotencyService.class, InMemoryIdempotencyStore.class})
 @ExtendWith(SpringExtension.class)
 public class LibraryControllerTest {
 
@@ -102,6 +112,28 @@ public class LibraryControllerTest {
                 .andExpect(status().isNotFound());
     }
 
+    @Test
+    public void givenFields_whenGetAllBooks_thenReturnOnlySelectedFields() throws Exception {
+        Map<String, Object> row = new LinkedHashMap<>();
+        row.put("id", 1L);
+        row.put("title", "book1");
+        when(libraryService.getAllBooks(List.of("id", "title"))).thenReturn(List.of(row));
+
+        mockMvc.perform(get("/api/books").param("fields", "title"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].id").value(1))
+                .andExpect(jsonPath("$[0].title").value("book1"))
+                .andExpect(jsonPath("$[0].author").doesNotExist());
+    }
+
+    @Test
+    public void givenUnknownField_whenGetBookById_thenReturnBadRequest() throws Exception {
+        mockMvc.perform(get("/api/books/{id}", 1L).param("fields", "title,password"))
+                .andExpect(status().isBadRequest());
+
+        verify(libraryService, times(0)).getBookById(any(), any());
+    }
+
     @Test
     public void givenNewBook_whenAddBook_thenStatusCreated() throws Exception {
         // given
@@ -130,7 +162,7 @@ public class LibraryControllerTest {
                 .title("Updated Book")
                 .author("Updated Author")
                 .isbn("Updated Isbn")
-                .publicationYear("2024")
+                .publicationYear(2024)
                 .build();
 
         when(libraryService.updateBook(any(), any())).thenReturn(updatedBook);
@@ -297,4 +329,78 @@ public class LibraryControllerTest {
                 .andExpect(status().isNotFound());
     }
 
+    @Test
+    public void givenBookIds_whenGetBooksByIds_thenReturnFoundAndMissing() throws Exception {
+        Book book = buildBook();
+        given(libraryService.getBooksByIds(Arrays.asList(1L, 7L))).willReturn(MultiGetResponse.<Book>builder()
+                .items(Collections.singletonList(book))
+                .missingIds(Collections.singletonList(7L))
+                .build());
+
+        mockMvc.perform(get("/api/books").param("ids", "1,7"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items[0].title").value("book1"))
+                .andExpect(jsonPath("$.missingIds[0]").value(7));
+    }
+
+    @Test
+    public void givenPatronIdsInBody_whenMultiGetPatrons_thenReturnFoundPatrons() throws Exception {
+        Patron patron = buildPatron(1L);
+        given(libraryService.getPatronsByIds(Arrays.asList(1L, 2L))).willReturn(MultiGetResponse.<Patron>builder()
+                .items(Collections.singletonList(patron))
+                .missingIds(Collections.singletonList(2L))
+                .build());
+
+        mockMvc.perform(post("/api/patrons/multi-get")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[1, 2]"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items[0].name").value("Dummy Patron"))
+                .andExpect(jsonPath("$.missingIds[0]").value(2));
+    }
+
+    @Test
+    public void givenRetriedBorrowWithSameIdempotencyKey_whenBorrowBook_thenBorrowOnlyOnce() throws Exception {
+        long bookId = 1L;
+        long patronId = 2L;
+
+        mockMvc.perform(post("/api/borrow/{bookId}/patron/{patronId}", bookId, patronId)
+                        .header("Idempotency-Key", "borrow-once"))
+                .andExpect(status().isCreated());
+        mockMvc.perform(post("/api/borrow/{bookId}/patron/{patronId}", bookId, patronId)
+                        .header("Idempotency-Key", "borrow-once"))
+                .andExpect(status().isCreated())
+                .andExpect(header().string("Idempotent-Replayed", "true"));
+
+        verify(libraryService, times(1)).borrowBook(bookId, patronId);
+    }
+
+    @Test
+    public void givenIdempotencyKeyReusedForOtherRequest_whenReturnBook_thenUnprocessableEntity() throws Exception {
+        mockMvc.perform(put("/api/return/{bookId}/patron/{patronId}", 1L, 1L)
+                        .header("Idempotency-Key", "return-key"))
+                .andExpect(status().isOk());
+        mockMvc.perform(put("/api/return/{bookId}/patron/{patronId}", 2L, 1L)
+                        .header("Idempotency-Key", "return-key"))
+                .andExpect(status().isUnprocessableEntity());
+
+        verify(libraryService, times(1)).returnBook(any(), any());
+    }
+
+    @Test
+    public void givenFailedBorrow_whenRetriedWithSameIdempotencyKey_thenRunAgain() throws Exception {
+        long bookId = 1L;
+        long patronId = 1L;
+        given(libraryService.borrowBook(bookId, patronId))
+                .willThrow(BookNotFoundException.builder().build())
+                .willReturn(null);
+
+        mockMvc.perform(post("/api/borrow/{bookId}/patron/{patronId}", bookId, patronId)
+                        .header("Idempotency-Key", "retry-after-failure"))
+                .andExpect(status().isNotFound());
+        mockMvc.perform(post("/api/borrow/{bookId}/patron/{patronId}", bookId, patronId)
+                        .header("Idempotency-Key", "retry-after-failure"))
+                .andExpect(status().isCreated());
+    }
+
 }
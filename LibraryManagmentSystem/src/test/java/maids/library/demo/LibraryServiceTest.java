@@ -1,15 +1,28 @@
 package maids.library.demo;
 
+import maids.library.demo.event.BookBorrowedEvent;
+import maids.library.demo.event.HoldFulfilledEvent;
 import maids.library.demo.exception.BookNotFoundException;
 import maids.library.demo.exception.BorrowingRecordNotFoundException;
+import maids.library.demo.exception.LoanLimitExceededException;
 import maids.library.demo.exception.PatronNotFoundException;
+import maids.library.demo.model.dto.LoanHistoryEntry;
+import maids.library.demo.model.dto.MultiGetResponse;
 import maids.library.demo.model.entity.Book;
 import maids.library.demo.model.entity.BorrowingRecord;
 import maids.library.demo.model.entity.Patron;
+import maids.library.demo.model.projection.LoanSnapshot;
+import maids.library.demo.repository.ArchivedBorrowingRecordCrudRepository;
 import maids.library.demo.repository.BookCrudRepository;
 import maids.library.demo.repository.BorrowingRecordCrudRepository;
 import maids.library.demo.repository.PatronCrudRepository;
+import maids.library.demo.service.FineService;
+import maids.library.demo.service.HoldQueue;
+import maids.library.demo.service.HoldService;
+import maids.library.demo.service.KnownIds;
 import maids.library.demo.service.LibraryService;
+import maids.library.demo.service.LoanLimitService;
+import maids.library.demo.service.NotificationOutbox;
 
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -17,12 +30,15 @@ import org.mockito.InjectMocks;
 import org.mockito.Mock;
 
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
 
 import static maids.library.demo.TestUtils.buildBook;
 import static maids.library.demo.TestUtils.buildBorrowingRecord;
 import static maids.library.demo.TestUtils.buildPatron;
 import static org.mockito.Mockito.*;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
@@ -40,6 +56,27 @@ public class LibraryServiceTest {
     @Mock
     private BorrowingRecordCrudRepository borrowingRecordRepository;
 
+    @Mock
+    private ArchivedBorrowingRecordCrudRepository archivedRecordRepository;
+
+    @Mock
+    private HoldService holdService;
+
+    @Mock
+    private LoanLimitService loanLimitService;
+
+    @Mock
+    private KnownIds knownIds;
+
+    @Mock
+    private FineService fineService;
+
+    @Mock
+    private NotificationOutbox notificationOutbox;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
     @InjectMocks
     private LibraryService libraryService;
 
@@ -56,6 +93,28 @@ public class LibraryServiceTest {
         libraryService.returnBook(1L, 1L);
 
         assertNotNull(borrowingRecord.getReturnDate());
+        verify(loanLimitService).release(1L);
+        verify(fineService).settle(borrowingRecord);
+        verify(notificationOutbox).loanReturned(borrowingRecord.getId());
+    }
+
+    @Test
+    public void testReturnBook_AssignsBookToNextHold() {
+        Book book = buildBook();
+        Patron patron = buildPatron(1L);
+        Patron waitingPatron = buildPatron(2L);
+        BorrowingRecord borrowingRecord = buildBorrowingRecord(book, patron);
+
+        when(bookRepository.findById(anyLong())).thenReturn(Optional.of(book));
+        when(patronRepository.findById(anyLong())).thenReturn(Optional.of(patron));
+        when(borrowingRecordRepository.findByBookAndPatronAndReturnDateIsNull(any(), any())).thenReturn(Optional.of(borrowingRecord));
+        when(holdService.claimNextHold(eq(book.getId()), any())).thenReturn(Optional.of(new HoldQueue.QueuedHold(7L, 2L)));
+        when(patronRepository.getReferenceById(2L)).thenReturn(waitingPatron);
+
+        libraryService.returnBook(1L, 1L);
+
+        verify(borrowingRecordRepository).save(argThat(record -> record.getPatron() == waitingPatron && record.getReturnDate() == null));
+        verify(eventPublisher).publishEvent(any(HoldFulfilledEvent.class));
     }
 
     @Test
@@ -92,6 +151,17 @@ public class LibraryServiceTest {
         when(patronRepository.findById(anyLong())).thenReturn(Optional.of(patron));
 
         assertDoesNotThrow(() -> libraryService.borrowBook(1L, 1L));
+        verify(eventPublisher).publishEvent(any(BookBorrowedEvent.class));
+    }
+
+    @Test
+    public void testBorrowBook_LoanLimitExceeded() {
+        when(bookRepository.findById(anyLong())).thenReturn(Optional.of(buildBook()));
+        when(patronRepository.findById(anyLong())).thenReturn(Optional.of(buildPatron(1L)));
+        doThrow(LoanLimitExceededException.class).when(loanLimitService).reserve(1L);
+
+        assertThrows(LoanLimitExceededException.class, () -> libraryService.borrowBook(1L, 1L));
+        verify(borrowingRecordRepository, never()).save(any());
     }
 
     @Test
@@ -158,6 +228,7 @@ public class LibraryServiceTest {
     public void testGetPatronById_Success() {
         Patron patron = buildPatron(1L);
 
+        when(knownIds.mightContainPatron(anyLong())).thenReturn(true);
         when(patronRepository.findById(anyLong())).thenReturn(Optional.of(patron));
 
         assertEquals(patron, libraryService.getPatronById(1L));
@@ -165,11 +236,20 @@ public class LibraryServiceTest {
 
     @Test
     public void testGetPatronById_PatronNotFound() {
+        when(knownIds.mightContainPatron(anyLong())).thenReturn(true);
         when(patronRepository.findById(anyLong())).thenReturn(Optional.empty());
 
         assertThrows(PatronNotFoundException.class, () -> libraryService.getPatronById(1L));
     }
 
+    @Test
+    public void testGetPatronById_UnknownIdSkipsRepository() {
+        when(knownIds.mightContainPatron(anyLong())).thenReturn(false);
+
+        assertThrows(PatronNotFoundException.class, () -> libraryService.getPatronById(1L));
+        verifyNoInteractions(patronRepository);
+    }
+
     @Test
     public void testGetAllPatrons() {
         Patron patron = buildPatron(1L);
@@ -214,7 +294,7 @@ public class LibraryServiceTest {
                 .title("Updated Book")
                 .author("Updated Author")
                 .isbn("Updated Isbn")
-                .publicationYear("2024")
+                .publicationYear(2024)
                 .build();
     }
 
@@ -232,6 +312,7 @@ public class LibraryServiceTest {
     public void testGetBookById_Success() {
         Book book = buildBook();
 
+        when(knownIds.mightContainBook(anyLong())).thenReturn(true);
         when(bookRepository.findById(anyLong())).thenReturn(Optional.of(book));
 
         assertEquals(book, libraryService.getBookById(1L));
@@ -239,11 +320,20 @@ public class LibraryServiceTest {
 
     @Test
     public void testGetBookById_BookNotFound() {
+        when(knownIds.mightContainBook(anyLong())).thenReturn(true);
         when(bookRepository.findById(anyLong())).thenReturn(Optional.empty());
 
         assertThrows(BookNotFoundException.class, () -> libraryService.getBookById(1L));
     }
 
+    @Test
+    public void testGetBookById_UnknownIdSkipsRepository() {
+        when(knownIds.mightContainBook(anyLong())).thenReturn(false);
+
+        assertThrows(BookNotFoundException.class, () -> libraryService.getBookById(1L));
+        verifyNoInteractions(bookRepository);
+    }
+
     @Test
     public void testAddBook_Success() {
         Book book = buildBook();
@@ -253,4 +343,57 @@ public class LibraryServiceTest {
         assertDoesNotThrow(() -> libraryService.addBook(book));
     }
 
+    @Test
+    public void testGetBooksByIds_KeepsInputOrderAndReportsMissing() {
+        Book first = Book.builder().id(1L).title("First").build();
+        Book third = Book.builder().id(3L).title("Third").build();
+        when(bookRepository.findAllById(any())).thenReturn(Arrays.asList(first, third));
+
+        MultiGetResponse<Book> response = libraryService.getBooksByIds(Arrays.asList(3L, 2L, 1L, 3L));
+
+        assertEquals(Arrays.asList(third, first), response.getItems());
+        assertEquals(Collections.singletonList(2L), response.getMissingIds());
+        verify(bookRepository, times(1)).findAllById(any());
+    }
+
+    @Test
+    public void testGetPatronsByIds_ChunksLongIdLists() {
+        List<Long> ids = new ArrayList<>();
+        for (long id = 1; id <= 1200; id++) {
+            ids.add(id);
+        }
+        when(patronRepository.findAllById(any())).thenReturn(Collections.emptyList());
+
+        MultiGetResponse<Patron> response = libraryService.getPatronsByIds(ids);
+
+        assertEquals(1200, response.getMissingIds().size());
+        verify(patronRepository, times(3)).findAllById(any());
+    }
+
+    @Test
+    public void testGetBorrowingHistoryForPatron_MergesActiveAndArchived() {
+        LoanSnapshot active = mock(LoanSnapshot.class);
+        when(active.getId()).thenReturn(20L);
+        LoanSnapshot archived = mock(LoanSnapshot.class);
+        when(archived.getId()).thenReturn(5L);
+        when(patronRepository.existsById(1L)).thenReturn(true);
+        when(borrowingRecordRepository.findHistoryByPatronId(1L)).thenReturn(Collections.singletonList(active));
+        when(archivedRecordRepository.findHistoryByPatronId(1L)).thenReturn(Collections.singletonList(archived));
+
+        List<LoanHistoryEntry> history = libraryService.getBorrowingHistoryForPatron(1L);
+
+        assertEquals(2, history.size());
+        assertEquals(20L, history.get(0).getBorrowingRecordId());
+        assertFalse(history.get(0).isArchived());
+        assertEquals(5L, history.get(1).getBorrowingRecordId());
+        assertTrue(history.get(1).isArchived());
+    }
+
+    @Test
+    public void testGetBorrowingHistoryForPatron_PatronNotFound() {
+        when(patronRepository.existsById(1L)).thenReturn(false);
+
+        assertThrows(PatronNotFoundException.class, () -> libraryService.getBorrowingHistoryForPatron(1L));
+    }
+
 }
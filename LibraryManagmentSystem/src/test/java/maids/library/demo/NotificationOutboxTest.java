@@ -0,0 +1,154 @@
+package maids.library.demo;
+
+import maids.library.demo.model.entity.Book;
+import maids.library.demo.model.entity.NotificationStatus;
+import maids.library.demo.model.entity.NotificationType;
+import maids.library.demo.model.entity.OutboxNotification;
+import maids.library.demo.model.entity.Patron;
+import maids.library.demo.repository.BookCrudRepository;
+import maids.library.demo.repository.OutboxNotificationCrudRepository;
+import maids.library.demo.repository.PatronCrudRepository;
+import maids.library.demo.service.NotificationSender;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static maids.library.demo.TestUtils.clearTables;
+import static maids.library.demo.TestUtils.newBook;
+import static maids.library.demo.TestUtils.newPatron;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.verify;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * The scheduled dispatcher is held back by the test properties; notifications are only sent
+ * through the dispatch endpoint.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+public class NotificationOutboxTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private BookCrudRepository bookRepository;
+
+    @Autowired
+    private PatronCrudRepository patronRepository;
+
+    @Autowired
+    private OutboxNotificationCrudRepository outboxRepository;
+
+    @MockBean
+    private NotificationSender sender;
+
+    private Book book;
+    private Patron ada;
+    private Patron grace;
+
+    @BeforeEach
+    public void setUp() {
+        clearTables(jdbcTemplate);
+
+        book = bookRepository.save(newBook("Dune", "Frank Herbert", 1965));
+        ada = patronRepository.save(newPatron("Ada"));
+        grace = patronRepository.save(newPatron("Grace"));
+    }
+
+    @Test
+    public void givenLoanWithWaitingHold_whenReturned_thenRemindersCancelledAndHoldReadyQueued() throws Exception {
+        mockMvc.perform(post("/api/borrow/{bookId}/patron/{patronId}", book.getId(), ada.getId()))
+                .andExpect(status().isCreated());
+        List<OutboxNotification> adaNotifications = outboxRepository.findByPatronIdOrderById(ada.getId());
+        assertEquals(List.of(NotificationType.DUE_SOON, NotificationType.OVERDUE),
+                adaNotifications.stream().map(OutboxNotification::getType).toList());
+        assertEquals(LocalDate.now().plusDays(15).atStartOfDay(), adaNotifications.get(1).getNotBefore());
+
+        mockMvc.perform(post("/api/books/{bookId}/holds", book.getId()).param("patronId", grace.getId().toString()))
+                .andExpect(status().isCreated());
+        mockMvc.perform(put("/api/return/{bookId}/patron/{patronId}", book.getId(), ada.getId()))
+                .andExpect(status().isOk());
+
+        assertTrue(outboxRepository.findByPatronIdOrderById(ada.getId()).stream()
+                .allMatch(notification -> notification.getStatus() == NotificationStatus.CANCELLED));
+        List<OutboxNotification> graceNotifications = outboxRepository.findByPatronIdOrderById(grace.getId());
+        assertEquals(List.of(NotificationType.DUE_SOON, NotificationType.OVERDUE, NotificationType.HOLD_READY),
+                graceNotifications.stream().map(OutboxNotification::getType).toList());
+        assertTrue(graceNotifications.stream()
+                .allMatch(notification -> notification.getStatus() == NotificationStatus.PENDING));
+    }
+
+    @Test
+    public void givenDueNotification_whenDispatched_thenSentOnce() throws Exception {
+        mockMvc.perform(post("/api/borrow/{bookId}/patron/{patronId}", book.getId(), ada.getId()))
+                .andExpect(status().isCreated());
+        OutboxNotification dueSoon = makeDue(NotificationType.DUE_SOON);
+
+        mockMvc.perform(post("/api/notifications/dispatch"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.claimed").value(1))
+                .andExpect(jsonPath("$.sent").value(1));
+        mockMvc.perform(post("/api/notifications/dispatch"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.claimed").value(0));
+
+        verify(sender).send(argThat(notification -> notification.id() == dueSoon.getId()
+                && notification.recipient().equals("ada@example.com") && notification.bookTitle().equals("Dune")));
+        OutboxNotification sent = outboxRepository.findById(dueSoon.getId()).orElseThrow();
+        assertEquals(NotificationStatus.SENT, sent.getStatus());
+        assertEquals(1, sent.getAttempts());
+        assertNotNull(sent.getSentAt());
+    }
+
+    @Test
+    public void givenFailingSender_whenDispatched_thenRetriedWithBackoff() throws Exception {
+        doThrow(new IllegalStateException("gateway down")).when(sender).send(any());
+        mockMvc.perform(post("/api/borrow/{bookId}/patron/{patronId}", book.getId(), ada.getId()))
+                .andExpect(status().isCreated());
+        OutboxNotification dueSoon = makeDue(NotificationType.DUE_SOON);
+
+        mockMvc.perform(post("/api/notifications/dispatch"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.retried").value(1));
+
+        OutboxNotification retried = outboxRepository.findById(dueSoon.getId()).orElseThrow();
+        assertEquals(NotificationStatus.PENDING, retried.getStatus());
+        assertEquals(1, retried.getAttempts());
+        assertTrue(retried.getNotBefore().isAfter(LocalDateTime.now()));
+        assertTrue(retried.getLastError().contains("gateway down"));
+
+        mockMvc.perform(post("/api/notifications/dispatch"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.claimed").value(0));
+    }
+
+    private OutboxNotification makeDue(NotificationType type) {
+        OutboxNotification notification = outboxRepository.findByPatronIdOrderById(ada.getId()).stream()
+                .filter(candidate -> candidate.getType() == type)
+                .findFirst()
+                .orElseThrow();
+        notification.setNotBefore(LocalDateTime.now().minusMinutes(1));
+        return outboxRepository.save(notification);
+    }
+}
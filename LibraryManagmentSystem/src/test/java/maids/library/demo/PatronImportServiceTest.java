@@ -0,0 +1,94 @@
+package maids.library.demo;
+
+import jakarta.validation.Validation;
+import maids.library.demo.model.dto.PatronImportStatus;
+import maids.library.demo.repository.PatronCrudRepository;
+import maids.library.demo.service.PatronImportJob;
+import maids.library.demo.service.PatronImportService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class PatronImportServiceTest {
+    private final PatronCrudRepository patronRepository = mock(PatronCrudRepository.class);
+    private final CountDownLatch writerReleased = new CountDownLatch(1);
+    private final PatronImportService importService = new PatronImportService(patronRepository,
+            Validation.buildDefaultValidatorFactory().getValidator(), mock(ApplicationEventPublisher.class),
+            mock(PlatformTransactionManager.class), 1, 1, 100, 100, 1);
+
+    @AfterEach
+    public void tearDown() {
+        writerReleased.countDown();
+        importService.shutdown();
+    }
+
+    @Test
+    public void testImportCsv_UploadAbortedWithQueueFullReleasesWriter() throws Exception {
+        when(patronRepository.saveAll(anyList())).thenAnswer(invocation -> {
+            writerReleased.await(10, TimeUnit.SECONDS);
+            return invocation.getArgument(0);
+        });
+
+        // The writer holds the first row, the second fills the queue, then the upload breaks off.
+        PatronImportJob aborted = importService.importCsv(new AbortedUpload(
+                "name,contactInformation\nAda,ada@example.com\nGrace,grace@example.com\n"));
+        assertFalse(aborted.isRunning());
+        writerReleased.countDown();
+
+        PatronImportJob next = assertTimeoutPreemptively(Duration.ofSeconds(10), () -> {
+            PatronImportJob job = importService.importCsv(new ByteArrayInputStream(
+                    "name,contactInformation\nAlan,alan@example.com\n".getBytes(StandardCharsets.UTF_8)));
+            while (job.isRunning()) {
+                Thread.sleep(10);
+            }
+            return job;
+        });
+        assertEquals(PatronImportStatus.State.COMPLETED, next.toStatus(null).getState());
+        assertEquals(1, next.toStatus(null).getImported());
+    }
+
+    /**
+     * Delivers the given content, then fails the way a dropped client connection does.
+     */
+    private static final class AbortedUpload extends InputStream {
+        private final ByteArrayInputStream content;
+
+        AbortedUpload(String content) {
+            this.content = new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8));
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = content.read();
+            if (b < 0) {
+                throw new IOException("Connection reset");
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int read = content.read(b, off, len);
+            if (read < 0) {
+                throw new IOException("Connection reset");
+            }
+            return read;
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package maids.library.demo;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+public class PatronImportTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Test
+    public void givenCsvWithInvalidRows_whenImport_thenValidRowsSavedAndErrorsReported() throws Exception {
+        String csv = "name,contactInformation\n"
+                + "Ada Lovelace,ada@example.com\n"
+                + ",nobody@example.com\n"
+                + "\"Hopper, Grace\",grace@example.com\n"
+                + "Alan Turing\n";
+
+        MvcResult result = mockMvc.perform(post("/api/patrons/import")
+                        .contentType("text/csv")
+                        .content(csv))
+                .andExpect(status().isAccepted())
+                .andExpect(header().exists("Location"))
+                .andReturn();
+        String location = result.getResponse().getHeader("Location");
+
+        JsonNode job = awaitFinished(location);
+        assertEquals("COMPLETED", job.get("state").asText());
+        assertEquals(4, job.get("rowsRead").asLong());
+        assertEquals(2, job.get("imported").asLong());
+        assertEquals(2, job.get("rejected").asLong());
+
+        mockMvc.perform(get(job.get("errorReport").asText()))
+                .andExpect(status().isOk())
+                .andExpect(content().string(containsString("3,\"name: Name is required\"")))
+                .andExpect(content().string(containsString("5,\"Expected 2 fields but found 1\"")));
+    }
+
+    @Test
+    public void givenCsvWithoutHeader_whenImport_thenJobFails() throws Exception {
+        MvcResult result = mockMvc.perform(post("/api/patrons/import")
+                        .contentType("text/csv")
+                        .content("Ada Lovelace,ada@example.com\n"))
+                .andExpect(status().isAccepted())
+                .andReturn();
+
+        JsonNode job = awaitFinished(result.getResponse().getHeader("Location"));
+        assertEquals("FAILED", job.get("state").asText());
+        assertEquals(0, job.get("imported").asLong());
+    }
+
+    @Test
+    public void givenUnknownJob_whenGetStatus_thenNotFound() throws Exception {
+        mockMvc.perform(get("/api/patrons/import/{jobId}", "missing"))
+                .andExpect(status().isNotFound());
+    }
+
+    private JsonNode awaitFinished(String location) throws Exception {
+        for (int attempt = 0; attempt < 100; attempt++) {
+            String body = mockMvc.perform(get(location))
+                    .andExpect(status().isOk())
+                    .andReturn().getResponse().getContentAsString();
+            JsonNode job = objectMapper.readTree(body);
+            if (!"RUNNING".equals(job.get("state").asText())) {
+                return job;
+            }
+            Thread.sleep(50);
+        }
+        throw new AssertionError("Import job did not finish: " + location);
+    }
+}
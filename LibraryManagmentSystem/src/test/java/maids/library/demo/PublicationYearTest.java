@@ -0,0 +1,116 @@
+package maids.library.demo;
+
+import maids.library.demo.model.dto.YearMigrationResult;
+import maids.library.demo.repository.BookCrudRepository;
+import maids.library.demo.service.PublicationYearMigration;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.net.URI;
+
+import static maids.library.demo.TestUtils.clearTables;
+import static maids.library.demo.TestUtils.newBook;
+import static org.hamcrest.Matchers.contains;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = "library.books.year-migration.batch-size=2")
+@AutoConfigureMockMvc
+public class PublicationYearTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private BookCrudRepository bookRepository;
+
+    @Autowired
+    private PublicationYearMigration migration;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    public void setUp() {
+        clearTables(jdbcTemplate);
+    }
+
+    @Test
+    public void givenBooks_whenBrowseYearRange_thenPagesInYearOrderFollowNextLink() throws Exception {
+        save("Foundation", "Isaac Asimov", 1951);
+        save("Dune Messiah", "Frank Herbert", 1969);
+        save("Dune", "Frank Herbert", 1965);
+        save("Neuromancer", "William Gibson", 1984);
+        save("Emma", "Jane Austen", 1815);
+        save("Children of Dune", "Frank Herbert", 1976);
+
+        String next = mockMvc.perform(get("/api/books").param("yearFrom", "1960").param("yearTo", "1990").param("limit", "2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[*].title", contains("Dune", "Dune Messiah")))
+                .andReturn().getResponse().getHeader(HttpHeaders.LINK);
+
+        String last = mockMvc.perform(get(URI.create(next.substring(1, next.indexOf('>')))))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[*].title", contains("Children of Dune", "Neuromancer")))
+                .andReturn().getResponse().getHeader(HttpHeaders.LINK);
+        assertNull(last);
+    }
+
+    @Test
+    public void givenAuthorAndYearRange_whenBrowse_thenOnlyThatAuthorsBooks() throws Exception {
+        save("Dune", "Frank Herbert", 1965);
+        save("Dune Messiah", "Frank Herbert", 1969);
+        save("The Left Hand of Darkness", "Ursula K. Le Guin", 1969);
+
+        mockMvc.perform(get("/api/books").param("author", "Frank Herbert").param("yearFrom", "1966"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[*].title", contains("Dune Messiah")))
+                .andExpect(header().doesNotExist(HttpHeaders.LINK));
+        mockMvc.perform(get("/api/books").param("yearFrom", "1960").param("afterYear", "1965"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/api/books").param("fields", "title").param("author", "Frank Herbert"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    public void givenLegacyTextYears_whenMigrated_thenNumericYearsFilledInBatches() throws Exception {
+        long dune = insertLegacy("Dune", "1965");
+        long messiah = insertLegacy("Dune Messiah", " 1969 ");
+        long children = insertLegacy("Children of Dune", "c. 1976");
+        long unknown = insertLegacy("Heretics of Dune", "unknown");
+
+        YearMigrationResult result = migration.migrate();
+
+        assertEquals(4, result.getScanned());
+        assertEquals(3, result.getConverted());
+        assertEquals(1, result.getUnparseable());
+        assertEquals(2, result.getBatches());
+        assertEquals(1965, bookRepository.findById(dune).orElseThrow().getPublicationYear());
+        assertEquals(1969, bookRepository.findById(messiah).orElseThrow().getPublicationYear());
+        assertEquals(1976, bookRepository.findById(children).orElseThrow().getPublicationYear());
+        assertNull(bookRepository.findById(unknown).orElseThrow().getPublicationYear());
+        mockMvc.perform(get("/api/books").param("author", "Frank Herbert"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[*].title", contains("Dune", "Dune Messiah", "Children of Dune")));
+    }
+
+    private void save(String title, String author, int publicationYear) {
+        bookRepository.save(newBook(title, author, publicationYear));
+    }
+
+    private long insertLegacy(String title, String publicationYear) {
+        jdbcTemplate.update("insert into book (title, author, publication_year, isbn, branch) values (?, ?, ?, ?, 'main')",
+                title, "Frank Herbert", publicationYear, "isbn-" + title);
+        return jdbcTemplate.queryForObject("select id from book where title = ?", Long.class, title);
+    }
+}
@@ -0,0 +1,285 @@
+package maids.library.demo;
+
+import maids.library.demo.model.dto.BookFilter;
+import maids.library.demo.model.dto.BulkBookUpdateRequest;
+import maids.library.demo.model.entity.Book;
+import maids.library.demo.model.entity.BorrowingRecord;
+import maids.library.demo.model.entity.Patron;
+import maids.library.demo.repository.BookCrudRepository;
+import maids.library.demo.repository.BorrowingRecordCrudRepository;
+import maids.library.demo.repository.PatronCrudRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.RequestBuilder;
+import org.springframework.test.web.servlet.ResultMatcher;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static maids.library.demo.TestUtils.asJsonString;
+import static maids.library.demo.TestUtils.clearTables;
+import static maids.library.demo.TestUtils.newBook;
+import static maids.library.demo.TestUtils.newPatron;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Runs every endpoint against the embedded database and fails when it issues more SQL statements
+ * than its budget. A higher count usually means a lazy association is loaded per row or a lookup
+ * is repeated; raise a budget only together with the change that needs it.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@Import(SqlStatementCounter.class)
+public class QueryBudgetTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private BookCrudRepository bookRepository;
+
+    @Autowired
+    private PatronCrudRepository patronRepository;
+
+    @Autowired
+    private BorrowingRecordCrudRepository borrowingRecordRepository;
+
+    private Book book;
+    private Patron patron;
+
+    @BeforeEach
+    public void setUp() {
+        clearTables(jdbcTemplate);
+
+        book = bookRepository.save(newBook("Dune", "Author of Dune", 2024));
+        bookRepository.save(newBook("Emma", "Author of Emma", 2024));
+        patron = patronRepository.save(newPatron("Ada"));
+        patronRepository.save(newPatron("Grace"));
+    }
+
+    @Test
+    public void givenBooks_whenGetAllBooks_thenWithinBudget() throws Exception {
+        assertQueryBudget(1, get("/api/books"), status().isOk());
+    }
+
+    @Test
+    public void givenBook_whenGetBookById_thenWithinBudget() throws Exception {
+        assertQueryBudget(1, get("/api/books/{id}", book.getId()), status().isOk());
+    }
+
+    @Test
+    public void givenUnknownIds_whenGetBookAndPatron_thenNoStatements() throws Exception {
+        assertQueryBudget(0, get("/api/books/{id}", book.getId() + 1000), status().isNotFound());
+        assertQueryBudget(0, get("/api/patrons/{id}", patron.getId() + 1000), status().isNotFound());
+    }
+
+    @Test
+    public void givenBooks_whenGetBooksWithFields_thenOnlySelectedColumnsRead() throws Exception {
+        SqlStatementCounter.start();
+        List<String> statements;
+        try {
+            mockMvc.perform(get("/api/books").param("fields", "title")).andExpect(status().isOk());
+        } finally {
+            statements = SqlStatementCounter.stop();
+        }
+        assertEquals(1, statements.size(), () -> String.join("\n", statements));
+        assertFalse(statements.get(0).contains("isbn"), statements.get(0));
+        assertFalse(statements.get(0).contains("author"), statements.get(0));
+    }
+
+    @Test
+    public void givenBooks_whenBrowseYearRange_thenWithinBudget() throws Exception {
+        assertQueryBudget(1, get("/api/books").param("yearFrom", "2000").param("author", "Author of Dune"),
+                status().isOk());
+    }
+
+    @Test
+    public void givenBooks_whenMultiGetBooks_thenWithinBudget() throws Exception {
+        assertQueryBudget(1, get("/api/books").param("ids", book.getId() + ",-1"), status().isOk());
+    }
+
+    @Test
+    public void givenNewBook_whenAddBook_thenWithinBudget() throws Exception {
+        assertQueryBudget(1, post("/api/books")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(asJsonString(newBook("Middlemarch", "Author of Middlemarch", 2024))), status().isCreated());
+    }
+
+    @Test
+    public void givenBook_whenUpdateBook_thenWithinBudget() throws Exception {
+        assertQueryBudget(2, put("/api/books/{id}", book.getId())
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(asJsonString(newBook("Dune Messiah", "Author of Dune Messiah", 2024))), status().isOk());
+    }
+
+    @Test
+    public void givenBook_whenDeleteBook_thenWithinBudget() throws Exception {
+        assertQueryBudget(2, delete("/api/books/{id}", book.getId()), status().isNoContent());
+    }
+
+    @Test
+    public void givenPatrons_whenGetAllPatrons_thenWithinBudget() throws Exception {
+        assertQueryBudget(1, get("/api/patrons"), status().isOk());
+    }
+
+    @Test
+    public void givenPatron_whenGetPatronById_thenWithinBudget() throws Exception {
+        assertQueryBudget(1, get("/api/patrons/{id}", patron.getId()), status().isOk());
+    }
+
+    @Test
+    public void givenNewPatron_whenAddPatron_thenWithinBudget() throws Exception {
+        assertQueryBudget(1, post("/api/patrons")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(asJsonString(newPatron("Alan"))), status().isCreated());
+    }
+
+    @Test
+    public void givenPatron_whenUpdatePatron_thenWithinBudget() throws Exception {
+        assertQueryBudget(2, put("/api/patrons/{id}", patron.getId())
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(asJsonString(newPatron("Ada Lovelace"))), status().isOk());
+    }
+
+    @Test
+    public void givenPatron_whenDeletePatron_thenWithinBudget() throws Exception {
+        assertQueryBudget(2, delete("/api/patrons/{id}", patron.getId()), status().isNoContent());
+    }
+
+    @Test
+    public void givenBookAndPatron_whenBorrowBook_thenWithinBudget() throws Exception {
+        // Four statements of the loan itself, the rollup upsert and one batched insert of both reminders.
+        List<String> statements = assertQueryBudget(6,
+                post("/api/borrow/{bookId}/patron/{patronId}", book.getId(), patron.getId()), status().isCreated());
+        assertEquals(1, count(statements, "insert into notification_outbox"));
+    }
+
+    @Test
+    public void givenLoan_whenReturnBook_thenWithinBudget() throws Exception {
+        borrow(book, patron);
+
+        // Five statements of the return itself, the rollup upsert and the cancellation of the reminders.
+        List<String> statements = assertQueryBudget(7,
+                put("/api/return/{bookId}/patron/{patronId}", book.getId(), patron.getId()), status().isOk());
+        assertEquals(1, count(statements, "update notification_outbox"));
+    }
+
+    @Test
+    public void givenLateLoan_whenReturnBook_thenWithinBudget() throws Exception {
+        borrowingRecordRepository.save(BorrowingRecord.builder()
+                .book(book)
+                .patron(patron)
+                .borrowingDate(LocalDate.now().minusDays(30))
+                .build());
+
+        // The on-time return plus the single upsert that settles the fine.
+        List<String> statements = assertQueryBudget(8,
+                put("/api/return/{bookId}/patron/{patronId}", book.getId(), patron.getId()), status().isOk());
+        assertEquals(1, count(statements, "insert into fine"));
+    }
+
+    @Test
+    public void givenLoanWithWaitingHold_whenReturnBook_thenWithinBudget() throws Exception {
+        Patron waiting = patronRepository.save(newPatron("Edsger"));
+        mockMvc.perform(post("/api/borrow/{bookId}/patron/{patronId}", book.getId(), patron.getId()))
+                .andExpect(status().isCreated());
+        mockMvc.perform(post("/api/books/{bookId}/holds", book.getId()).param("patronId", waiting.getId().toString()))
+                .andExpect(status().isCreated());
+
+        // The return and the new loan of the waiting patron, each with its rollup upsert, plus three
+        // outbox writes: cancelling the old reminders, queueing the new ones and the hold-ready notice.
+        List<String> statements = assertQueryBudget(14,
+                put("/api/return/{bookId}/patron/{patronId}", book.getId(), patron.getId()), status().isOk());
+        assertEquals(1, count(statements, "update notification_outbox"));
+        assertEquals(2, count(statements, "insert into notification_outbox"));
+    }
+
+    @Test
+    public void givenLoans_whenGetPatronBorrowingHistory_thenWithinBudget() throws Exception {
+        borrow(book, patron);
+        borrow(bookRepository.save(newBook("Persuasion", "Author of Persuasion", 2024)), patron);
+
+        assertQueryBudget(3, get("/api/patrons/{id}/borrowing-records", patron.getId()), status().isOk());
+    }
+
+    @Test
+    public void givenLoans_whenGetBookBorrowingHistory_thenWithinBudget() throws Exception {
+        borrow(book, patron);
+        borrow(book, patronRepository.save(newPatron("Edsger")));
+
+        assertQueryBudget(3, get("/api/books/{id}/borrowing-records", book.getId()), status().isOk());
+    }
+
+    @Test
+    public void givenBook_whenPlaceHold_thenWithinBudget() throws Exception {
+        assertQueryBudget(4, post("/api/books/{bookId}/holds", book.getId()).param("patronId", patron.getId().toString()),
+                status().isCreated());
+    }
+
+    @Test
+    public void givenBooks_whenBulkDeleteByIds_thenWithinBudget() throws Exception {
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            ids.add(bookRepository.save(newBook("Retired " + i, "Author of Retired " + i, 2024)).getId());
+        }
+
+        assertQueryBudget(5, post("/api/books/bulk-delete")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(asJsonString(BookFilter.builder().ids(ids).build())), status().isOk());
+    }
+
+    @Test
+    public void givenBooks_whenBulkUpdateByAuthor_thenWithinBudget() throws Exception {
+        for (int i = 0; i < 20; i++) {
+            bookRepository.save(newBook("Dune", "Author of Dune", 2024));
+        }
+
+        assertQueryBudget(2, post("/api/books/bulk-update")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(asJsonString(BulkBookUpdateRequest.builder()
+                        .filter(BookFilter.builder().author("Author of Dune").build())
+                        .author("Frank Herbert")
+                        .build())), status().isOk());
+    }
+
+    private List<String> assertQueryBudget(int budget, RequestBuilder request, ResultMatcher expectedStatus) throws Exception {
+        SqlStatementCounter.start();
+        List<String> statements;
+        try {
+            mockMvc.perform(request).andExpect(expectedStatus);
+        } finally {
+            statements = SqlStatementCounter.stop();
+        }
+        List<String> executed = statements;
+        assertTrue(executed.size() <= budget, () -> "Expected at most " + budget + " SQL statements but "
+                + executed.size() + " were executed:\n" + String.join("\n", executed));
+        return executed;
+    }
+
+    private static long count(List<String> statements, String prefix) {
+        return statements.stream().filter(sql -> sql.startsWith(prefix)).count();
+    }
+
+    private void borrow(Book borrowedBook, Patron borrower) {
+        borrowingRecordRepository.save(BorrowingRecord.builder()
+                .book(borrowedBook)
+                .patron(borrower)
+                .borrowingDate(LocalDate.now())
+                .build());
+    }
+}
@@ -0,0 +1,73 @@
+package maids.library.demo;
+
+import maids.library.demo.branch.BranchContext;
+import maids.library.demo.branch.Branches;
+import maids.library.demo.event.BookBorrowedEvent;
+import maids.library.demo.model.entity.Book;
+import maids.library.demo.repository.ArchivedBorrowingRecordCrudRepository;
+import maids.library.demo.repository.BookCrudRepository;
+import maids.library.demo.repository.BorrowingRecordCrudRepository;
+import maids.library.demo.service.RecommendationService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataAccessResourceFailureException;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyIterable;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class RecommendationServiceTest {
+    private final BorrowingRecordCrudRepository borrowingRecordRepository = mock(BorrowingRecordCrudRepository.class);
+    private final ArchivedBorrowingRecordCrudRepository archivedRecordRepository = mock(ArchivedBorrowingRecordCrudRepository.class);
+    private final BookCrudRepository bookRepository = mock(BookCrudRepository.class);
+    private final RecommendationService recommendationService = new RecommendationService(borrowingRecordRepository,
+            archivedRecordRepository, bookRepository, new Branches(List.of(BranchContext.DEFAULT_BRANCH)),
+            50, 1, 100, 100, 10);
+
+    @BeforeEach
+    public void setUp() {
+        when(borrowingRecordRepository.findMaxId()).thenReturn(Optional.of(0L));
+        when(borrowingRecordRepository.findLoanPairs(anyInt(), anyInt(), anyLong(), anyLong(), any())).thenReturn(List.of());
+        when(bookRepository.findAllById(anyIterable())).thenReturn(List.of(Book.builder().id(2L).title("Emma").build()));
+    }
+
+    @Test
+    public void testBootstrap_FailureKeepsFollowingLoans() {
+        when(archivedRecordRepository.findLoanPairs(anyInt(), anyInt(), anyLong(), any()))
+                .thenThrow(new DataAccessResourceFailureException("Connection refused"));
+
+        assertThrows(RuntimeException.class, recommendationService::bootstrap);
+        recommendationService.onBookBorrowed(loan(1L, 1L));
+        recommendationService.onBookBorrowed(loan(2L, 2L));
+
+        assertEquals(List.of(2L), recommendationService.getRecommendations(1L, 5).stream().map(Book::getId).toList());
+    }
+
+    @Test
+    public void testBootstrapAsync_RetriesAfterFailure() {
+        when(archivedRecordRepository.findLoanPairs(anyInt(), anyInt(), anyLong(), any()))
+                .thenThrow(new DataAccessResourceFailureException("Connection refused"))
+                .thenReturn(List.of());
+
+        recommendationService.bootstrapAsync();
+
+        verify(archivedRecordRepository, timeout(5000).times(2)).findLoanPairs(anyInt(), anyInt(), anyLong(), any());
+        verify(borrowingRecordRepository, timeout(5000).times(1)).findLoanPairs(anyInt(), anyInt(), anyLong(), anyLong(), any());
+    }
+
+    private static BookBorrowedEvent loan(Long recordId, Long bookId) {
+        return new BookBorrowedEvent(recordId, bookId, 7L, LocalDate.now(), "Jane Austen", LocalDate.now());
+    }
+}
@@ -0,0 +1,81 @@
+package maids.library.demo;
+
+import maids.library.demo.model.entity.Book;
+import maids.library.demo.model.entity.Patron;
+import maids.library.demo.repository.BookCrudRepository;
+import maids.library.demo.repository.PatronCrudRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.hamcrest.Matchers.allOf;
+import static org.hamcrest.Matchers.containsString;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = {"library.timing.sample-rate=1.0", "library.timing.max-buffered-bytes=256"})
+@AutoConfigureMockMvc
+public class ServerTimingTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private BookCrudRepository bookRepository;
+
+    @Autowired
+    private PatronCrudRepository patronRepository;
+
+    @Test
+    public void givenBook_whenGetBookById_thenServerTimingReportsBreakdown() throws Exception {
+        Book book = bookRepository.save(Book.builder()
+                .title("Dune")
+                .author("Frank Herbert")
+                .publicationYear(1965)
+                .isbn("9780441013593")
+                .build());
+
+        mockMvc.perform(get("/api/books/{id}", book.getId()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.title").value("Dune"))
+                .andExpect(header().string("Server-Timing", allOf(
+                        containsString("db;desc=\"1 queries\";dur="),
+                        containsString("flush;dur="),
+                        containsString("validation;dur="),
+                        containsString("serialization;dur="),
+                        containsString("total;dur="))));
+    }
+
+    @Test
+    public void givenBodyOverBufferLimit_whenGetBookById_thenBodyStreamedIntact() throws Exception {
+        String title = "The Long Title ".repeat(12).trim();
+        Book book = bookRepository.save(Book.builder()
+                .title(title)
+                .author("Frank Herbert")
+                .publicationYear(1965)
+                .isbn("9780441013593")
+                .build());
+
+        mockMvc.perform(get("/api/books/{id}", book.getId()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.title").value(title))
+                .andExpect(jsonPath("$.author").value("Frank Herbert"));
+    }
+
+    @Test
+    public void givenPatron_whenGetFines_thenJdbcTemplateQueriesCounted() throws Exception {
+        Patron patron = patronRepository.save(Patron.builder()
+                .name("Ada")
+                .contactInformation("ada@example.com")
+                .build());
+
+        // The patron lookup and the fines go through Hibernate, the open loans through JdbcTemplate.
+        mockMvc.perform(get("/api/patrons/{id}/fines", patron.getId()))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Server-Timing", containsString("db;desc=\"3 queries\"")));
+    }
+}
@@ -0,0 +1,129 @@
+package maids.library.demo;
+
+import maids.library.demo.branch.BranchContext;
+import maids.library.demo.branch.BranchFilter;
+import maids.library.demo.branch.Branches;
+import maids.library.demo.model.entity.Book;
+import maids.library.demo.model.entity.Patron;
+import maids.library.demo.repository.BookCrudRepository;
+import maids.library.demo.repository.BorrowingRecordCrudRepository;
+import maids.library.demo.repository.PatronCrudRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static maids.library.demo.TestUtils.asJsonString;
+import static maids.library.demo.TestUtils.clearTables;
+import static maids.library.demo.TestUtils.newBook;
+import static maids.library.demo.TestUtils.newPatron;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.hasSize;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Runs against three embedded databases: the default branch and the shards east and west
+ * configured in the test properties.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+public class ShardingTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private Branches branches;
+
+    @Autowired
+    private BookCrudRepository bookRepository;
+
+    @Autowired
+    private PatronCrudRepository patronRepository;
+
+    @Autowired
+    private BorrowingRecordCrudRepository borrowingRecordRepository;
+
+    @BeforeEach
+    public void setUp() {
+        for (String branch : branches.names()) {
+            BranchContext.run(branch, () -> clearTables(jdbcTemplate));
+        }
+    }
+
+    @Test
+    public void givenBookAddedOnEast_whenListBooksPerBranch_thenOnlyEastHasIt() throws Exception {
+        mockMvc.perform(post("/api/books")
+                        .header(BranchFilter.BRANCH_HEADER, "east")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(asJsonString(newBook("Dune", "Frank Herbert", 1965))))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$.branch").value("east"));
+
+        mockMvc.perform(get("/api/books").header(BranchFilter.BRANCH_HEADER, "east"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[*].title", contains("Dune")));
+        mockMvc.perform(get("/api/books").header(BranchFilter.BRANCH_HEADER, "west"))
+                .andExpect(status().isNotFound());
+        mockMvc.perform(get("/api/books"))
+                .andExpect(status().isNotFound());
+        long eastBooks = BranchContext.call("east", bookRepository::count);
+        assertEquals(1, eastBooks);
+    }
+
+    @Test
+    public void givenBookAndPatronOnWest_whenBorrow_thenLoanStoredOnWest() throws Exception {
+        Book book = BranchContext.call("west", () -> bookRepository.save(newBook("Emma", "Jane Austen", 1965)));
+        Patron patron = BranchContext.call("west", () -> patronRepository.save(newPatron("Ada")));
+
+        mockMvc.perform(post("/api/borrow/{bookId}/patron/{patronId}", book.getId(), patron.getId())
+                        .header(BranchFilter.BRANCH_HEADER, "west"))
+                .andExpect(status().isCreated());
+
+        long westLoans = BranchContext.call("west", borrowingRecordRepository::count);
+        assertEquals(1, westLoans);
+        assertEquals(0, borrowingRecordRepository.count());
+        assertEquals("west", BranchContext.call("west", () -> borrowingRecordRepository.findAll().get(0).getBranch()));
+    }
+
+    @Test
+    public void givenBooksOnEveryBranch_whenSearchCatalog_thenResultsMergedByTitle() throws Exception {
+        bookRepository.save(newBook("Dune", "Frank Herbert", 1965));
+        BranchContext.run("east", () -> {
+            bookRepository.save(newBook("Children of Dune", "Frank Herbert", 1965));
+            bookRepository.save(newBook("Persuasion", "Jane Austen", 1965));
+        });
+        BranchContext.run("west", () -> bookRepository.save(newBook("Dune Messiah", "Frank Herbert", 1965)));
+
+        mockMvc.perform(get("/api/catalog/books").param("author", "herbert"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.books[*].title", contains("Children of Dune", "Dune", "Dune Messiah")))
+                .andExpect(jsonPath("$.books[*].branch", contains("east", "main", "west")))
+                .andExpect(jsonPath("$.unavailableBranches", hasSize(0)));
+
+        mockMvc.perform(get("/api/catalog/books").param("title", "dune").param("limit", "2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.books[*].title", contains("Children of Dune", "Dune")));
+    }
+
+    @Test
+    public void givenUnknownBranch_whenRequest_thenBadRequest() throws Exception {
+        mockMvc.perform(get("/api/books").header(BranchFilter.BRANCH_HEADER, "north"))
+                .andExpect(status().isBadRequest());
+
+        mockMvc.perform(get("/api/branches"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", contains("main", "east", "west")));
+    }
+}
@@ -0,0 +1,148 @@
+package maids.library.demo;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import maids.library.demo.model.entity.Book;
+import maids.library.demo.model.entity.BorrowingRecord;
+import maids.library.demo.model.entity.Patron;
+import maids.library.demo.repository.BookCrudRepository;
+import maids.library.demo.repository.BorrowingRecordCrudRepository;
+import maids.library.demo.repository.PatronCrudRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.List;
+
+import static maids.library.demo.TestUtils.clearTables;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = {"library.snapshot.chunk-rows=7", "library.snapshot.restore-threads=3"})
+@AutoConfigureMockMvc
+public class SnapshotTest {
+
+    @TempDir
+    static Path snapshotDirectory;
+
+    @DynamicPropertySource
+    static void snapshotProperties(DynamicPropertyRegistry registry) {
+        registry.add("library.snapshot.directory", () -> snapshotDirectory.toString());
+    }
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private BookCrudRepository bookRepository;
+
+    @Autowired
+    private PatronCrudRepository patronRepository;
+
+    @Autowired
+    private BorrowingRecordCrudRepository borrowingRecordRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    public void setUp() {
+        clearTables(jdbcTemplate);
+    }
+
+    @Test
+    public void givenLibrary_whenExportAndRestoreIntoEmptyTables_thenRowsAreIdentical() throws Exception {
+        Patron patron = patronRepository.save(Patron.builder().name("Ada").contactInformation("ada@example.com").build());
+        for (int i = 0; i < 20; i++) {
+            Book book = bookRepository.save(Book.builder()
+                    .title("Title " + i)
+                    .author(i % 2 == 0 ? "Zoë Ünicode" : "Author " + i)
+                    .publicationYear(1965)
+                    .isbn("isbn-" + i)
+                    .build());
+            borrowingRecordRepository.save(BorrowingRecord.builder()
+                    .book(book)
+                    .patron(patron)
+                    .borrowingDate(LocalDate.of(2024, 1, 1).plusDays(i))
+                    .returnDate(i % 3 == 0 ? null : LocalDate.of(2024, 2, 1))
+                    .build());
+        }
+        List<Book> books = bookRepository.findAll();
+        List<BorrowingRecord> loans = borrowingRecordRepository.findAll();
+
+        String body = mockMvc.perform(post("/api/admin/snapshots"))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$.rows.book").value(20))
+                .andExpect(jsonPath("$.rows.patron").value(1))
+                .andExpect(jsonPath("$.rows.borrowing_record").value(20))
+                .andExpect(jsonPath("$.chunks").value(7))
+                .andReturn().getResponse().getContentAsString();
+        String name = objectMapper.readTree(body).get("name").asText();
+
+        mockMvc.perform(post("/api/admin/snapshots/{name}/restore", name))
+                .andExpect(status().isConflict());
+
+        clearTables(jdbcTemplate);
+        JsonNode restored = objectMapper.readTree(mockMvc.perform(post("/api/admin/snapshots/{name}/restore", name))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString());
+        assertEquals(41, restored.get("rows").get("book").asLong() + restored.get("rows").get("patron").asLong()
+                + restored.get("rows").get("borrowing_record").asLong());
+        assertTrue(restored.get("rowsPerSecond").asDouble() > 0);
+
+        assertEquals(books, bookRepository.findAll());
+        List<BorrowingRecord> restoredLoans = borrowingRecordRepository.findAll();
+        assertEquals(loans.size(), restoredLoans.size());
+        for (int i = 0; i < loans.size(); i++) {
+            assertEquals(loans.get(i).getId(), restoredLoans.get(i).getId());
+            assertEquals(loans.get(i).getBorrowingDate(), restoredLoans.get(i).getBorrowingDate());
+            assertEquals(loans.get(i).getReturnDate(), restoredLoans.get(i).getReturnDate());
+        }
+        assertNull(restoredLoans.get(0).getReturnDate());
+        assertEquals(patron.getMemberSince(), patronRepository.findById(patron.getId()).orElseThrow().getMemberSince());
+
+        mockMvc.perform(get("/api/books/{id}", books.get(0).getId()))
+                .andExpect(status().isOk());
+        Book added = bookRepository.save(Book.builder().title("New").author("New").publicationYear(2024).isbn("new").build());
+        assertTrue(added.getId() > books.get(books.size() - 1).getId());
+    }
+
+    @Test
+    public void givenDamagedSnapshot_whenRestore_thenUnprocessable() throws Exception {
+        bookRepository.save(Book.builder().title("Dune").author("Frank Herbert").publicationYear(1965).isbn("isbn").build());
+        String name = objectMapper.readTree(mockMvc.perform(post("/api/admin/snapshots"))
+                .andReturn().getResponse().getContentAsString()).get("name").asText();
+        Path file = snapshotDirectory.resolve(name);
+        byte[] bytes = Files.readAllBytes(file);
+        bytes[bytes.length / 2] ^= 0x5A;
+        Files.write(file, bytes);
+
+        clearTables(jdbcTemplate);
+        mockMvc.perform(post("/api/admin/snapshots/{name}/restore", name))
+                .andExpect(status().isUnprocessableEntity());
+    }
+
+    @Test
+    public void givenUnknownName_whenRestore_thenNotFound() throws Exception {
+        mockMvc.perform(post("/api/admin/snapshots/{name}/restore", "missing.snap"))
+                .andExpect(status().isNotFound());
+    }
+}
@@ -0,0 +1,41 @@
+package maids.library.demo;
+
+import maids.library.demo.timing.ObservedDataSource;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Records the SQL executed on the current thread between {@link #start()} and {@link #stop()},
+ * Hibernate's and {@code JdbcTemplate}'s alike, by wrapping the primary data source. Import it
+ * into a test to register it; statements from other threads, such as the startup index builds,
+ * are not recorded.
+ */
+public class SqlStatementCounter implements BeanPostProcessor {
+    private static final ThreadLocal<List<String>> STATEMENTS = new ThreadLocal<>();
+
+    public static void start() {
+        STATEMENTS.set(new ArrayList<>());
+    }
+
+    public static List<String> stop() {
+        List<String> statements = STATEMENTS.get();
+        STATEMENTS.remove();
+        return statements != null ? statements : List.of();
+    }
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+        if (!(bean instanceof DataSource dataSource) || !beanName.equals("dataSource")) {
+            return bean;
+        }
+        return new ObservedDataSource(dataSource, (sql, nanos) -> {
+            List<String> statements = STATEMENTS.get();
+            if (statements != null) {
+                statements.add(sql);
+            }
+        });
+    }
+}
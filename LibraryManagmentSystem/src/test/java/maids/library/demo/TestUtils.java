@@ -4,8 +4,25 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import maids.library.demo.model.entity.Book;
 import maids.library.demo.model.entity.BorrowingRecord;
 import maids.library.demo.model.entity.Patron;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.List;
 
 public class TestUtils {
+    /**
+     * Every table the application writes, children before the tables they reference.
+     */
+    private static final List<String> TABLES = List.of(
+            "notification_outbox",
+            "fine",
+            "loan_daily_rollup",
+            "book_hold",
+            "borrowing_record",
+            "borrowing_record_archive",
+            "idempotency_record",
+            "book",
+            "patron");
+
     public static String asJsonString(Object obj) {
         try {
             return new ObjectMapper().writeValueAsString(obj);
@@ -14,6 +31,31 @@ public class TestUtils {
         }
     }
 
+    /**
+     * Deletes all rows of {@link #TABLES} on the current branch.
+     */
+    public static void clearTables(JdbcTemplate jdbcTemplate) {
+        for (String table : TABLES) {
+            jdbcTemplate.update("delete from " + table);
+        }
+    }
+
+    public static Book newBook(String title, String author, int publicationYear) {
+        return Book.builder()
+                .title(title)
+                .author(author)
+                .publicationYear(publicationYear)
+                .isbn("isbn-" + title)
+                .build();
+    }
+
+    public static Patron newPatron(String name) {
+        return Patron.builder()
+                .name(name)
+                .contactInformation(name.toLowerCase() + "@example.com")
+                .build();
+    }
+
     public static Book buildBook() {
         return Book.builder()
                 .id(1L)